@@ -0,0 +1,53 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A value which only increases, e.g., the number of searches. Increments are
+ * spread over several cells, so threads incrementing the same counter do not
+ * contend with each other.
+ */
+public final class Counter implements Metric {
+
+    /**
+     * The current value.
+     */
+    private final LongAdder value = new LongAdder();
+
+    // Counters are created by the registry only.
+    Counter() {
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        value.increment();
+    }
+
+    /**
+     * Increments the counter.
+     *
+     * @param amount The amount to be added, must not be negative.
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /**
+     * Gets the current value.
+     *
+     * @return The sum of all increments.
+     */
+    public long get() {
+        return value.sum();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder bob, String name, String labels) {
+        MetricsRegistry.sample(bob, name, labels, get());
+    }
+}
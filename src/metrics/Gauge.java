@@ -0,0 +1,74 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A value which can go up and down, e.g., the number of active games. Its
+ * value is either set by the program or read from a supplier whenever the
+ * metrics are exported.
+ */
+public final class Gauge implements Metric {
+
+    /**
+     * The current value, if there is no supplier.
+     */
+    private final AtomicLong value = new AtomicLong();
+
+    /**
+     * Supplies the current value, may be {@code null}.
+     */
+    private final LongSupplier supplier;
+
+    /**
+     * Creates a new gauge.
+     *
+     * @param supplier Supplies the value, {@code null} if it is set.
+     */
+    Gauge(LongSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Increments the gauge by one.
+     */
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    /**
+     * Decrements the gauge by one.
+     */
+    public void decrement() {
+        value.decrementAndGet();
+    }
+
+    /**
+     * Sets the gauge.
+     *
+     * @param newValue The new value.
+     */
+    public void set(long newValue) {
+        value.set(newValue);
+    }
+
+    /**
+     * Gets the current value.
+     *
+     * @return The value of the supplier, if there is one, or the set value.
+     */
+    public long get() {
+        if (supplier != null) {
+            return supplier.getAsLong();
+        }
+        return value.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder bob, String name, String labels) {
+        MetricsRegistry.sample(bob, name, labels, get());
+    }
+}
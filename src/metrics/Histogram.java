@@ -0,0 +1,95 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in fixed buckets, e.g., search latencies. Recording is
+ * lock-free: it only increments striped counters, so it can be called from
+ * any number of threads without contention.
+ */
+public final class Histogram implements Metric {
+
+    /**
+     * The upper bounds of the buckets in seconds. A last bucket without
+     * bound holds everything above.
+     */
+    private static final double[] BOUNDS = {0.001, 0.0025, 0.005, 0.01,
+            0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    /**
+     * The upper bounds of the buckets in nanoseconds.
+     */
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS[i] * 1e9);
+        }
+    }
+
+    /**
+     * The number of durations per bucket, not cumulative.
+     */
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    /**
+     * The sum of all durations in nanoseconds.
+     */
+    private final LongAdder sumNanos = new LongAdder();
+
+    // Histograms are created by the registry only.
+    Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket: buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(StringBuilder bob, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            String bound = i < BOUNDS.length ? String.valueOf(BOUNDS[i])
+                    : "+Inf";
+            MetricsRegistry.sample(bob, name + "_bucket",
+                    separator + "le=\"" + bound + "\"", cumulative);
+        }
+        bob.append(name).append("_sum");
+        if (!labels.isEmpty()) {
+            bob.append('{').append(labels).append('}');
+        }
+        bob.append(' ').append(sumNanos.sum() / 1e9).append('\n');
+        MetricsRegistry.sample(bob, name + "_count", labels, cumulative);
+    }
+}
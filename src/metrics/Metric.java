@@ -0,0 +1,17 @@
+package metrics;
+
+/**
+ * A single time series which can be exported in the Prometheus text format.
+ */
+interface Metric {
+
+    /**
+     * Appends the samples of this metric to an exposition.
+     *
+     * @param bob The exposition to be appended to.
+     * @param name The name of the metric family.
+     * @param labels The labels of this metric as {@code key="value"} pairs
+     *        separated by commas, may be empty.
+     */
+    void write(StringBuilder bob, String name, String labels);
+}
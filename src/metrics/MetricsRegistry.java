@@ -0,0 +1,202 @@
+package metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds all metrics of the program and exports them in the Prometheus text
+ * format. Metrics with the same name but different labels form a family,
+ * e.g., the searches of each level. Asking for a metric which already
+ * exists returns the existing one, so metrics can be looked up once and
+ * kept in static fields.
+ */
+public final class MetricsRegistry {
+
+    /**
+     * The registry used by the engine, the shell and the server.
+     */
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    /**
+     * The metric families by name, sorted for a stable exposition.
+     */
+    private final Map<String, Family> families
+            = new ConcurrentSkipListMap<>();
+
+    /**
+     * Gets the registry used by the engine, the shell and the server.
+     *
+     * @return The default registry.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name The name of the metric, ending with {@code _total}.
+     * @param help A description of the metric.
+     * @param labels Alternating label names and values.
+     * @return The counter.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter")
+                .get(labels, Counter::new);
+    }
+
+    /**
+     * Gets or creates a gauge whose value is set by the program.
+     *
+     * @param name The name of the metric.
+     * @param help A description of the metric.
+     * @param labels Alternating label names and values.
+     * @return The gauge.
+     */
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge) family(name, help, "gauge")
+                .get(labels, () -> new Gauge(null));
+    }
+
+    /**
+     * Gets or creates a gauge whose value is read on export. If the gauge
+     * already exists, its supplier is not replaced.
+     *
+     * @param name The name of the metric.
+     * @param help A description of the metric.
+     * @param supplier Supplies the current value.
+     * @param labels Alternating label names and values.
+     * @return The gauge.
+     */
+    public Gauge gauge(String name, String help, LongSupplier supplier,
+                       String... labels) {
+        return (Gauge) family(name, help, "gauge")
+                .get(labels, () -> new Gauge(supplier));
+    }
+
+    /**
+     * Gets or creates a histogram of durations in seconds.
+     *
+     * @param name The name of the metric, ending with {@code _seconds}.
+     * @param help A description of the metric.
+     * @param labels Alternating label names and values.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram")
+                .get(labels, Histogram::new);
+    }
+
+    /**
+     * Exports all metrics in the Prometheus text format, version 0.0.4.
+     *
+     * @return The exposition.
+     */
+    public String expose() {
+        StringBuilder bob = new StringBuilder();
+        for (Map.Entry<String, Family> entry: families.entrySet()) {
+            Family family = entry.getValue();
+            bob.append("# HELP ").append(entry.getKey()).append(' ')
+                    .append(family.help).append('\n');
+            bob.append("# TYPE ").append(entry.getKey()).append(' ')
+                    .append(family.type).append('\n');
+            for (Map.Entry<String, Metric> metric
+                    : family.metrics.entrySet()) {
+                metric.getValue().write(bob, entry.getKey(), metric.getKey());
+            }
+        }
+        return bob.toString();
+    }
+
+    /**
+     * Appends one sample line to an exposition.
+     *
+     * @param bob The exposition to be appended to.
+     * @param name The name of the sample.
+     * @param labels The labels, may be empty.
+     * @param value The value of the sample.
+     */
+    static void sample(StringBuilder bob, String name, String labels,
+                       long value) {
+        bob.append(name);
+        if (!labels.isEmpty()) {
+            bob.append('{').append(labels).append('}');
+        }
+        bob.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Gets or creates a metric family.
+     *
+     * @param name The name of the family.
+     * @param help A description of the family.
+     * @param type The Prometheus type of the family.
+     * @return The family.
+     * @throws IllegalArgumentException If a family of another type with the
+     *         same name exists.
+     */
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name,
+                key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is a " + family.type);
+        }
+        return family;
+    }
+
+    /**
+     * Metrics with the same name, help and type.
+     */
+    private static final class Family {
+
+        /**
+         * A description of the metrics.
+         */
+        private final String help;
+
+        /**
+         * The Prometheus type of the metrics.
+         */
+        private final String type;
+
+        /**
+         * The metrics by their formatted labels.
+         */
+        private final Map<String, Metric> metrics
+                = new ConcurrentSkipListMap<>();
+
+        /**
+         * Creates a new family.
+         *
+         * @param help A description of the metrics.
+         * @param type The Prometheus type of the metrics.
+         */
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+
+        /**
+         * Gets or creates the metric with the given labels.
+         *
+         * @param labels Alternating label names and values.
+         * @param factory Creates the metric if it does not exist.
+         * @return The metric.
+         */
+        private Metric get(String[] labels,
+                           Supplier<Metric> factory) {
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i != 0) {
+                    key.append(',');
+                }
+                key.append(labels[i]).append("=\"").append(labels[i + 1])
+                        .append('"');
+            }
+            return metrics.computeIfAbsent(key.toString(),
+                    k -> factory.get());
+        }
+    }
+}
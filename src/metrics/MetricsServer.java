@@ -0,0 +1,67 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics of a registry via HTTP on the loopback interface, so a
+ * Prometheus server on the same host can scrape {@code /metrics}.
+ */
+public final class MetricsServer implements Closeable {
+
+    /**
+     * The content type of the Prometheus text format.
+     */
+    private static final String CONTENT_TYPE
+            = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * The underlying HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Creates and starts a new metrics endpoint.
+     *
+     * @param port The port to listen on, 0 for any free port.
+     * @param registry The registry to be exported.
+     * @throws IOException If the port cannot be bound.
+     */
+    public MetricsServer(int port, MetricsRegistry registry)
+            throws IOException {
+        server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = registry.expose().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Gets the port the endpoint is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the endpoint.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
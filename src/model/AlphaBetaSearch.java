@@ -0,0 +1,421 @@
+package model;
+
+/**
+ * Searches the machine's best move depth first on bit boards with
+ * alpha-beta pruning, so no tree is kept and subtrees that cannot change
+ * the result are skipped. Like in {@link TreeNode#evaluate()}, a line is
+ * worth the sum of the local scores of its positions, but the sums are
+ * built from the root towards the leaves: every node passes the sum of its
+ * path on to its children, and a leaf returns it. Values are thus compared
+ * exactly as they were added up, and searches with different windows find
+ * identical values.
+ *
+ * <p>With a {@link ProbCut} calibration the search is selective: before
+ * searching a node deeply, a shallow search predicts whether the deep
+ * result would fall outside the window, and if the prediction is
+ * confident enough, the node is cut without the deep search.</p>
+ *
+ * <p>The search returns fail-soft bounds: a value at most alpha is an upper
+ * bound of the true value, a value at least beta a lower bound. Bounds are
+ * kept in a {@link BoundTable} for later searches of the same node.</p>
+ */
+final class AlphaBetaSearch implements RootSearch {
+
+    /**
+     * The slots of a board.
+     */
+    private static final int SLOTS = Board.SIZE * Board.SIZE;
+
+    /**
+     * The distance between the bounds of the null windows of ProbCut.
+     */
+    private static final double NULL_WINDOW = 1e-6;
+
+    /**
+     * The binary logarithm of the number of slots of the bound table.
+     */
+    private static final int TABLE_BITS = 16;
+
+    /**
+     * The least remaining depth whose bounds are stored. Shallower nodes
+     * are cheaper to search than to store.
+     */
+    private static final int MIN_TABLE_DEPTH = 2;
+
+    /**
+     * The state of the running search: node count, deadline and
+     * cancellation.
+     */
+    private final SearchContext context;
+
+    /**
+     * The calibration of selective searches, {@code null} for a full
+     * search.
+     */
+    private final ProbCut probCut;
+
+    /**
+     * {@code true} to check the moves after the first with a null window
+     * (principal variation search).
+     */
+    private final boolean scout;
+
+    /**
+     * The bounds found so far.
+     */
+    private final BoundTable table = new BoundTable(TABLE_BITS);
+
+    /**
+     * The network scoring the positions, {@code null} for the hand-tuned
+     * score.
+     */
+    private final NeuralEvaluator network;
+
+    /**
+     * The machine's tiles of the children per ply.
+     */
+    private final long[][] machineTiles;
+
+    /**
+     * The human's tiles of the children per ply.
+     */
+    private final long[][] humanTiles;
+
+    /**
+     * The local scores of the children per ply.
+     */
+    private final double[][] localScores;
+
+    /**
+     * The moves of the children per ply.
+     */
+    private final int[][] moves;
+
+    /**
+     * The order the children are searched in per ply.
+     */
+    private final int[][] order;
+
+    /**
+     * The best move at the root.
+     */
+    private int bestMove = -1;
+
+    /**
+     * The value of the best move at the root.
+     */
+    private double bestScore;
+
+    /**
+     * Creates a search.
+     *
+     * @param context The state of the search, whose maximum depth is the
+     *        deepest search possible.
+     * @param probCut The calibration of selective searches, {@code null}
+     *        for a full search.
+     * @param scout {@code true} for a principal variation search.
+     */
+    AlphaBetaSearch(SearchContext context, ProbCut probCut, boolean scout) {
+        this.context = context;
+        this.probCut = probCut;
+        this.scout = scout;
+        this.network = ReversiBoard.getEvaluator();
+        int plies = context.getMaxDepth() + 1;
+        machineTiles = new long[plies][SLOTS];
+        humanTiles = new long[plies][SLOTS];
+        localScores = new double[plies][SLOTS];
+        moves = new int[plies][SLOTS];
+        order = new int[plies][SLOTS];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The guess is ignored, the root is searched with the full
+     * window.</p>
+     */
+    @Override
+    public int searchRoot(long machine, long human, int depth,
+                          double guess) {
+        return searchRoot(machine, human, depth, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Searches the best move of the machine within a window. If the value
+     * is at most alpha, the move is unreliable and the value an upper
+     * bound; if it is at least beta, the move is at least that good.
+     *
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param depth The depth of the search, at most the maximum depth of
+     *        the context.
+     * @param alpha The lower bound of the window.
+     * @param beta The upper bound of the window.
+     * @return The best move encoded as {@code row * Board.SIZE + column},
+     *         or -1 if the machine cannot move or the search was stopped.
+     */
+    int searchRoot(long machine, long human, int depth, double alpha,
+                   double beta) {
+        bestMove = -1;
+        if (BitBoard.moves(machine, human) == 0) {
+            return -1;
+        }
+        bestScore = search(0, machine, human, true, 0, 0, depth, alpha,
+                beta);
+        if (context.isStopped()) {
+            return -1;
+        }
+        return bestMove;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Checks whether the search was stopped by the deadline or an
+     * interrupt.
+     *
+     * @return {@code true} if the search was stopped.
+     */
+    boolean isStopped() {
+        return context.isStopped();
+    }
+
+    /**
+     * Searches a node.
+     *
+     * @param ply The distance from the root.
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param machineToMove {@code true} if the machine moves next, unless
+     *        it has to pass.
+     * @param sum The sum of the local scores on the path to the node,
+     *        including its own.
+     * @param local The local score of the node.
+     * @param depth The remaining depth.
+     * @param alpha The value the machine is sure of already.
+     * @param beta The value the human is sure of already.
+     * @return The value of the best line through the node if it lies
+     *         within the window, else a bound beyond the window.
+     */
+    double search(int ply, long machine, long human, boolean machineToMove,
+                  double sum, double local, int depth, double alpha,
+                  double beta) {
+        if (depth == 0 || context.isStopped()) {
+            return sum;
+        }
+        boolean maximizing = machineToMove;
+        long valid = maximizing ? BitBoard.moves(machine, human)
+                : BitBoard.moves(human, machine);
+        if (valid == 0) {
+            // The player to move must pass, or the game is over.
+            maximizing = !maximizing;
+            valid = maximizing ? BitBoard.moves(machine, human)
+                    : BitBoard.moves(human, machine);
+            if (valid == 0) {
+                return sum;
+            }
+        }
+        int hashMove = -1;
+        if (depth >= MIN_TABLE_DEPTH) {
+            int slot = table.find(machine, human, machineToMove, depth, sum);
+            if (slot >= 0) {
+                hashMove = table.move(slot);
+                double lower = table.lower(slot);
+                double upper = table.upper(slot);
+                if (ply > 0) {
+                    if (lower >= beta || lower == upper) {
+                        return lower;
+                    }
+                    if (upper <= alpha) {
+                        return upper;
+                    }
+                    alpha = Math.max(alpha, lower);
+                    beta = Math.min(beta, upper);
+                }
+            }
+        }
+        if (probCut != null && ply > 0) {
+            double cut = tryCut(ply, machine, human, machineToMove, sum,
+                    local, depth, alpha, beta);
+            if (!Double.isNaN(cut)) {
+                return cut;
+            }
+        }
+        int count = expand(ply, machine, human, maximizing, valid, hashMove);
+        double a = alpha;
+        double b = beta;
+        double best = maximizing ? Double.NEGATIVE_INFINITY
+                : Double.POSITIVE_INFINITY;
+        int move = -1;
+        int[] sequence = order[ply];
+        for (int i = 0; i < count; i++) {
+            int child = sequence[i];
+            long m = machineTiles[ply][child];
+            long h = humanTiles[ply][child];
+            double childLocal = localScores[ply][child];
+            double childSum = sum + childLocal;
+            double value;
+            if (scout && i > 0) {
+                // Check with a null window that the move is no better.
+                if (maximizing) {
+                    value = search(ply + 1, m, h, false, childSum,
+                            childLocal, depth - 1, a, Math.nextUp(a));
+                    if (value > a && value < b) {
+                        value = search(ply + 1, m, h, false, childSum,
+                                childLocal, depth - 1, a, b);
+                    }
+                } else {
+                    value = search(ply + 1, m, h, true, childSum,
+                            childLocal, depth - 1, Math.nextDown(b), b);
+                    if (value < b && value > a) {
+                        value = search(ply + 1, m, h, true, childSum,
+                                childLocal, depth - 1, a, b);
+                    }
+                }
+            } else {
+                value = search(ply + 1, m, h, !maximizing, childSum,
+                        childLocal, depth - 1, a, b);
+            }
+            if (maximizing ? value > best : value < best) {
+                best = value;
+                move = moves[ply][child];
+                if (ply == 0) {
+                    bestMove = move;
+                }
+            }
+            if (maximizing) {
+                a = Math.max(a, best);
+            } else {
+                b = Math.min(b, best);
+            }
+            if (a >= b) {
+                break;
+            }
+        }
+        if (depth >= MIN_TABLE_DEPTH && !context.isStopped()) {
+            table.store(machine, human, machineToMove, depth, sum,
+                    best > alpha ? best : Double.NEGATIVE_INFINITY,
+                    best < beta ? best : Double.POSITIVE_INFINITY, move);
+        }
+        return best;
+    }
+
+    /**
+     * Tries to cut a node with shallow searches. The calibration relates
+     * the values of the node without the path above it, so the window is
+     * shifted by the sum of that path.
+     *
+     * @param ply The distance from the root.
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param machineToMove {@code true} if the machine moves next.
+     * @param sum The sum of the local scores on the path to the node.
+     * @param local The local score of the node.
+     * @param depth The remaining depth.
+     * @param alpha The lower bound of the window.
+     * @param beta The upper bound of the window.
+     * @return The bound to be returned, or {@code NaN} if the node must be
+     *         searched.
+     */
+    private double tryCut(int ply, long machine, long human,
+                          boolean machineToMove, double sum, double local,
+                          int depth, double alpha, double beta) {
+        int stage = ProbCut.stage(SLOTS - Long.bitCount(machine | human));
+        int shallow = probCut.shallowDepth(depth, stage);
+        if (shallow == 0) {
+            return Double.NaN;
+        }
+        double path = sum - local;
+        if (beta != Double.POSITIVE_INFINITY) {
+            double bound = probCut.upperCut(depth, stage, beta - path)
+                    + path;
+            if (search(ply, machine, human, machineToMove, sum, local,
+                    shallow, bound - NULL_WINDOW, bound) >= bound) {
+                return beta;
+            }
+        }
+        if (alpha != Double.NEGATIVE_INFINITY) {
+            double bound = probCut.lowerCut(depth, stage, alpha - path)
+                    + path;
+            if (search(ply, machine, human, machineToMove, sum, local,
+                    shallow, bound, bound + NULL_WINDOW) <= bound) {
+                return alpha;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Creates the children of a node for one ply and orders them by their
+     * local scores, the best for the player to move first, after the best
+     * move of an earlier search.
+     *
+     * @param ply The distance of the node from the root.
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param maximizing {@code true} if the machine moves.
+     * @param valid The valid moves.
+     * @param first The move to be searched first, -1 if none.
+     * @return The number of children.
+     */
+    private int expand(int ply, long machine, long human, boolean maximizing,
+                       long valid, int first) {
+        int count = 0;
+        for (long rest = valid; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            long placed = 1L << square;
+            long m;
+            long h;
+            if (maximizing) {
+                long flipped = BitBoard.flips(machine, human, square);
+                m = machine | flipped | placed;
+                h = human & ~flipped;
+            } else {
+                long flipped = BitBoard.flips(human, machine, square);
+                h = human | flipped | placed;
+                m = machine & ~flipped;
+            }
+            machineTiles[ply][count] = m;
+            humanTiles[ply][count] = h;
+            localScores[ply][count] = score(m, h);
+            moves[ply][count] = square;
+            context.countNode();
+
+            // Insert the child into the order, keeping equal ones stable.
+            int[] sequence = order[ply];
+            int i = count;
+            double local = localScores[ply][count];
+            while (i > 0 && moves[ply][sequence[i - 1]] != first
+                    && (square == first || (maximizing
+                    ? localScores[ply][sequence[i - 1]] < local
+                    : localScores[ply][sequence[i - 1]] > local))) {
+                sequence[i] = sequence[i - 1];
+                i--;
+            }
+            sequence[i] = count;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the local score of a position.
+     *
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @return The score from the machine's point of view.
+     */
+    double score(long machine, long human) {
+        if (network != null) {
+            return network.evaluate(network.accumulate(machine, human));
+        }
+        return BatchEvaluator.score(machine, human);
+    }
+}
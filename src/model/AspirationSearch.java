@@ -0,0 +1,72 @@
+package model;
+
+/**
+ * Searches the root with a window around the guessed value instead of the
+ * full window. A narrow window cuts more, but if the value falls outside,
+ * the root has to be searched again with a wider window on that side.
+ */
+final class AspirationSearch implements RootSearch {
+
+    /**
+     * The half width of the first window.
+     */
+    private static final double WINDOW = 2000;
+
+    /**
+     * The search doing the work.
+     */
+    private final AlphaBetaSearch search;
+
+    /**
+     * The value of the best move of the last search.
+     */
+    private double bestScore;
+
+    /**
+     * Creates a search.
+     *
+     * @param search The alpha-beta search to be called.
+     */
+    AspirationSearch(AlphaBetaSearch search) {
+        this.search = search;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int searchRoot(long machine, long human, int depth,
+                          double guess) {
+        double delta = WINDOW;
+        double alpha = guess - delta;
+        double beta = guess + delta;
+        while (true) {
+            int move = search.searchRoot(machine, human, depth, alpha, beta);
+            if (move < 0) {
+                return -1;
+            }
+            double value = search.getBestScore();
+            delta *= 2;
+            if (value <= alpha) {
+                // The value is at most the one found.
+                beta = Math.nextUp(value);
+                alpha = value - delta;
+            } else if (value >= beta) {
+                // The value is at least the one found.
+                alpha = Math.nextDown(value);
+                beta = value + delta;
+            } else {
+                bestScore = value;
+                return move;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getBestScore() {
+        return bestScore;
+    }
+}
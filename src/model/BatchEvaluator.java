@@ -0,0 +1,273 @@
+package model;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Calculates the hand-tuned local score of many positions in one call. The
+ * positions are passed as two arrays of bit sets, one for the machine's and
+ * one for the human's tiles, bit {@code row * 8 + column} standing for each
+ * slot, and the scores are written into a third array. Instead of visiting
+ * the slots one by one, all terms of the score are calculated with bit
+ * operations on whole boards: the slot weights as bit planes, the mobility
+ * with {@link BitBoard#moves(long, long)}, the empty neighbours with
+ * shifted boards and the stable tiles with {@link Stability}. The results
+ * equal {@link ReversiBoard#score()} exactly.
+ *
+ * <p>Searches collect the leaves below a node in an instance of this class
+ * and score them together.</p>
+ */
+public final class BatchEvaluator {
+
+    /**
+     * The number of bits of the largest slot weight.
+     */
+    private static final int WEIGHT_BITS = 14;
+
+    /**
+     * The slots whose weight has bit {@code i} set, for each bit.
+     */
+    private static final long[] WEIGHT_PLANES = initWeightPlanes();
+
+    /**
+     * The shifts that move a tile to its neighbour in each direction.
+     */
+    private static final int[] SHIFTS = {1, -1, 8, -8, 9, -9, 7, -7};
+
+    /**
+     * All slots except the first column.
+     */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+
+    /**
+     * All slots except the last column.
+     */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * The slots a tile can be shifted to in each direction of
+     * {@link #SHIFTS} without wrapping around into another row.
+     */
+    private static final long[] TARGETS = {NOT_FIRST_COLUMN, NOT_LAST_COLUMN,
+            -1L, -1L, NOT_FIRST_COLUMN, NOT_LAST_COLUMN, NOT_LAST_COLUMN,
+            NOT_FIRST_COLUMN};
+
+    /**
+     * The machine's tiles of the collected positions.
+     */
+    private final long[] machine;
+
+    /**
+     * The human's tiles of the collected positions.
+     */
+    private final long[] human;
+
+    /**
+     * The scores of the collected positions after {@link #evaluate()}.
+     */
+    private final double[] scores;
+
+    /**
+     * The number of collected positions.
+     */
+    private int size;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity The most positions the batch can hold.
+     */
+    BatchEvaluator(int capacity) {
+        machine = new long[capacity];
+        human = new long[capacity];
+        scores = new double[capacity];
+    }
+
+    /**
+     * Adds a position to the batch.
+     *
+     * @param machineTiles The machine's tiles.
+     * @param humanTiles The human's tiles.
+     * @return The index of the position in the batch.
+     */
+    int add(long machineTiles, long humanTiles) {
+        machine[size] = machineTiles;
+        human[size] = humanTiles;
+        return size++;
+    }
+
+    /**
+     * Scores all collected positions.
+     */
+    void evaluate() {
+        evaluate(machine, human, scores, size);
+    }
+
+    /**
+     * Gets the score of a position after {@link #evaluate()}.
+     *
+     * @param index The index returned by {@link #add(long, long)}.
+     * @return The local score.
+     */
+    double score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Removes all positions.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Calculates the local scores of many positions.
+     *
+     * @param machine The machine's tiles of each position.
+     * @param human The human's tiles of each position.
+     * @param scores Receives the score of each position from the machine's
+     *        point of view.
+     * @param count The number of positions.
+     */
+    public static void evaluate(long[] machine, long[] human,
+                                double[] scores, int count) {
+        for (int i = 0; i < count; i++) {
+            scores[i] = score(machine[i], human[i]);
+        }
+    }
+
+    /**
+     * Calculates the local score of one position with bit operations.
+     *
+     * @param m The machine's tiles.
+     * @param h The human's tiles.
+     * @return The score from the machine's point of view.
+     */
+    static double score(long m, long h) {
+        long empty = ~(m | h);
+        int occupiedFields = Long.bitCount(m | h);
+        int tScoreComputer = 0;
+        int tScoreHuman = 0;
+        for (int bit = 0; bit < WEIGHT_BITS; bit++) {
+            tScoreComputer += Long.bitCount(m & WEIGHT_PLANES[bit]) << bit;
+            tScoreHuman += Long.bitCount(h & WEIGHT_PLANES[bit]) << bit;
+        }
+        int mScoreComputer = Long.bitCount(BitBoard.moves(m, h));
+        int mScoreHuman = Long.bitCount(BitBoard.moves(h, m));
+        int pScoreComputer = 0;
+        int pScoreHuman = 0;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            // Tiles moved onto their neighbour, which must be empty.
+            long open = empty & TARGETS[d];
+            pScoreComputer += Long.bitCount(shift(m, SHIFTS[d]) & open);
+            pScoreHuman += Long.bitCount(shift(h, SHIFTS[d]) & open);
+        }
+
+        // The same terms as the local score of ReversiBoard.
+        double scoreT = (tScoreComputer * 1.0) - 1.5 * (tScoreHuman * 1.0);
+        double scoreM = (64.0 / occupiedFields) * (3.0 * mScoreComputer
+                - 4.0 * mScoreHuman);
+        double scoreP = (64.0 / (2.0 * occupiedFields))
+                * (2.5 * pScoreHuman - 3.0 * pScoreComputer);
+        double scoreS = ReversiBoard.STABILITY_WEIGHT
+                * (Long.bitCount(Stability.stable(m, h))
+                - Long.bitCount(Stability.stable(h, m)));
+        return scoreT + scoreM + scoreP + scoreS;
+    }
+
+    /**
+     * Splits the slot weights into bit planes.
+     *
+     * @return The slots whose weight has bit {@code i} set, for each bit.
+     */
+    private static long[] initWeightPlanes() {
+        long[] planes = new long[WEIGHT_BITS];
+        for (int square = 0; square < Board.SIZE * Board.SIZE; square++) {
+            int weight = ReversiBoard.squareWeight(square / Board.SIZE,
+                    square % Board.SIZE);
+            if (weight < 0 || weight >= 1 << WEIGHT_BITS) {
+                throw new IllegalStateException("Weight out of range");
+            }
+            for (int bit = 0; bit < WEIGHT_BITS; bit++) {
+                if ((weight >>> bit & 1) != 0) {
+                    planes[bit] |= 1L << square;
+                }
+            }
+        }
+        return planes;
+    }
+
+    /**
+     * Shifts all tiles one slot in a direction. Tiles shifted beyond the
+     * first or last row are dropped.
+     *
+     * @param tiles The tiles.
+     * @param shift The shift of the direction.
+     * @return The shifted tiles.
+     */
+    private static long shift(long tiles, int shift) {
+        if (shift > 0) {
+            return tiles << shift;
+        }
+        return tiles >>> -shift;
+    }
+
+    /**
+     * Compares the batch with {@link ReversiBoard#score()} on positions of
+     * random games and prints the positions per second of both as JSON.
+     * The program exits with status 1 if any score differs.
+     *
+     * @param args Optionally the number of games (default 500).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        ReversiBoard.setEvaluator(null);
+        Random random = new Random(1);
+        ReversiBoard[] positions = new ReversiBoard[games * 64];
+        int count = 0;
+        for (int game = 0; game < games; game++) {
+            ReversiBoard board = new ReversiBoard();
+            while (!board.gameOver()) {
+                int[] moves = board.legalMoves();
+                int move = moves[random.nextInt(moves.length)];
+                board = board.play(move / Board.SIZE, move % Board.SIZE);
+                positions[count++] = board;
+            }
+        }
+        long[] machine = new long[count];
+        long[] human = new long[count];
+        for (int i = 0; i < count; i++) {
+            machine[i] = positions[i].bits(Player.COMPUTER);
+            human[i] = positions[i].bits(Player.HUMAN);
+        }
+        double[] scalar = new double[count];
+        double[] batched = new double[count];
+        long scalarNanos = Long.MAX_VALUE;
+        long batchNanos = Long.MAX_VALUE;
+
+        // The best of several rounds, the first ones warm up the compiler.
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                scalar[i] = positions[i].score();
+            }
+            scalarNanos = Math.min(scalarNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            evaluate(machine, human, batched, count);
+            batchNanos = Math.min(batchNanos, System.nanoTime() - start);
+        }
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (scalar[i] != batched[i]) {
+                mismatches++;
+            }
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "{\"positions\": %d, \"mismatches\": %d, "
+                        + "\"scalarPerSecond\": %.0f, "
+                        + "\"batchPerSecond\": %.0f}", count, mismatches,
+                count * 1e9 / Math.max(1, scalarNanos),
+                count * 1e9 / Math.max(1, batchNanos)));
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,147 @@
+package model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Move generation on a compact board of two bit sets, one for the player to
+ * move and one for the opponent. Bit {@code row * 8 + column} stands for
+ * the slot in that row and column. Nothing here allocates objects, so
+ * random games can be played millions of times without garbage. Only
+ * boards with 8 rows and columns fit into the bit sets.
+ */
+final class BitBoard {
+
+    /**
+     * The shifts that move a bit to its neighbour in each direction.
+     */
+    private static final int[] SHIFTS = {1, -1, 8, -8, 9, -9, 7, -7};
+
+    /**
+     * All slots except the first and last column. Shifting a tile of these
+     * slots sideways cannot wrap around into another row.
+     */
+    private static final long INNER_COLUMNS = 0x7E7E7E7E7E7E7E7EL;
+
+    /**
+     * The slots that may lie between two tiles in each direction of
+     * {@link #SHIFTS}.
+     */
+    private static final long[] MASKS = {INNER_COLUMNS, INNER_COLUMNS, -1L,
+            -1L, INNER_COLUMNS, INNER_COLUMNS, INNER_COLUMNS, INNER_COLUMNS};
+
+    // Utility class.
+    private BitBoard() {
+    }
+
+    /**
+     * Collects the slots the player to move can place a tile on.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @return The valid moves as a bit set.
+     */
+    static long moves(long own, long opponent) {
+        long empty = ~(own | opponent);
+        long moves = 0;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            int shift = SHIFTS[d];
+            long between = opponent & MASKS[d];
+
+            // Follow runs of up to six opponent tiles.
+            long run = shift(own, shift) & between;
+            run |= shift(run, shift) & between;
+            run |= shift(run, shift) & between;
+            run |= shift(run, shift) & between;
+            run |= shift(run, shift) & between;
+            run |= shift(run, shift) & between;
+            moves |= shift(run, shift) & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * Collects the tiles flipped by a valid move.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param square The slot of the move.
+     * @return The tiles of the opponent that change sides.
+     */
+    static long flips(long own, long opponent, int square) {
+        long flipped = 0;
+        long placed = 1L << square;
+        for (int d = 0; d < SHIFTS.length; d++) {
+            int shift = SHIFTS[d];
+            long between = opponent & MASKS[d];
+            long run = 0;
+            long next = shift(placed, shift);
+            while ((next & between) != 0) {
+                run |= next;
+                next = shift(next, shift);
+            }
+            if ((next & own) != 0) {
+                flipped |= run;
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Plays random moves until the game is over.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @return The result for the player to move in half points: 2 for a
+     *         win, 1 for a tie and 0 for a loss.
+     */
+    static int playout(long own, long opponent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean swapped = false;
+        boolean passed = false;
+        while (true) {
+            long moves = moves(own, opponent);
+            if (moves == 0) {
+                if (passed) {
+                    break;
+                }
+                passed = true;
+            } else {
+                passed = false;
+
+                // Drop a random number of moves, then take the lowest.
+                for (int k = random.nextInt(Long.bitCount(moves)); k > 0;
+                        k--) {
+                    moves &= moves - 1;
+                }
+                int square = Long.numberOfTrailingZeros(moves);
+                long flipped = flips(own, opponent, square);
+                own |= flipped | (1L << square);
+                opponent &= ~flipped;
+            }
+            long tiles = own;
+            own = opponent;
+            opponent = tiles;
+            swapped = !swapped;
+        }
+        int difference = Long.bitCount(own) - Long.bitCount(opponent);
+        if (swapped) {
+            difference = -difference;
+        }
+        return Integer.signum(difference) + 1;
+    }
+
+    /**
+     * Shifts all tiles one slot in a direction. Tiles shifted beyond the
+     * first or last row are dropped.
+     *
+     * @param tiles The tiles.
+     * @param shift The shift of the direction.
+     * @return The shifted tiles.
+     */
+    private static long shift(long tiles, int shift) {
+        if (shift > 0) {
+            return tiles << shift;
+        }
+        return tiles >>> -shift;
+    }
+}
@@ -8,11 +8,30 @@ package model;
 public interface Board extends Cloneable {
 
     /**
-     * The number of rows and columns of the game grid. Originally 8.
-     * Here, even and at least 4.
+     * The number of rows and columns of the standard game grid. Boards of
+     * other sizes report theirs with {@link #getSize()}.
      */
     int SIZE = 8;
 
+    /**
+     * The least number of rows and columns of a game grid.
+     */
+    int MIN_SIZE = 4;
+
+    /**
+     * The largest number of rows and columns of a game grid.
+     */
+    int MAX_SIZE = 16;
+
+    /**
+     * Gets the number of rows and columns of this game grid, which is even
+     * and between {@link #MIN_SIZE} and {@link #MAX_SIZE}. Moves are encoded
+     * as {@code row * getSize() + column}.
+     *
+     * @return The size of the grid.
+     */
+    int getSize();
+
     /**
      * Gets the player who should start or already has started the game.
      *
@@ -57,6 +76,63 @@ public interface Board extends Cloneable {
      */
     Board machineMove();
 
+    /**
+     * Takes back a move without replaying the game. Like the other moves,
+     * this method returns a copy of {@code this} with the move taken back.
+     *
+     * @param row The row of the tile placed by the move.
+     * @param col The column of the tile placed by the move.
+     * @param flipped The slots of the tiles flipped by the move, each
+     *        encoded as {@code row * getSize() + column}.
+     * @return A new board with the tile removed, the flipped tiles flipped
+     *         back and the player who made the move to move again.
+     * @throws IllegalArgumentException If the slot of the move is empty.
+     */
+    Board undoMove(int row, int col, int[] flipped);
+
+    /**
+     * Executes a move again that was taken back with
+     * {@link #undoMove(int, int, int[])}. The move is not validated again.
+     *
+     * @param row The row of the tile to be placed.
+     * @param col The column of the tile to be placed.
+     * @param player The player who makes the move.
+     * @param flipped The slots of the tiles flipped by the move, each
+     *        encoded as {@code row * getSize() + column}.
+     * @return A new board with the move executed.
+     */
+    Board redoMove(int row, int col, Player player, int[] flipped);
+
+    /**
+     * Executes a machine move like {@link #machineMove()} and informs a
+     * listener about the progress of the search. The listener is called on
+     * the calling thread whenever the best move improves, at most every few
+     * milliseconds, and once with the final result.
+     *
+     * @param listener The listener to be informed, may be {@code null}.
+     * @return A new board with the move executed.
+     * @throws IllegalMoveException If the game is already over, or it is not
+     *         the machine's turn.
+     * @throws java.util.concurrent.CancellationException If the searching
+     *         thread was interrupted.
+     */
+    Board machineMove(SearchListener listener);
+
+    /**
+     * Executes a machine move in a game with a clock. The machine searches
+     * as deep as the time allotted by the time manager allows, regardless
+     * of its level.
+     *
+     * @param time The time manager of the move.
+     * @param listener The listener to be informed, may be {@code null}.
+     * @return A new board with the move executed.
+     * @throws IllegalMoveException If the game is already over, or it is not
+     *         the machine's turn.
+     * @throws java.util.concurrent.CancellationException If the searching
+     *         thread was interrupted.
+     */
+    Board machineMove(TimeManager time, SearchListener listener);
+
     /**
      * Sets the skill level of the machine.
      *
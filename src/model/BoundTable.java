@@ -0,0 +1,192 @@
+package model;
+
+/**
+ * Remembers the bounds of the values found by {@link AlphaBetaSearch}, so
+ * searches with other windows of the same node, as by aspiration windows
+ * and MTD(f), need not start from scratch. A node is identified by its
+ * tiles, the player to move, the remaining depth and the exact sum of the
+ * local scores on its path, because the values of the search include that
+ * sum. Bounds are therefore only reused on the same path, where they are
+ * exact, and never change the result of a search.
+ *
+ * <p>The table has a fixed number of slots, and a new entry replaces the
+ * one in its slot.</p>
+ */
+final class BoundTable {
+
+    /**
+     * The tiles of the machine per slot.
+     */
+    private final long[] machine;
+
+    /**
+     * The tiles of the human per slot.
+     */
+    private final long[] human;
+
+    /**
+     * The path sum per slot.
+     */
+    private final double[] sums;
+
+    /**
+     * The remaining depth and player to move per slot, 0 for empty slots.
+     */
+    private final int[] keys;
+
+    /**
+     * The lower bound of the value per slot.
+     */
+    private final double[] lower;
+
+    /**
+     * The upper bound of the value per slot.
+     */
+    private final double[] upper;
+
+    /**
+     * The best move per slot, -1 if unknown.
+     */
+    private final byte[] moves;
+
+    /**
+     * The mask selecting a slot from a hash.
+     */
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param bits The binary logarithm of the number of slots.
+     */
+    BoundTable(int bits) {
+        int size = 1 << bits;
+        machine = new long[size];
+        human = new long[size];
+        sums = new double[size];
+        keys = new int[size];
+        lower = new double[size];
+        upper = new double[size];
+        moves = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Looks up a node.
+     *
+     * @param machineTiles The machine's tiles.
+     * @param humanTiles The human's tiles.
+     * @param machineToMove {@code true} if the machine moves next.
+     * @param depth The remaining depth.
+     * @param sum The sum of the local scores on the path to the node.
+     * @return The slot of the node or -1 if it is not stored.
+     */
+    int find(long machineTiles, long humanTiles, boolean machineToMove,
+             int depth, double sum) {
+        int slot = slot(machineTiles, humanTiles, depth, sum);
+        if (keys[slot] == key(machineToMove, depth)
+                && machine[slot] == machineTiles
+                && human[slot] == humanTiles
+                && Double.compare(sums[slot], sum) == 0) {
+            return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the lower bound of a found node.
+     *
+     * @param slot The slot returned by {@link #find}.
+     * @return The lower bound, maybe negative infinity.
+     */
+    double lower(int slot) {
+        return lower[slot];
+    }
+
+    /**
+     * Gets the upper bound of a found node.
+     *
+     * @param slot The slot returned by {@link #find}.
+     * @return The upper bound, maybe positive infinity.
+     */
+    double upper(int slot) {
+        return upper[slot];
+    }
+
+    /**
+     * Gets the best move of a found node.
+     *
+     * @param slot The slot returned by {@link #find}.
+     * @return The move encoded as {@code row * Board.SIZE + column}, or -1.
+     */
+    int move(int slot) {
+        return moves[slot];
+    }
+
+    /**
+     * Stores the bounds of a node. If the node is stored already, the
+     * bounds are combined.
+     *
+     * @param machineTiles The machine's tiles.
+     * @param humanTiles The human's tiles.
+     * @param machineToMove {@code true} if the machine moves next.
+     * @param depth The remaining depth.
+     * @param sum The sum of the local scores on the path to the node.
+     * @param lowerBound The lower bound of the value.
+     * @param upperBound The upper bound of the value.
+     * @param move The best move found, -1 if none.
+     */
+    void store(long machineTiles, long humanTiles, boolean machineToMove,
+               int depth, double sum, double lowerBound, double upperBound,
+               int move) {
+        int slot = slot(machineTiles, humanTiles, depth, sum);
+        int key = key(machineToMove, depth);
+        if (keys[slot] == key && machine[slot] == machineTiles
+                && human[slot] == humanTiles
+                && Double.compare(sums[slot], sum) == 0) {
+            lower[slot] = Math.max(lower[slot], lowerBound);
+            upper[slot] = Math.min(upper[slot], upperBound);
+        } else {
+            keys[slot] = key;
+            machine[slot] = machineTiles;
+            human[slot] = humanTiles;
+            sums[slot] = sum;
+            lower[slot] = lowerBound;
+            upper[slot] = upperBound;
+        }
+        moves[slot] = (byte) move;
+    }
+
+    /**
+     * Combines the remaining depth and the player to move into a key that
+     * is never 0.
+     *
+     * @param machineToMove {@code true} if the machine moves next.
+     * @param depth The remaining depth.
+     * @return The key.
+     */
+    private static int key(boolean machineToMove, int depth) {
+        return (depth + 1) << 1 | (machineToMove ? 1 : 0);
+    }
+
+    /**
+     * Calculates the slot of a node.
+     *
+     * @param machineTiles The machine's tiles.
+     * @param humanTiles The human's tiles.
+     * @param depth The remaining depth.
+     * @param sum The sum of the local scores on the path to the node.
+     * @return The slot.
+     */
+    private int slot(long machineTiles, long humanTiles, int depth,
+                     double sum) {
+        long hash = machineTiles * 0x9E3779B97F4A7C15L
+                ^ Long.rotateLeft(humanTiles * 0xC2B2AE3D27D4EB4FL, 31)
+                ^ Double.doubleToLongBits(sum) * 0x165667B19E3779F9L
+                ^ depth;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 32;
+        return (int) hash & mask;
+    }
+}
@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * The strategies the machine can search its moves with.
+ */
+public enum Engine {
+
+    /**
+     * Builds the game tree up to the depth of the level and scores it with
+     * the minimax algorithm and the hand-tuned local score.
+     */
+    MINIMAX,
+
+    /**
+     * Runs random games from the current position and grows a tree towards
+     * the moves that win most often (Monte Carlo tree search).
+     */
+    MONTE_CARLO
+}
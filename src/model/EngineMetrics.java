@@ -0,0 +1,141 @@
+package model;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+/**
+ * The metrics of the engine in the default registry. Searches count their
+ * nodes and cache lookups locally and add them once when they are finished,
+ * so recording adds no contention to the search itself.
+ */
+final class EngineMetrics {
+
+    /**
+     * The highest level with a cached search counter. Counters of levels
+     * 1 to {@code MAX_CACHED_LEVEL} are created in advance, others on
+     * demand.
+     */
+    private static final int MAX_CACHED_LEVEL = 5;
+
+    /**
+     * Human moves played.
+     */
+    private static final Counter HUMAN_MOVES = moves("human");
+
+    /**
+     * Machine moves played.
+     */
+    private static final Counter MACHINE_MOVES = moves("computer");
+
+    /**
+     * Search counters indexed by level.
+     */
+    private static final Counter[] SEARCHES
+            = new Counter[MAX_CACHED_LEVEL + 1];
+
+    /**
+     * Durations of machine searches and analyses.
+     */
+    private static final Histogram SEARCH_DURATION = MetricsRegistry
+            .getDefault().histogram("reversi_search_duration_seconds",
+                    "Duration of machine searches and analyses.");
+
+    /**
+     * Positions created by searches.
+     */
+    private static final Counter NODES = MetricsRegistry.getDefault().counter(
+            "reversi_search_nodes_total", "Positions created by searches.");
+
+    /**
+     * Successful lookups of score caches.
+     */
+    private static final Counter CACHE_HITS = MetricsRegistry.getDefault()
+            .counter("reversi_score_cache_hits_total",
+                    "Local scores found in a score cache.");
+
+    /**
+     * Failed lookups of score caches.
+     */
+    private static final Counter CACHE_MISSES = MetricsRegistry.getDefault()
+            .counter("reversi_score_cache_misses_total",
+                    "Local scores missing in a score cache.");
+
+    /**
+     * Global scores found in the transposition table.
+     */
+    private static final Counter TABLE_HITS = MetricsRegistry.getDefault()
+            .counter("reversi_transposition_hits_total",
+                    "Global scores found in the transposition table.");
+
+    static {
+        for (int level = 1; level <= MAX_CACHED_LEVEL; level++) {
+            SEARCHES[level] = searches(level);
+        }
+    }
+
+    // Allow no instances of this utility class.
+    private EngineMetrics() {
+    }
+
+    /**
+     * Counts a played move.
+     *
+     * @param player The player who made the move.
+     */
+    static void movePlayed(Player player) {
+        if (player == Player.HUMAN) {
+            HUMAN_MOVES.increment();
+        } else {
+            MACHINE_MOVES.increment();
+        }
+    }
+
+    /**
+     * Records a finished search.
+     *
+     * @param level The level or depth of the search.
+     * @param nodes The number of positions created by the search.
+     * @param tableHits The number of transposition table hits.
+     * @param cache The cache used by the search, may be {@code null}.
+     * @param startNanos The start time as given by {@link System#nanoTime()}.
+     */
+    static void searchFinished(int level, long nodes, long tableHits,
+                               ScoreCache cache, long startNanos) {
+        SEARCH_DURATION.record(System.nanoTime() - startNanos);
+        if (level >= 1 && level <= MAX_CACHED_LEVEL) {
+            SEARCHES[level].increment();
+        } else {
+            searches(level).increment();
+        }
+        NODES.add(nodes);
+        TABLE_HITS.add(tableHits);
+        if (cache != null) {
+            CACHE_HITS.add(cache.getHits());
+            CACHE_MISSES.add(cache.getMisses());
+        }
+    }
+
+    /**
+     * Gets the move counter of a player.
+     *
+     * @param player The label value of the player.
+     * @return The counter.
+     */
+    private static Counter moves(String player) {
+        return MetricsRegistry.getDefault().counter("reversi_moves_total",
+                "Moves played.", "player", player);
+    }
+
+    /**
+     * Gets the search counter of a level.
+     *
+     * @param level The level.
+     * @return The counter.
+     */
+    private static Counter searches(int level) {
+        return MetricsRegistry.getDefault().counter("reversi_searches_total",
+                "Machine searches and analyses by level.", "level",
+                String.valueOf(level));
+    }
+}
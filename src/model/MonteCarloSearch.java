@@ -0,0 +1,591 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Searches a move with Monte Carlo tree search (UCT). Every iteration walks
+ * down the tree along the most promising moves, adds the moves of the
+ * reached position to the tree on its second visit, plays one random game
+ * on a {@link BitBoard} and adds the result to all nodes of the path. The
+ * move visited most often is played. Positions in which one player has
+ * more than half of the tiles stable are not played out or expanded, their
+ * result is known (see {@link Stability}).
+ *
+ * <p>Several threads grow one shared tree. Nodes count a visit as soon as a
+ * thread walks through them and the result only when its game is over, so
+ * a running game counts as a loss for the moment (virtual loss), and other
+ * threads prefer other moves meanwhile. Optionally, the weights of the
+ * slots used by the local score act as prior knowledge: their bias fades
+ * with the number of visits of a move.</p>
+ *
+ * <p>A search may start from the subtree of an earlier search, e.g., the
+ * one of the position reached after the machine's move and the human's
+ * reply. Its games count towards the budget of the new search, so the new
+ * search plays fewer games for the same statistics.</p>
+ */
+final class MonteCarloSearch {
+
+    /**
+     * The weight of the exploration term of UCT.
+     */
+    private static final double EXPLORATION = 1.0;
+
+    /**
+     * The weight of the prior of a move on its first visits.
+     */
+    private static final double PRIOR_WEIGHT = 0.5;
+
+    /**
+     * The longest path through the tree: every slot once plus passes.
+     */
+    private static final int MAX_PATH = 2 * Board.SIZE * Board.SIZE + 2;
+
+    /**
+     * Iterations of the calling thread between two checks for progress
+     * reports.
+     */
+    private static final int REPORT_INTERVAL = 1024;
+
+    /**
+     * The least time in milliseconds between two progress reports.
+     */
+    private static final long REPORT_MILLIS = 100;
+
+    /**
+     * The highest weight of a slot, i.e., the weight of a corner.
+     */
+    private static final double MAX_WEIGHT = 9999.0;
+
+    /**
+     * The threads helping the calling thread. Searches of several games
+     * share them.
+     */
+    private static final ExecutorService HELPERS
+            = Executors.newFixedThreadPool(Math.max(1,
+                    Runtime.getRuntime().availableProcessors() - 1),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "monte-carlo");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    /**
+     * Updates the visits of nodes from several threads.
+     */
+    private static final AtomicIntegerFieldUpdater<Node> VISITS
+            = AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+
+    /**
+     * Updates the results of nodes from several threads.
+     */
+    private static final AtomicLongFieldUpdater<Node> POINTS
+            = AtomicLongFieldUpdater.newUpdater(Node.class, "points");
+
+    /**
+     * The current position.
+     */
+    private final Node root;
+
+    /**
+     * The number of threads growing the tree, including the caller.
+     */
+    private final int threads;
+
+    /**
+     * {@code true} if the slot weights bias the first visits.
+     */
+    private final boolean priors;
+
+    /**
+     * The games through the root played by earlier searches.
+     */
+    private final int reusedPlayouts;
+
+    /**
+     * Is set when the budget is spent or the search is cancelled.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Creates a search of a position.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param threads The number of threads, at least 1.
+     * @param priors {@code true} to use the slot weights as priors.
+     */
+    MonteCarloSearch(long own, long opponent, int threads, boolean priors) {
+        this(own, opponent, null, threads, priors);
+    }
+
+    /**
+     * Creates a search of a position that continues an earlier search.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param tree The node of the position in the tree of an earlier
+     *        search, or of the position before the opponent had to pass.
+     *        If it is {@code null} or belongs to another position, the
+     *        search starts with an empty tree.
+     * @param threads The number of threads, at least 1.
+     * @param priors {@code true} to use the slot weights as priors.
+     */
+    MonteCarloSearch(long own, long opponent, Node tree, int threads,
+                     boolean priors) {
+        Node start = tree;
+        if (start != null && (start.own != own
+                || start.opponent != opponent)) {
+            // The player to move may have reached it by a pass.
+            start = child(start, -1);
+        }
+        if (start == null || start.own != own
+                || start.opponent != opponent) {
+            start = new Node(own, opponent, -1, 0);
+        }
+        this.root = start;
+        this.reusedPlayouts = start.visits;
+        this.threads = Math.max(1, threads);
+        this.priors = priors;
+    }
+
+    /**
+     * Searches until a number of games is played or the time is up.
+     *
+     * @param maxPlayouts The number of random games to be played.
+     * @param deadline The value of {@link System#nanoTime()} at which the
+     *        search stops, {@code Long.MAX_VALUE} for no limit.
+     * @param listener The listener to be informed about the progress, may
+     *        be {@code null}. Scores are the expected results of the best
+     *        move in percent.
+     * @return The best move encoded as {@code row * Board.SIZE + column},
+     *         or -1 if the player to move must pass.
+     * @throws CancellationException If the calling thread was interrupted.
+     */
+    int search(long maxPlayouts, long deadline, SearchListener listener) {
+        long start = System.nanoTime();
+        expand(root);
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            helpers.add(HELPERS.submit(() -> grow(maxPlayouts, deadline)));
+        }
+        boolean cancelled = false;
+        try {
+            cancelled = growAndReport(maxPlayouts, deadline, listener,
+                    start);
+        } finally {
+            stopped = true;
+            for (Future<?> helper: helpers) {
+                cancelled |= await(helper);
+            }
+        }
+        if (cancelled) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The search was interrupted");
+        }
+        Node best = mostVisited(root);
+        if (listener != null && best != null) {
+            listener.onProgress(progress(start, true));
+        }
+        return best == null ? -1 : best.move;
+    }
+
+    /**
+     * Gets the number of random games played so far by this search,
+     * including running ones.
+     *
+     * @return The number of games.
+     */
+    long getPlayouts() {
+        return root.visits - reusedPlayouts;
+    }
+
+    /**
+     * Gets the number of games through the root played by earlier
+     * searches.
+     *
+     * @return The number of reused games.
+     */
+    long getReusedPlayouts() {
+        return reusedPlayouts;
+    }
+
+    /**
+     * Gets the node of the position after a move of the root, so a later
+     * search can continue from it.
+     *
+     * @param move The slot of the move, -1 for a pass.
+     * @return The node or {@code null} if the root has no such child.
+     */
+    Node subtree(int move) {
+        return child(root, move);
+    }
+
+    /**
+     * Finds the child of a node reached by a move.
+     *
+     * @param node The node, may be {@code null}.
+     * @param move The slot of the move, -1 for a pass.
+     * @return The child or {@code null} if it is not in the tree.
+     */
+    static Node child(Node node, int move) {
+        Node[] children = node == null ? null : node.children;
+        if (children != null) {
+            for (Node child: children) {
+                if (child.move == move) {
+                    return child;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Limits the number of nodes below a node. The tree is cut at the
+     * deepest level up to which all nodes fit into the limit; the nodes of
+     * that level keep their statistics, but lose their children. The tree
+     * must not be searched meanwhile.
+     *
+     * @param node The node.
+     * @param maxNodes The maximum number of nodes below the node.
+     * @return The number of nodes kept below the node.
+     */
+    static int prune(Node node, int maxNodes) {
+        List<Node> level = new ArrayList<>();
+        level.add(node);
+        int kept = 0;
+        while (!level.isEmpty()) {
+            List<Node> next = new ArrayList<>();
+            for (Node parent: level) {
+                Node[] children = parent.children;
+                if (children != null) {
+                    for (Node child: children) {
+                        next.add(child);
+                    }
+                }
+            }
+            if (kept + next.size() > maxNodes) {
+                for (Node parent: level) {
+                    parent.children = null;
+                }
+                break;
+            }
+            kept += next.size();
+            level = next;
+        }
+        return kept;
+    }
+
+    /**
+     * Grows the tree on the calling thread and reports the progress.
+     *
+     * @param maxPlayouts The number of random games to be played.
+     * @param deadline The end of the search.
+     * @param listener The listener, may be {@code null}.
+     * @param start The start of the search.
+     * @return {@code true} if the calling thread was interrupted.
+     */
+    private boolean growAndReport(long maxPlayouts, long deadline,
+                                  SearchListener listener, long start) {
+        Node[] path = new Node[MAX_PATH];
+        long lastReport = start;
+        int iterations = 0;
+        while (!stopped && !exhausted(maxPlayouts, deadline)) {
+            iterate(path);
+            if (++iterations % REPORT_INTERVAL != 0) {
+                continue;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (listener != null
+                    && now - lastReport >= REPORT_MILLIS * 1_000_000L) {
+                listener.onProgress(progress(start, false));
+                lastReport = now;
+            }
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Grows the tree on a helper thread until the search stops.
+     *
+     * @param maxPlayouts The number of random games to be played.
+     * @param deadline The end of the search.
+     */
+    private void grow(long maxPlayouts, long deadline) {
+        Node[] path = new Node[MAX_PATH];
+        while (!stopped && !exhausted(maxPlayouts, deadline)) {
+            iterate(path);
+        }
+    }
+
+    /**
+     * Checks whether the budget of the search is spent.
+     *
+     * @param maxPlayouts The number of random games to be played.
+     * @param deadline The end of the search.
+     * @return {@code true} if the search must stop.
+     */
+    private boolean exhausted(long maxPlayouts, long deadline) {
+        return root.visits >= maxPlayouts
+                || (deadline != Long.MAX_VALUE
+                && System.nanoTime() - deadline > 0);
+    }
+
+    /**
+     * Waits for a helper to finish.
+     *
+     * @param helper The task of the helper.
+     * @return {@code true} if the calling thread was interrupted meanwhile.
+     */
+    private static boolean await(Future<?> helper) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                helper.get();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A helper failed",
+                        e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Runs one iteration: selection, expansion, a random game and the
+     * update of the visited nodes.
+     *
+     * @param path The array to store the visited nodes in.
+     */
+    private void iterate(Node[] path) {
+        Node node = root;
+        VISITS.incrementAndGet(node);
+        int length = 0;
+        path[length++] = node;
+        while (true) {
+            Node[] children = node.children;
+            if (children == null) {
+                if (node.visits < 2) {
+                    break;
+                }
+                children = expand(node);
+            }
+            if (children.length == 0) {
+                break;
+            }
+            node = select(node, children);
+            VISITS.incrementAndGet(node);
+            path[length++] = node;
+        }
+
+        // Results are stored for the player who moved into a node.
+        int result = Stability.decided(node.own, node.opponent);
+        if (result < 0) {
+            result = BitBoard.playout(node.own, node.opponent);
+        }
+        long points = 2 - result;
+        for (int i = length - 1; i >= 0; i--) {
+            POINTS.addAndGet(path[i], points);
+            points = 2 - points;
+        }
+    }
+
+    /**
+     * Adds the moves of a position to the tree, unless another thread did
+     * so already.
+     *
+     * @param node The node of the position.
+     * @return The children of the node, an empty array if the game is over
+     *         or, below the root, decided by stable tiles.
+     */
+    private Node[] expand(Node node) {
+        synchronized (node) {
+            if (node.children != null) {
+                return node.children;
+            }
+            long moves = BitBoard.moves(node.own, node.opponent);
+            Node[] children;
+            if (node != root
+                    && Stability.decided(node.own, node.opponent) >= 0) {
+                // The stable tiles decide the game already.
+                children = new Node[0];
+            } else if (moves != 0) {
+                children = new Node[Long.bitCount(moves)];
+                for (int i = 0; i < children.length; i++) {
+                    int square = Long.numberOfTrailingZeros(moves);
+                    moves &= moves - 1;
+                    long flipped = BitBoard.flips(node.own, node.opponent,
+                            square);
+                    children[i] = new Node(node.opponent & ~flipped,
+                            node.own | flipped | (1L << square), square,
+                            prior(square));
+                }
+            } else if (BitBoard.moves(node.opponent, node.own) != 0) {
+                children = new Node[] {
+                        new Node(node.opponent, node.own, -1, 0)};
+            } else {
+                children = new Node[0];
+            }
+            node.children = children;
+            return children;
+        }
+    }
+
+    /**
+     * Calculates the prior of a move.
+     *
+     * @param square The slot of the move.
+     * @return The weight of the slot scaled to 0 to 1, or 0 without priors.
+     */
+    private double prior(int square) {
+        if (!priors) {
+            return 0;
+        }
+        return ReversiBoard.squareWeight(square / Board.SIZE,
+                square % Board.SIZE) / MAX_WEIGHT;
+    }
+
+    /**
+     * Chooses the child with the highest upper confidence bound. Moves that
+     * were never visited come first, the ones with the highest prior first.
+     *
+     * @param parent The node to move on from.
+     * @param children Its children.
+     * @return The chosen child.
+     */
+    private static Node select(Node parent, Node[] children) {
+        double logVisits = Math.log(Math.max(1, parent.visits));
+        Node best = children[0];
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (Node child: children) {
+            int visits = child.visits;
+            double value;
+            if (visits == 0) {
+                value = Double.MAX_VALUE / 2 + child.prior;
+            } else {
+                value = child.points / (2.0 * visits)
+                        + EXPLORATION * Math.sqrt(logVisits / visits)
+                        + PRIOR_WEIGHT * child.prior / (visits + 1);
+            }
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the child visited most often.
+     *
+     * @param node The node.
+     * @return The child or {@code null} if the node has no children.
+     */
+    private static Node mostVisited(Node node) {
+        Node[] children = node.children;
+        Node best = null;
+        if (children != null) {
+            for (Node child: children) {
+                if (best == null || child.visits > best.visits) {
+                    best = child;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Creates a snapshot of the search: the most visited line, the expected
+     * result of its first move and the number of games.
+     *
+     * @param start The start of the search.
+     * @param finished {@code true} if the search is over.
+     * @return The snapshot.
+     */
+    private SearchProgress progress(long start, boolean finished) {
+        int[] line = new int[MAX_PATH];
+        int length = 0;
+        Node node = mostVisited(root);
+        double score = 0;
+        if (node != null && node.visits > 0) {
+            score = 100.0 * node.points / (2.0 * node.visits);
+        }
+        while (node != null && node.move >= 0 && node.visits > 0) {
+            line[length++] = node.move;
+            node = mostVisited(node);
+        }
+        int[] variation = new int[length];
+        System.arraycopy(line, 0, variation, 0, length);
+        return new SearchProgress(length, score, variation, root.visits,
+                (System.nanoTime() - start) / 1_000_000L, finished);
+    }
+
+    /**
+     * A position in the tree together with the statistics of the move that
+     * led to it.
+     */
+    static final class Node {
+
+        /**
+         * The tiles of the player to move.
+         */
+        private final long own;
+
+        /**
+         * The tiles of the opponent.
+         */
+        private final long opponent;
+
+        /**
+         * The slot of the move that led here, -1 for a pass.
+         */
+        private final int move;
+
+        /**
+         * The prior of the move from 0 to 1.
+         */
+        private final double prior;
+
+        /**
+         * The positions after each move, {@code null} until expanded.
+         */
+        private volatile Node[] children;
+
+        /**
+         * The number of games through this node, including running ones.
+         */
+        private volatile int visits;
+
+        /**
+         * The half points the player who moved here got in the finished
+         * games through this node.
+         */
+        private volatile long points;
+
+        /**
+         * Creates a node without visits.
+         *
+         * @param own The tiles of the player to move.
+         * @param opponent The tiles of the opponent.
+         * @param move The slot of the move that led here, -1 for a pass.
+         * @param prior The prior of the move.
+         */
+        Node(long own, long opponent, int move, double prior) {
+            this.own = own;
+            this.opponent = opponent;
+            this.move = move;
+            this.prior = prior;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * A source of known good moves, e.g., a database of recorded games, which
+ * the machine consults before searching.
+ */
+@FunctionalInterface
+public interface MoveBook {
+
+    /**
+     * Looks up a move for the player to move.
+     *
+     * @param board The current board.
+     * @return The move encoded as {@code row * Board.SIZE + column}, or -1
+     *         if the book knows no move for this position.
+     */
+    int bookMove(ReversiBoard board);
+}
@@ -0,0 +1,76 @@
+package model;
+
+/**
+ * The result of analysing one legal move: its slot and the global score the
+ * minimax algorithm assigned to it. Scores are always given from the
+ * machine's point of view, i.e., higher values are better for the machine.
+ */
+public final class MoveScore {
+
+    /**
+     * The row index of the move.
+     */
+    private final int row;
+
+    /**
+     * The column index of the move.
+     */
+    private final int column;
+
+    /**
+     * The global score of the move.
+     */
+    private final double score;
+
+    /**
+     * Creates a new move score.
+     *
+     * @param row Row index of the move.
+     * @param column Column index of the move.
+     * @param score Global score of the move.
+     */
+    MoveScore(int row, int column, double score) {
+        this.row = row;
+        this.column = column;
+        this.score = score;
+    }
+
+    /**
+     * Gets the row index of the move.
+     *
+     * @return The row index, starting at 0.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the column index of the move.
+     *
+     * @return The column index, starting at 0.
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the global score of the move from the machine's point of view.
+     *
+     * @return The score of the move.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the move and its score as a string. The origin is (1, 1) as in
+     * the shell.
+     *
+     * @return The string representation of this move score.
+     */
+    @Override
+    public String toString() {
+        return "(" + (row + 1) + ", " + (column + 1) + ") "
+                + Math.round(score);
+    }
+}
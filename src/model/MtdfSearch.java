@@ -0,0 +1,68 @@
+package model;
+
+/**
+ * Finds the value of the root with null-window searches only (MTD(f)).
+ * Each search tells whether the value is below a test value or not and
+ * returns a bound, which becomes the next test value, until the lower and
+ * the upper bound meet. The searches share the bound table of the
+ * alpha-beta search, so each one mostly revisits stored nodes.
+ */
+final class MtdfSearch implements RootSearch {
+
+    /**
+     * The search doing the work.
+     */
+    private final AlphaBetaSearch search;
+
+    /**
+     * The value of the best move of the last search.
+     */
+    private double bestScore;
+
+    /**
+     * Creates a search.
+     *
+     * @param search The alpha-beta search to be called.
+     */
+    MtdfSearch(AlphaBetaSearch search) {
+        this.search = search;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int searchRoot(long machine, long human, int depth,
+                          double guess) {
+        double value = guess;
+        double lower = Double.NEGATIVE_INFINITY;
+        double upper = Double.POSITIVE_INFINITY;
+        int best = -1;
+        while (lower < upper) {
+            // Test whether the value is at least beta.
+            double beta = value == lower ? Math.nextUp(value) : value;
+            int move = search.searchRoot(machine, human, depth,
+                    Math.nextDown(beta), beta);
+            if (move < 0) {
+                return -1;
+            }
+            value = search.getBestScore();
+            if (value < beta) {
+                upper = value;
+            } else {
+                lower = value;
+                best = move;
+            }
+        }
+        bestScore = value;
+        return best;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getBestScore() {
+        return bestScore;
+    }
+}
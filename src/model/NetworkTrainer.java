@@ -0,0 +1,288 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Creates a network file for {@link NeuralEvaluator} by fitting a network
+ * to the hand-tuned local score of positions from random games. Such a
+ * network plays like the hand-tuned score, but it is the starting point for
+ * weights trained on game results elsewhere, and it exercises the whole
+ * path from file to search.
+ *
+ * <p>Options: {@code --positions n} (default 50000), {@code --hidden h}
+ * units (default 32), {@code --epochs e} (default 10) and {@code --output
+ * file} (default {@code network.rvn}). The error of the quantized network
+ * on positions it was not trained with is printed as JSON.</p>
+ */
+public final class NetworkTrainer {
+
+    /**
+     * The learning rate of the stochastic gradient descent.
+     */
+    private static final double LEARNING_RATE = 0.002;
+
+    /**
+     * The largest output weight in the float network, so the quantized
+     * weights keep enough bits.
+     */
+    private static final double MAX_OUTPUT_WEIGHT = 4.0;
+
+    /**
+     * The share of positions held out to measure the error.
+     */
+    private static final double TEST_SHARE = 0.1;
+
+    /**
+     * The number of training positions.
+     */
+    private int positions = 50_000;
+
+    /**
+     * The number of hidden units.
+     */
+    private int hidden = 32;
+
+    /**
+     * The number of passes over the training positions.
+     */
+    private int epochs = 10;
+
+    /**
+     * The network file to be written.
+     */
+    private String output = "network.rvn";
+
+    // Use the command line.
+    private NetworkTrainer() {
+    }
+
+    /**
+     * Trains a network and saves it.
+     *
+     * @param args The options.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        NetworkTrainer trainer = new NetworkTrainer();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--positions":
+                trainer.positions = Integer.parseInt(args[i + 1]);
+                break;
+            case "--hidden":
+                trainer.hidden = Integer.parseInt(args[i + 1]);
+                break;
+            case "--epochs":
+                trainer.epochs = Integer.parseInt(args[i + 1]);
+                break;
+            case "--output":
+                trainer.output = args[i + 1];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+        trainer.run();
+    }
+
+    /**
+     * Collects the positions, trains, quantizes and saves the network.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void run() throws IOException {
+        ReversiBoard.setEvaluator(null);
+        Random random = new Random(1);
+        long[] machine = new long[positions];
+        long[] human = new long[positions];
+        double[] labels = new double[positions];
+        int count = 0;
+        while (count < positions) {
+            ReversiBoard board = new ReversiBoard();
+            while (!board.gameOver() && count < positions) {
+                int[] moves = board.legalMoves();
+                int move = moves[random.nextInt(moves.length)];
+                board = board.play(move / Board.SIZE, move % Board.SIZE);
+                machine[count] = board.bits(Player.COMPUTER);
+                human[count] = board.bits(Player.HUMAN);
+                labels[count] = board.score();
+                count++;
+            }
+        }
+
+        // Scale the labels to about -1 to 1.
+        double labelScale = 0;
+        for (double label: labels) {
+            labelScale += label * label;
+        }
+        labelScale = Math.max(1, Math.sqrt(labelScale / positions));
+
+        int features = NeuralEvaluator.FEATURES;
+        double[] hiddenBias = new double[hidden];
+        double[] weights = new double[features * hidden];
+        double[] outputWeights = new double[hidden];
+        double[] outputBias = new double[1];
+        for (int j = 0; j < hidden; j++) {
+            hiddenBias[j] = 0.5;
+            outputWeights[j] = (random.nextDouble() - 0.5) * 0.2;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (random.nextDouble() - 0.5) * 0.1;
+        }
+        int training = (int) (positions * (1 - TEST_SHARE));
+        int[] order = new int[training];
+        for (int i = 0; i < training; i++) {
+            order[i] = i;
+        }
+        int[] active = new int[features];
+        double[] activation = new double[hidden];
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            shuffle(order, random);
+            for (int index: order) {
+                int size = features(machine[index], human[index], active);
+                double prediction = outputBias[0];
+                for (int j = 0; j < hidden; j++) {
+                    double sum = hiddenBias[j];
+                    for (int k = 0; k < size; k++) {
+                        sum += weights[active[k] * hidden + j];
+                    }
+                    activation[j] = sum;
+                    prediction += outputWeights[j]
+                            * Math.min(1, Math.max(0, sum));
+                }
+                double error = prediction - labels[index] / labelScale;
+                outputBias[0] -= LEARNING_RATE * error;
+                for (int j = 0; j < hidden; j++) {
+                    double sum = activation[j];
+                    double clipped = Math.min(1, Math.max(0, sum));
+                    double gradient = error * outputWeights[j];
+                    outputWeights[j] = Math.max(-MAX_OUTPUT_WEIGHT,
+                            Math.min(MAX_OUTPUT_WEIGHT, outputWeights[j]
+                                    - LEARNING_RATE * error * clipped));
+                    if (sum <= 0 || sum >= 1) {
+                        continue;
+                    }
+                    hiddenBias[j] -= LEARNING_RATE * gradient;
+                    for (int k = 0; k < size; k++) {
+                        weights[active[k] * hidden + j] -= LEARNING_RATE
+                                * gradient;
+                    }
+                }
+            }
+        }
+        NeuralEvaluator network = quantize(hiddenBias, weights,
+                outputWeights, outputBias[0], labelScale);
+        network.save(Paths.get(output));
+
+        // Measure the error on the held-out positions.
+        double squares = 0;
+        double variance = 0;
+        double mean = 0;
+        for (int i = training; i < positions; i++) {
+            mean += labels[i];
+        }
+        mean /= Math.max(1, positions - training);
+        for (int i = training; i < positions; i++) {
+            double error = network.evaluateReference(machine[i], human[i])
+                    - labels[i];
+            squares += error * error;
+            variance += (labels[i] - mean) * (labels[i] - mean);
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "{\"positions\": %d, \"hidden\": %d, \"epochs\": %d, "
+                        + "\"testRmse\": %.1f, \"testR2\": %.3f, "
+                        + "\"output\": \"%s\"}", positions, hidden, epochs,
+                Math.sqrt(squares / Math.max(1, positions - training)),
+                variance == 0 ? 0 : 1 - squares / variance, output));
+    }
+
+    /**
+     * Converts the float network to integer weights.
+     *
+     * @param hiddenBias The biases of the hidden units.
+     * @param weights The weights of the first layer.
+     * @param outputWeights The weights of the output.
+     * @param outputBias The bias of the output.
+     * @param labelScale The factor the labels were divided by.
+     * @return The quantized network.
+     */
+    private NeuralEvaluator quantize(double[] hiddenBias, double[] weights,
+                                     double[] outputWeights,
+                                     double outputBias, double labelScale) {
+        // A hidden activation of 1 becomes the largest integer activation.
+        double hiddenScale = NeuralEvaluator.MAX_ACTIVATION;
+        short[] quantizedBias = new short[hidden];
+        for (int j = 0; j < hidden; j++) {
+            quantizedBias[j] = toShort(hiddenBias[j] * hiddenScale);
+        }
+        short[] quantizedWeights = new short[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            quantizedWeights[i] = toShort(weights[i] * hiddenScale);
+        }
+        double largest = 1e-9;
+        for (double weight: outputWeights) {
+            largest = Math.max(largest, Math.abs(weight));
+        }
+        double outputScale = Byte.MAX_VALUE / largest;
+        byte[] quantizedOutput = new byte[hidden];
+        for (int j = 0; j < hidden; j++) {
+            quantizedOutput[j] = (byte) Math.round(outputWeights[j]
+                    * outputScale);
+        }
+        int bias = (int) Math.round(outputBias * hiddenScale * outputScale);
+        return new NeuralEvaluator(quantizedBias, quantizedWeights,
+                quantizedOutput, bias,
+                (float) (labelScale / (hiddenScale * outputScale)));
+    }
+
+    /**
+     * Rounds a value to a short, saturating at its limits.
+     *
+     * @param value The value.
+     * @return The rounded value.
+     */
+    private static short toShort(double value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE,
+                Math.round(value)));
+    }
+
+    /**
+     * Collects the features present in a position.
+     *
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param active The array receiving the features.
+     * @return The number of features.
+     */
+    private static int features(long machine, long human, int[] active) {
+        int size = 0;
+        for (long tiles = machine; tiles != 0; tiles &= tiles - 1) {
+            active[size++] = NeuralEvaluator.feature(
+                    Long.numberOfTrailingZeros(tiles), Player.COMPUTER);
+        }
+        for (long tiles = human; tiles != 0; tiles &= tiles - 1) {
+            active[size++] = NeuralEvaluator.feature(
+                    Long.numberOfTrailingZeros(tiles), Player.HUMAN);
+        }
+        return size;
+    }
+
+    /**
+     * Shuffles an array.
+     *
+     * @param values The array.
+     * @param random The source of randomness.
+     */
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
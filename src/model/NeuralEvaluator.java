@@ -0,0 +1,433 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A small neural network with quantized weights that replaces the local
+ * score of {@link ReversiBoard}. Its inputs are 128 features, one per slot
+ * for a machine tile and one per slot for a human tile. A hidden layer of
+ * clipped linear units feeds one output, the score from the machine's point
+ * of view.
+ *
+ * <p>The first layer is a sum of the weight rows of the present features,
+ * so boards keep this sum (the accumulator) and update it when tiles are
+ * placed, flipped or removed, instead of recalculating it. All arithmetic
+ * is integer: a hidden unit is its accumulator clipped to 0 to 255, and
+ * the output is the bias plus the hidden units times their weights, scaled
+ * by a float factor.</p>
+ *
+ * <p>Network files start with the magic bytes {@code RVN1}, followed by the
+ * number of hidden units as int, the hidden biases as shorts, the first
+ * layer as shorts (the row of each feature one after another, machine
+ * features first), the output weights as bytes, the output bias as int and
+ * the output scale as float, all big-endian.</p>
+ */
+public final class NeuralEvaluator {
+
+    /**
+     * The magic bytes at the start of a network file.
+     */
+    static final byte[] MAGIC = {'R', 'V', 'N', '1'};
+
+    /**
+     * The number of input features.
+     */
+    static final int FEATURES = 2 * Board.SIZE * Board.SIZE;
+
+    /**
+     * The highest value of a hidden unit.
+     */
+    static final int MAX_ACTIVATION = 255;
+
+    /**
+     * The most hidden units a file may declare.
+     */
+    private static final int MAX_HIDDEN = 1024;
+
+    /**
+     * The number of hidden units.
+     */
+    private final int hidden;
+
+    /**
+     * The biases of the hidden units.
+     */
+    private final short[] hiddenBias;
+
+    /**
+     * The weights of the first layer, {@code hidden} per feature.
+     */
+    private final short[] weights;
+
+    /**
+     * The weights of the output.
+     */
+    private final byte[] outputWeights;
+
+    /**
+     * The bias of the output.
+     */
+    private final int outputBias;
+
+    /**
+     * The factor turning the integer output into a score.
+     */
+    private final float outputScale;
+
+    /**
+     * Creates a network. The arrays are not copied.
+     *
+     * @param hiddenBias The biases of the hidden units.
+     * @param weights The weights of the first layer, feature by feature.
+     * @param outputWeights The weights of the output.
+     * @param outputBias The bias of the output.
+     * @param outputScale The factor of the output.
+     */
+    NeuralEvaluator(short[] hiddenBias, short[] weights, byte[] outputWeights,
+                    int outputBias, float outputScale) {
+        this.hidden = hiddenBias.length;
+        this.hiddenBias = hiddenBias;
+        this.weights = weights;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.outputScale = outputScale;
+    }
+
+    /**
+     * Loads a network file.
+     *
+     * @param file The file.
+     * @return The network.
+     * @throws IOException If the file cannot be read or is no network.
+     */
+    public static NeuralEvaluator load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file)))) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a network file");
+            }
+            int hidden = in.readInt();
+            if (hidden < 1 || hidden > MAX_HIDDEN) {
+                throw new IOException("Invalid number of hidden units "
+                        + hidden);
+            }
+            short[] hiddenBias = new short[hidden];
+            for (int i = 0; i < hidden; i++) {
+                hiddenBias[i] = in.readShort();
+            }
+            short[] weights = new short[FEATURES * hidden];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = in.readShort();
+            }
+            byte[] outputWeights = new byte[hidden];
+            in.readFully(outputWeights);
+            int outputBias = in.readInt();
+            float outputScale = in.readFloat();
+            return new NeuralEvaluator(hiddenBias, weights, outputWeights,
+                    outputBias, outputScale);
+        } catch (EOFException e) {
+            throw new IOException("Truncated network file", e);
+        }
+    }
+
+    /**
+     * Saves this network in a file.
+     *
+     * @param file The file, which is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeInt(hidden);
+            for (short bias: hiddenBias) {
+                out.writeShort(bias);
+            }
+            for (short weight: weights) {
+                out.writeShort(weight);
+            }
+            out.write(outputWeights);
+            out.writeInt(outputBias);
+            out.writeFloat(outputScale);
+        }
+    }
+
+    /**
+     * Gets the feature of a tile.
+     *
+     * @param square The slot encoded as {@code row * Board.SIZE + column}.
+     * @param player The owner of the tile, human or computer.
+     * @return The index of the feature.
+     */
+    static int feature(int square, Player player) {
+        if (player == Player.COMPUTER) {
+            return square;
+        }
+        return Board.SIZE * Board.SIZE + square;
+    }
+
+    /**
+     * Calculates the accumulator of a position from scratch.
+     *
+     * @param machine The machine's tiles as a bit set.
+     * @param human The human's tiles as a bit set.
+     * @return The new accumulator.
+     */
+    int[] accumulate(long machine, long human) {
+        int[] accumulator = new int[hidden];
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] = hiddenBias[i];
+        }
+        for (long tiles = machine; tiles != 0; tiles &= tiles - 1) {
+            add(accumulator, Long.numberOfTrailingZeros(tiles));
+        }
+        int offset = Board.SIZE * Board.SIZE;
+        for (long tiles = human; tiles != 0; tiles &= tiles - 1) {
+            add(accumulator, offset + Long.numberOfTrailingZeros(tiles));
+        }
+        return accumulator;
+    }
+
+    /**
+     * Updates an accumulator for a placed tile.
+     *
+     * @param accumulator The accumulator.
+     * @param square The slot of the tile.
+     * @param player The owner of the tile.
+     */
+    void place(int[] accumulator, int square, Player player) {
+        add(accumulator, feature(square, player));
+    }
+
+    /**
+     * Updates an accumulator for a removed tile.
+     *
+     * @param accumulator The accumulator.
+     * @param square The slot of the tile.
+     * @param player The owner of the tile.
+     */
+    void remove(int[] accumulator, int square, Player player) {
+        int row = feature(square, player) * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] -= weights[row + i];
+        }
+    }
+
+    /**
+     * Updates an accumulator for a tile that changed sides.
+     *
+     * @param accumulator The accumulator.
+     * @param square The slot of the tile.
+     * @param owner The new owner of the tile.
+     */
+    void flip(int[] accumulator, int square, Player owner) {
+        int added = feature(square, owner) * hidden;
+        int removed = feature(square, owner == Player.HUMAN
+                ? Player.COMPUTER : Player.HUMAN) * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] += weights[added + i] - weights[removed + i];
+        }
+    }
+
+    /**
+     * Calculates the score of a position from its accumulator.
+     *
+     * @param accumulator The accumulator of the position.
+     * @return The score from the machine's point of view.
+     */
+    double evaluate(int[] accumulator) {
+        return output(accumulator) * (double) outputScale;
+    }
+
+    /**
+     * Calculates the score of a position without accumulator, feature by
+     * feature and unit by unit. It is slow but plain and serves as the
+     * reference of the incremental path.
+     *
+     * @param machine The machine's tiles as a bit set.
+     * @param human The human's tiles as a bit set.
+     * @return The score from the machine's point of view.
+     */
+    double evaluateReference(long machine, long human) {
+        long sum = outputBias;
+        for (int unit = 0; unit < hidden; unit++) {
+            int value = hiddenBias[unit];
+            for (int square = 0; square < Board.SIZE * Board.SIZE;
+                    square++) {
+                if ((machine >>> square & 1) != 0) {
+                    value += weights[feature(square, Player.COMPUTER)
+                            * hidden + unit];
+                } else if ((human >>> square & 1) != 0) {
+                    value += weights[feature(square, Player.HUMAN)
+                            * hidden + unit];
+                }
+            }
+            int activation = Math.min(MAX_ACTIVATION, Math.max(0, value));
+            sum += activation * outputWeights[unit];
+        }
+        return sum * (double) outputScale;
+    }
+
+    /**
+     * Calculates the integer output of the network.
+     *
+     * @param accumulator The accumulator of the position.
+     * @return The output before scaling.
+     */
+    private long output(int[] accumulator) {
+        // Independent sums let the processor overlap the multiplications.
+        int sum0 = 0;
+        int sum1 = 0;
+        int sum2 = 0;
+        int sum3 = 0;
+        int i = 0;
+        for (; i + 3 < hidden; i += 4) {
+            sum0 += clip(accumulator[i]) * outputWeights[i];
+            sum1 += clip(accumulator[i + 1]) * outputWeights[i + 1];
+            sum2 += clip(accumulator[i + 2]) * outputWeights[i + 2];
+            sum3 += clip(accumulator[i + 3]) * outputWeights[i + 3];
+        }
+        for (; i < hidden; i++) {
+            sum0 += clip(accumulator[i]) * outputWeights[i];
+        }
+        return (long) outputBias + sum0 + sum1 + sum2 + sum3;
+    }
+
+    /**
+     * Clips the accumulator of a hidden unit to its activation.
+     *
+     * @param value The accumulator.
+     * @return The activation from 0 to {@link #MAX_ACTIVATION}.
+     */
+    private static int clip(int value) {
+        return Math.min(MAX_ACTIVATION, Math.max(0, value));
+    }
+
+    /**
+     * Adds the weight row of a feature to an accumulator.
+     *
+     * @param accumulator The accumulator.
+     * @param feature The feature.
+     */
+    private void add(int[] accumulator, int feature) {
+        int row = feature * hidden;
+        for (int i = 0; i < hidden; i++) {
+            accumulator[i] += weights[row + i];
+        }
+    }
+
+    /**
+     * Checks a network file: plays random games while updating the
+     * accumulators incrementally, compares every score with the reference
+     * path and prints the number of positions and the evaluations per
+     * second of the incremental path, the reference and the hand-tuned
+     * local score. The program exits with status 1 if any score differs.
+     *
+     * @param args The network file and optionally the number of games
+     *        (default 200).
+     * @throws IOException If the file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: NeuralEvaluator network.rvn [games]");
+            System.exit(2);
+        }
+        NeuralEvaluator network = load(Paths.get(args[0]));
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        ReversiBoard.setEvaluator(network);
+        Random random = new Random(1);
+        ReversiBoard[] positions = new ReversiBoard[games * 64];
+        int count = 0;
+        int mismatches = 0;
+        for (int game = 0; game < games; game++) {
+            ReversiBoard board = new ReversiBoard();
+            while (!board.gameOver()) {
+                int[] moves = board.legalMoves();
+                int move = moves[random.nextInt(moves.length)];
+                board = board.play(move / Board.SIZE, move % Board.SIZE);
+                positions[count++] = board;
+                double reference = network.evaluateReference(
+                        board.bits(Player.COMPUTER), board.bits(Player.HUMAN));
+                if (board.score() != reference) {
+                    mismatches++;
+                }
+            }
+        }
+        int total = count;
+        double incremental = rate(total, () -> {
+            double sum = 0;
+            for (int i = 0; i < total; i++) {
+                sum += positions[i].score();
+            }
+            return sum;
+        });
+        long[] machine = new long[count];
+        long[] human = new long[count];
+        for (int i = 0; i < count; i++) {
+            machine[i] = positions[i].bits(Player.COMPUTER);
+            human[i] = positions[i].bits(Player.HUMAN);
+        }
+        double reference = rate(total, () -> {
+            double sum = 0;
+            for (int i = 0; i < total; i++) {
+                sum += network.evaluateReference(machine[i], human[i]);
+            }
+            return sum;
+        });
+        ReversiBoard.setEvaluator(null);
+        double handTuned = rate(total, () -> {
+            double sum = 0;
+            for (int i = 0; i < total; i++) {
+                sum += positions[i].score();
+            }
+            return sum;
+        });
+        System.out.println(String.format(Locale.ROOT,
+                "{\"positions\": %d, \"mismatches\": %d, "
+                        + "\"incrementalPerSecond\": %.0f, "
+                        + "\"referencePerSecond\": %.0f, "
+                        + "\"handTunedPerSecond\": %.0f}", count, mismatches,
+                incremental, reference, handTuned));
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Measures how many positions per second a loop evaluates, after
+     * warming it up.
+     *
+     * @param count The number of positions the loop evaluates.
+     * @param loop The loop, returning the sum of the scores.
+     * @return The positions per second.
+     */
+    private static double rate(int count, DoubleSupplier loop) {
+        double sink = 0;
+        for (int i = 0; i < 3; i++) {
+            sink += loop.getAsDouble();
+        }
+        int rounds = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += loop.getAsDouble();
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        if (sink == Double.MIN_VALUE) {
+            System.out.println();
+        }
+        return count * (double) rounds * 1e9 / nanos;
+    }
+}
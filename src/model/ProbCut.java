@@ -0,0 +1,237 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The calibration of selective searches (Multi-ProbCut). For each search
+ * depth and game stage it names a shallow depth and the linear relation
+ * between shallow and deep results, {@code deep = slope * shallow +
+ * intercept} with a standard deviation of the error. A search may skip the
+ * deep search of a node if the shallow result predicts a cutoff with enough
+ * confidence. The threshold, in standard deviations, is the knob between
+ * speed and strength: the lower it is, the more nodes are pruned.
+ *
+ * <p>Calibration files are text files with one line per depth and stage:
+ * depth, stage, shallow depth, slope, intercept and standard deviation,
+ * separated by spaces. Lines starting with {@code #} are comments.</p>
+ */
+public final class ProbCut {
+
+    /**
+     * The number of game stages, by empty slots in steps of 16.
+     */
+    static final int STAGES = 4;
+
+    /**
+     * The deepest search that can be calibrated.
+     */
+    static final int MAX_DEPTH = 16;
+
+    /**
+     * The least search depth ProbCut is tried at.
+     */
+    static final int MIN_DEPTH = 3;
+
+    /**
+     * The smallest slope accepted from a calibration. Flatter relations
+     * predict nothing.
+     */
+    private static final double MIN_SLOPE = 0.1;
+
+    /**
+     * The shallow depth per depth and stage, 0 if not calibrated.
+     */
+    private final int[][] shallow = new int[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * The slope per depth and stage.
+     */
+    private final double[][] slope = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * The intercept per depth and stage.
+     */
+    private final double[][] intercept = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * The standard deviation of the error per depth and stage.
+     */
+    private final double[][] deviation = new double[MAX_DEPTH + 1][STAGES];
+
+    /**
+     * The confidence required for a cut in standard deviations.
+     */
+    private double threshold = 1.5;
+
+    /**
+     * Creates an empty calibration, which never cuts.
+     */
+    ProbCut() {
+    }
+
+    /**
+     * Loads a calibration file.
+     *
+     * @param file The file.
+     * @return The calibration.
+     * @throws IOException If the file cannot be read or is invalid.
+     */
+    public static ProbCut load(Path file) throws IOException {
+        ProbCut probCut = new ProbCut();
+        try (BufferedReader in = Files.newBufferedReader(file,
+                StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                try {
+                    probCut.set(Integer.parseInt(fields[0]),
+                            Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]),
+                            Double.parseDouble(fields[3]),
+                            Double.parseDouble(fields[4]),
+                            Double.parseDouble(fields[5]));
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid calibration in line "
+                            + lineNumber, e);
+                }
+            }
+        }
+        return probCut;
+    }
+
+    /**
+     * Saves this calibration.
+     *
+     * @param file The file, which is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8)))) {
+            out.println("# depth stage shallow slope intercept deviation");
+            for (int depth = 0; depth <= MAX_DEPTH; depth++) {
+                for (int stage = 0; stage < STAGES; stage++) {
+                    if (shallow[depth][stage] > 0) {
+                        out.println(String.format(Locale.ROOT,
+                                "%d %d %d %.6f %.3f %.3f", depth, stage,
+                                shallow[depth][stage], slope[depth][stage],
+                                intercept[depth][stage],
+                                deviation[depth][stage]));
+                    }
+                }
+            }
+            if (out.checkError()) {
+                throw new IOException("Cannot write " + file);
+            }
+        }
+    }
+
+    /**
+     * Sets the calibration of a depth and stage.
+     *
+     * @param depth The depth of the deep search.
+     * @param stage The game stage.
+     * @param shallowDepth The depth of the shallow search.
+     * @param newSlope The slope of the linear relation.
+     * @param newIntercept The intercept of the linear relation.
+     * @param newDeviation The standard deviation of the error.
+     * @throws IllegalArgumentException If a value is out of range.
+     */
+    void set(int depth, int stage, int shallowDepth, double newSlope,
+             double newIntercept, double newDeviation) {
+        if (depth < MIN_DEPTH || depth > MAX_DEPTH || stage < 0
+                || stage >= STAGES || shallowDepth < 1
+                || shallowDepth >= depth || !(newDeviation >= 0)) {
+            throw new IllegalArgumentException("Invalid calibration");
+        }
+        shallow[depth][stage] = shallowDepth;
+        slope[depth][stage] = newSlope;
+        intercept[depth][stage] = newIntercept;
+        deviation[depth][stage] = newDeviation;
+    }
+
+    /**
+     * Sets the confidence required for a cut.
+     *
+     * @param newThreshold The threshold in standard deviations. Higher
+     *        values prune less and play stronger.
+     */
+    public void setThreshold(double newThreshold) {
+        threshold = newThreshold;
+    }
+
+    /**
+     * Gets the confidence required for a cut.
+     *
+     * @return The threshold in standard deviations.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Gets the game stage of a position.
+     *
+     * @param empties The number of empty slots.
+     * @return The stage from 0 (end game) to {@code STAGES - 1}.
+     */
+    static int stage(int empties) {
+        return Math.min(STAGES - 1, empties / 16);
+    }
+
+    /**
+     * Gets the depth of the shallow search of a node.
+     *
+     * @param depth The depth of the deep search.
+     * @param stage The game stage.
+     * @return The shallow depth, or 0 if the node cannot be cut.
+     */
+    int shallowDepth(int depth, int stage) {
+        if (depth < MIN_DEPTH || depth > MAX_DEPTH
+                || slope[depth][stage] < MIN_SLOPE) {
+            return 0;
+        }
+        return shallow[depth][stage];
+    }
+
+    /**
+     * Calculates the shallow result that predicts a deep result of at
+     * least a bound with the required confidence.
+     *
+     * @param depth The depth of the deep search.
+     * @param stage The game stage.
+     * @param beta The bound of the deep result.
+     * @return The shallow result needed.
+     */
+    double upperCut(int depth, int stage, double beta) {
+        return (beta - intercept[depth][stage]
+                + threshold * deviation[depth][stage]) / slope[depth][stage];
+    }
+
+    /**
+     * Calculates the shallow result that predicts a deep result of at most
+     * a bound with the required confidence.
+     *
+     * @param depth The depth of the deep search.
+     * @param stage The game stage.
+     * @param alpha The bound of the deep result.
+     * @return The shallow result needed.
+     */
+    double lowerCut(int depth, int stage, double alpha) {
+        return (alpha - intercept[depth][stage]
+                - threshold * deviation[depth][stage]) / slope[depth][stage];
+    }
+}
@@ -0,0 +1,295 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Creates a calibration file for {@link ProbCut} and measures what it
+ * saves. Positions of random games are searched with full windows at every
+ * depth and at the shallow depth belonging to it, and the deep results are
+ * fitted to the shallow ones per game stage. Afterwards held-out positions
+ * are searched at the deepest depth without cuts and with several
+ * thresholds, and nodes, time, the agreement of the best moves and the mean
+ * error of their values are printed as one JSON line per setting.
+ *
+ * <p>Options: {@code --positions n} (default 400), {@code --depth d}, the
+ * deepest calibrated depth (default 7), {@code --tests n} held-out
+ * positions (default 300; with a few dozen, a single position changes
+ * the agreement by several percent) and {@code --output file} (default
+ * {@code probcut.txt}).</p>
+ */
+public final class ProbCutCalibrator {
+
+    /**
+     * The thresholds compared after the calibration.
+     */
+    private static final double[] THRESHOLDS = {2.5, 2.0, 1.5, 1.0};
+
+    /**
+     * The least number of positions a stage needs to be calibrated.
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * The number of calibration positions.
+     */
+    private int positions = 400;
+
+    /**
+     * The deepest calibrated depth, also the depth of the comparison.
+     */
+    private int depth = 7;
+
+    /**
+     * The number of held-out positions of the comparison.
+     */
+    private int tests = 300;
+
+    /**
+     * The calibration file to be written.
+     */
+    private String output = "probcut.txt";
+
+    // Use the command line.
+    private ProbCutCalibrator() {
+    }
+
+    /**
+     * Calibrates, saves the calibration and compares the thresholds.
+     *
+     * @param args The options.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        ProbCutCalibrator calibrator = new ProbCutCalibrator();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--positions":
+                calibrator.positions = Integer.parseInt(args[i + 1]);
+                break;
+            case "--depth":
+                calibrator.depth = Math.min(ProbCut.MAX_DEPTH,
+                        Integer.parseInt(args[i + 1]));
+                break;
+            case "--tests":
+                calibrator.tests = Integer.parseInt(args[i + 1]);
+                break;
+            case "--output":
+                calibrator.output = args[i + 1];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+        calibrator.run();
+    }
+
+    /**
+     * Gets the depth of the shallow search for a deep search. It is about
+     * half the depth and differs from it by an even number of plies, so
+     * both searches end with the same player having moved last.
+     *
+     * @param deep The depth of the deep search.
+     * @return The shallow depth.
+     */
+    static int shallowDepth(int deep) {
+        int shallow = Math.max(1, deep / 2);
+        if ((deep - shallow) % 2 != 0) {
+            shallow = shallow > 1 ? shallow - 1 : shallow + 1;
+        }
+        return shallow;
+    }
+
+    /**
+     * Runs the calibration and the comparison.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    private void run() throws IOException {
+        Random random = new Random(1);
+        List<ReversiBoard> samples = collect(positions, random);
+        ProbCut probCut = calibrate(samples);
+        probCut.save(Paths.get(output));
+
+        // Only positions in which the machine moves can be compared.
+        List<ReversiBoard> held = new ArrayList<>();
+        for (ReversiBoard board: collect(tests * 3, random)) {
+            if (board.next() == Player.COMPUTER && held.size() < tests) {
+                held.add(board);
+            }
+        }
+        int[] fullMoves = new int[held.size()];
+        double[] fullScores = new double[held.size()];
+        compare(held, null, fullMoves, fullScores);
+        for (double threshold: THRESHOLDS) {
+            probCut.setThreshold(threshold);
+            compare(held, probCut, fullMoves, fullScores);
+        }
+    }
+
+    /**
+     * Collects positions of random games which are not over.
+     *
+     * @param count The number of positions.
+     * @param random The source of randomness.
+     * @return The positions.
+     */
+    private static List<ReversiBoard> collect(int count, Random random) {
+        List<ReversiBoard> boards = new ArrayList<>();
+        while (boards.size() < count) {
+            ReversiBoard board = new ReversiBoard();
+            int length = 4 + random.nextInt(52);
+            for (int ply = 0; ply < length && !board.gameOver(); ply++) {
+                int[] moves = board.legalMoves();
+                int move = moves[random.nextInt(moves.length)];
+                board = board.play(move / Board.SIZE, move % Board.SIZE);
+            }
+            if (!board.gameOver()) {
+                boards.add(board);
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * Fits the deep results to the shallow ones for every depth and stage.
+     *
+     * @param samples The positions.
+     * @return The calibration.
+     */
+    private ProbCut calibrate(List<ReversiBoard> samples) {
+        int count = samples.size();
+        double[][] values = new double[depth + 1][count];
+        int[] stages = new int[count];
+        for (int i = 0; i < count; i++) {
+            ReversiBoard board = samples.get(i);
+            long machine = board.bits(Player.COMPUTER);
+            long human = board.bits(Player.HUMAN);
+            stages[i] = ProbCut.stage(Board.SIZE * Board.SIZE
+                    - Long.bitCount(machine | human));
+            boolean machineToMove = board.next() == Player.COMPUTER;
+            AlphaBetaSearch search = new AlphaBetaSearch(
+                    new SearchContext(depth, null), null, false);
+            double local = search.score(machine, human);
+            for (int d = 1; d <= depth; d++) {
+                values[d][i] = search.search(0, machine, human,
+                        machineToMove, local, local, d,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            }
+        }
+        ProbCut probCut = new ProbCut();
+        for (int d = ProbCut.MIN_DEPTH; d <= depth; d++) {
+            int shallow = shallowDepth(d);
+            for (int stage = 0; stage < ProbCut.STAGES; stage++) {
+                fit(probCut, d, stage, shallow, values[shallow], values[d],
+                        stages);
+            }
+        }
+        return probCut;
+    }
+
+    /**
+     * Fits the deep results of one depth and stage to the shallow ones by
+     * least squares and stores the relation.
+     *
+     * @param probCut The calibration receiving the relation.
+     * @param deep The depth of the deep search.
+     * @param stage The game stage.
+     * @param shallow The depth of the shallow search.
+     * @param x The shallow results of all positions.
+     * @param y The deep results of all positions.
+     * @param stages The stage of each position.
+     */
+    private static void fit(ProbCut probCut, int deep, int stage,
+                            int shallow, double[] x, double[] y,
+                            int[] stages) {
+        int n = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (stages[i] == stage) {
+                n++;
+                sumX += x[i];
+                sumY += y[i];
+            }
+        }
+        if (n < MIN_SAMPLES) {
+            return;
+        }
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (stages[i] == stage) {
+                covariance += (x[i] - meanX) * (y[i] - meanY);
+                variance += (x[i] - meanX) * (x[i] - meanX);
+            }
+        }
+        if (variance == 0) {
+            return;
+        }
+        double slope = covariance / variance;
+        double intercept = meanY - slope * meanX;
+        double squares = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (stages[i] == stage) {
+                double error = y[i] - (slope * x[i] + intercept);
+                squares += error * error;
+            }
+        }
+        probCut.set(deep, stage, shallow, slope, intercept,
+                Math.sqrt(squares / Math.max(1, n - 2)));
+    }
+
+    /**
+     * Searches the held-out positions and prints the effort and the
+     * agreement with the full search.
+     *
+     * @param held The positions, the machine to move in each.
+     * @param probCut The calibration, {@code null} for the full search.
+     * @param fullMoves The best moves of the full search, filled in by it.
+     * @param fullScores The values of the full search, filled in by it.
+     */
+    private void compare(List<ReversiBoard> held, ProbCut probCut,
+                         int[] fullMoves, double[] fullScores) {
+        long nodes = 0;
+        long nanos = 0;
+        int agreements = 0;
+        double errors = 0;
+        for (int i = 0; i < held.size(); i++) {
+            ReversiBoard board = held.get(i);
+            SearchContext context = new SearchContext(depth, null);
+            AlphaBetaSearch search = new AlphaBetaSearch(context, probCut,
+                    false);
+            long start = System.nanoTime();
+            int move = search.searchRoot(board.bits(Player.COMPUTER),
+                    board.bits(Player.HUMAN), depth, 0);
+            nanos += System.nanoTime() - start;
+            nodes += context.getNodes();
+            if (probCut == null) {
+                fullMoves[i] = move;
+                fullScores[i] = search.getBestScore();
+            }
+            if (move == fullMoves[i]) {
+                agreements++;
+            }
+            errors += Math.abs(search.getBestScore() - fullScores[i]);
+        }
+        int n = Math.max(1, held.size());
+        System.out.println(String.format(Locale.ROOT,
+                "{\"depth\": %d, \"threshold\": %s, \"positions\": %d, "
+                        + "\"nodes\": %d, \"millis\": %d, "
+                        + "\"sameMove\": %.3f, \"meanError\": %.1f}", depth,
+                probCut == null ? "null"
+                        : String.format(Locale.ROOT, "%.1f",
+                                probCut.getThreshold()), held.size(),
+                nodes, nanos / 1_000_000L, (double) agreements / n,
+                errors / n));
+    }
+}
@@ -1,5 +1,11 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
 /**
  * This class implements the interface Board and represents a Reversi board
  * with all needed functionalities to play a game and to communicate with the
@@ -7,17 +13,120 @@ package model;
  */
 public class ReversiBoard implements Board {
 
+    /**
+     * The caches used by {@link #analyze(int, int, long)} and timed machine
+     * moves hold {@code 2^ANALYSIS_CACHE_BITS} local scores.
+     */
+    private static final int ANALYSIS_CACHE_BITS = 18;
+
+    /**
+     * The cache of {@link #analyze(int, int, long)} per thread. Local scores
+     * depend on the position only, so the cache stays valid between
+     * analyses, and batch analyses do not allocate a new one per position.
+     */
+    private static final ThreadLocal<ScoreCache> ANALYSIS_CACHE
+            = ThreadLocal.withInitial(
+                    () -> new ScoreCache(ANALYSIS_CACHE_BITS));
+
+    /**
+     * A two-dimensional matrix containing score values for each field of a
+     * Reversi board of the standard size. It is never changed, so all
+     * boards share it.
+     */
+    private static final int[][] SCORE_BOARD = initScoreBoard();
+
+    /**
+     * The score values per board size, created when a board of the size is
+     * first created.
+     */
+    private static final int[][][] SCORE_BOARDS = new int[MAX_SIZE + 1][][];
+
+    /**
+     * The random games a Monte Carlo search plays per level if it has no
+     * time limit.
+     */
+    private static final int PLAYOUTS_PER_LEVEL = 10_000;
+
+    /**
+     * The default of the most nodes of a Monte Carlo tree kept for the next
+     * machine move.
+     */
+    private static final int DEFAULT_REUSE_NODES = 1_000_000;
+
+    /**
+     * The number of threads of Monte Carlo searches.
+     */
+    private static final int MONTE_CARLO_THREADS
+            = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The book consulted before every machine search, may be {@code null}.
+     */
+    private static volatile MoveBook book;
+
+    /**
+     * The network replacing the hand-tuned local score, may be
+     * {@code null}.
+     */
+    private static volatile NeuralEvaluator evaluator;
+
+    /**
+     * The calibration of selective machine searches, may be {@code null}.
+     */
+    private static volatile ProbCut probCut;
+
+    /**
+     * The algorithm of machine searches on bit boards, {@code null} to
+     * build the tree.
+     */
+    private static volatile SearchAlgorithm algorithm;
+
+    /**
+     * The most nodes of a Monte Carlo tree kept for the next machine move,
+     * 0 to keep none. Configured by the system property
+     * {@code reversi.reuse.nodes}.
+     */
+    private static volatile int reuseNodes = Integer.getInteger(
+            "reversi.reuse.nodes", DEFAULT_REUSE_NODES);
+
     /**
      * A two-dimensional matrix containing all PlayerTile objects and can be
      * seen as the board surface.
      */
     private PlayerTile[][] field;
 
+    /**
+     * The number of rows and columns of this board.
+     */
+    private final int size;
+
+    /**
+     * The score values of the slots of this board.
+     */
+    private final int[][] scoreBoard;
+
     /**
      * The game's difficulty. Initial value is 3.
      */
     private int level;
 
+    /**
+     * The strategy of the machine's searches.
+     */
+    private Engine engine = Engine.MINIMAX;
+
+    /**
+     * The network {@link #accumulator} belongs to, {@code null} if there is
+     * none.
+     */
+    private NeuralEvaluator network;
+
+    /**
+     * The first layer of {@link #network} for this board. Moves update it
+     * instead of calculating it again.
+     */
+    private int[] accumulator;
+
     /**
      * The player who makes the first move in the game.
      */
@@ -35,23 +144,32 @@ public class ReversiBoard implements Board {
     private Player nextTurn;
 
     /**
-     * A two-dimensional matrix containing score values for each field of a
-     * Reversi board.
+     * The node of this position in the tree of the last Monte Carlo search
+     * of the game, or {@code null}. Boards returned by Monte Carlo moves
+     * have one, and moves played on them take over the node of the move,
+     * so the next search continues the tree. Copies do not have one.
      */
-    private final int[][] scoreBoard;
+    private MonteCarloSearch.Node monteCarloTree;
 
     /**
      * Creates a new game with a new Reversi board. This constructor lets the
      * human make the initial move.
      */
     public ReversiBoard() {
-        field = new PlayerTile[SIZE][SIZE];
-        firstPlayer = Player.HUMAN;
-        nextTurn = firstPlayer;
-        initializeBoard();
-        gameState = GameState.RUNNING;
+        this(SIZE);
+    }
+
+    /**
+     * Creates a new game on a board of a given size. The human makes the
+     * initial move.
+     *
+     * @param size The number of rows and columns, even and between
+     *        {@link #MIN_SIZE} and {@link #MAX_SIZE}.
+     * @throws IllegalArgumentException If the size is not supported.
+     */
+    public ReversiBoard(int size) {
+        this(size, scoreBoard(checkSize(size)), Player.HUMAN);
         level = 3;
-        scoreBoard = initScoreBoard();
     }
 
     /**
@@ -62,13 +180,109 @@ public class ReversiBoard implements Board {
      * @param firstPlayer Player to make the initial move, Computer or Human.
      */
     public ReversiBoard(ReversiBoard oldBoard, final Player firstPlayer) {
-        field = new PlayerTile[SIZE][SIZE];
+        this(oldBoard.size, oldBoard.scoreBoard, firstPlayer);
+        setLevel(oldBoard.level);
+        engine = oldBoard.engine;
+    }
+
+    /**
+     * Creates a new game with the settings of a previous one on a board of
+     * another size.
+     *
+     * @param oldBoard Previous used ReversiBoard object.
+     * @param firstPlayer Player to make the initial move, Computer or Human.
+     * @param size The number of rows and columns, even and between
+     *        {@link #MIN_SIZE} and {@link #MAX_SIZE}.
+     * @throws IllegalArgumentException If the size is not supported.
+     */
+    public ReversiBoard(ReversiBoard oldBoard, final Player firstPlayer,
+                        int size) {
+        this(size, scoreBoard(checkSize(size)), firstPlayer);
+        setLevel(oldBoard.level);
+        engine = oldBoard.engine;
+    }
+
+    /**
+     * Creates the initial board of a game.
+     *
+     * @param size The number of rows and columns.
+     * @param scoreBoard The score values of the slots.
+     * @param firstPlayer Player to make the initial move, Computer or Human.
+     */
+    private ReversiBoard(int size, int[][] scoreBoard,
+                         final Player firstPlayer) {
+        this.size = size;
+        this.scoreBoard = scoreBoard;
+        field = new PlayerTile[size][size];
         this.firstPlayer = firstPlayer;
         nextTurn = firstPlayer;
         initializeBoard();
         gameState = GameState.RUNNING;
-        setLevel(oldBoard.level);
-        scoreBoard = initScoreBoard();
+    }
+
+    /**
+     * Checks whether boards of a size are supported.
+     *
+     * @param size The number of rows and columns.
+     * @return The size.
+     * @throws IllegalArgumentException If the size is not even and between
+     *         {@link #MIN_SIZE} and {@link #MAX_SIZE}.
+     */
+    private static int checkSize(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE || size % 2 != 0) {
+            throw new IllegalArgumentException("The size must be even and "
+                    + "between " + MIN_SIZE + " and " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * Creates a board from its string representation as returned by
+     * {@link #toString()}. Whitespace is ignored, so the slots may also be
+     * given as one line of chars. The size of the board follows from the
+     * number of slots.
+     *
+     * @param slots The slots row by row, '.' for empty, 'X' for human and
+     *        'O' for machine tiles.
+     * @param next The player to move, human or computer.
+     * @return The new board with level 3.
+     * @throws IllegalArgumentException If the string does not describe
+     *         the slots of a board of a supported size.
+     */
+    public static ReversiBoard parse(String slots, Player next) {
+        int count = 0;
+        for (char c: slots.toCharArray()) {
+            if (!Character.isWhitespace(c)) {
+                count++;
+            }
+        }
+        int size = (int) Math.round(Math.sqrt(count));
+        if (size * size != count) {
+            throw new IllegalArgumentException("No board of a supported "
+                    + "size has " + count + " slots");
+        }
+        ReversiBoard board = new ReversiBoard(new ReversiBoard(size), next);
+        board.field = new PlayerTile[size][size];
+        int square = 0;
+        for (char c: slots.toCharArray()) {
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int row = square / size;
+            int col = square % size;
+            if (c == 'X') {
+                board.field[row][col] = new PlayerTile(row, col,
+                        Player.HUMAN);
+            } else if (c == 'O') {
+                board.field[row][col] = new PlayerTile(row, col,
+                        Player.COMPUTER);
+            } else if (c != '.') {
+                throw new IllegalArgumentException("Invalid slot '" + c
+                        + "'");
+            }
+            square++;
+        }
+        return board;
     }
 
     /**
@@ -76,7 +290,7 @@ public class ReversiBoard implements Board {
      *
      * @return Matrix with score values.
      */
-    private int[][] initScoreBoard() {
+    private static int[][] initScoreBoard() {
         return new int[][]{
                 {9999, 5, 500, 200, 200, 500, 5, 9999},
                 {5, 1, 50, 150, 150, 50, 1, 5},
@@ -89,13 +303,78 @@ public class ReversiBoard implements Board {
                 };
     }
 
+    /**
+     * Gets the score values of a board size. The standard board has its
+     * hand-tuned values; other sizes are divided into the same regions,
+     * counted from the nearest edges: the edge, the slots next to it, the
+     * ring inside and the centre. Each slot gets the value of the slot of
+     * the standard board in the same regions, so corners stay most
+     * valuable and the slots next to them least.
+     *
+     * @param size The number of rows and columns.
+     * @return The values, shared by all boards of the size.
+     */
+    private static int[][] scoreBoard(int size) {
+        synchronized (SCORE_BOARDS) {
+            if (SCORE_BOARDS[size] == null) {
+                int[][] values = new int[size][size];
+                for (int i = 0; i < size; i++) {
+                    for (int j = 0; j < size; j++) {
+                        values[i][j] = SCORE_BOARD[region(i, size)]
+                                [region(j, size)];
+                    }
+                }
+                SCORE_BOARDS[size] = values;
+            }
+            return SCORE_BOARDS[size];
+        }
+    }
+
+    /**
+     * Maps a row or column of a board to the one of the standard board in
+     * the same region.
+     *
+     * @param index The row or column.
+     * @param size The number of rows and columns.
+     * @return The row or column of the standard board between 0 and
+     *         {@code SIZE / 2 - 1}.
+     */
+    private static int region(int index, int size) {
+        int fromEdge = Math.min(index, size - 1 - index);
+        if (fromEdge == size / 2 - 1) {
+            // The centre.
+            return SIZE / 2 - 1;
+        }
+        return Math.min(fromEdge, SIZE / 2 - 2);
+    }
+
+    /**
+     * The weight of each stable tile of the machine more than the human has
+     * in the local score of the standard board. Stable tiles can never be
+     * lost, so they outweigh all other terms; in self-play at level 3,
+     * weights from 3000 on won about nine of ten games against none.
+     */
+    static final double STABILITY_WEIGHT = 3000;
+
+    /**
+     * Gets the weight of a slot of the standard board as used by the local
+     * score.
+     *
+     * @param row The row of the slot.
+     * @param col The column of the slot.
+     * @return The weight, 9999 for corners.
+     */
+    static int squareWeight(int row, int col) {
+        return SCORE_BOARD[row][col];
+    }
+
     /**
      * Place the first four tiles on the board, 2 human and 2 computer tiles.
      * Depending on who starts, the structure varies.
      */
     private void initializeBoard() {
-        int i = SIZE / 2;
-        int j = SIZE / 2 - 1;
+        int i = size / 2;
+        int j = size / 2 - 1;
         if (firstPlayer == Player.HUMAN) {
             field[i][j] = new PlayerTile(i, j, Player.HUMAN);
             field[j][i] = new PlayerTile(j, i, Player.HUMAN);
@@ -115,21 +394,28 @@ public class ReversiBoard implements Board {
      * assesses the number of possible moves and scoreP a board state to
      * achieve a large number of possible moves in future game rounds.
      *
+     * If a network is set, it calculates the score instead.
+     *
      * @return Local score value of this board.
      */
-    private double score() {
+    double score() {
+        NeuralEvaluator net = activeEvaluator();
+        if (net != null) {
+            prepareAccumulator(net);
+            return net.evaluate(accumulator);
+        }
         int tScoreComputer = 0;
         int tScoreHuman = 0;
-        int mScoreComputer = 0;
-        int mScoreHuman = 0;
+        int mScoreComputer = countMoves(Player.COMPUTER);
+        int mScoreHuman = countMoves(Player.HUMAN);
         int pScoreHuman = 0;
         int pScoreComputer = 0;
         int occupiedFields = getNumberOfHumanTiles()
                 + getNumberOfMachineTiles();
 
         // Iterate over the board to get the values for score calculation.
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (getSlot(i, j) == Player.HUMAN) {
                     tScoreHuman += scoreBoard[i][j];
                     pScoreHuman += countEmptyFieldsAroundTile(i, j);
@@ -137,20 +423,142 @@ public class ReversiBoard implements Board {
                     tScoreComputer += scoreBoard[i][j];
                     pScoreComputer += countEmptyFieldsAroundTile(i, j);
                 }
-                if (validMove(i, j, Player.HUMAN)) {
-                    mScoreHuman++;
-                }
-                if (validMove(i, j, Player.COMPUTER)) {
-                    mScoreComputer++;
-                }
             }
         }
+        double slots = size * size;
         double scoreT = (tScoreComputer * 1.0) - 1.5 * (tScoreHuman * 1.0);
-        double scoreM = (64.0 / occupiedFields) * (3.0 * mScoreComputer
+        double scoreM = (slots / occupiedFields) * (3.0 * mScoreComputer
                         - 4.0 * mScoreHuman);
-        double scoreP = (64.0 / (2.0 * occupiedFields)) * (2.5 * pScoreHuman
+        double scoreP = (slots / (2.0 * occupiedFields)) * (2.5 * pScoreHuman
                         - 3.0 * pScoreComputer);
-        return scoreT + scoreM + scoreP;
+
+        // Stable tiles are only found on the bit board of the standard size.
+        double scoreS = 0;
+        if (size == SIZE) {
+            long human = bits(Player.HUMAN);
+            long machine = bits(Player.COMPUTER);
+            scoreS = STABILITY_WEIGHT
+                    * (Long.bitCount(Stability.stable(machine, human))
+                    - Long.bitCount(Stability.stable(human, machine)));
+        }
+        return scoreT + scoreM + scoreP + scoreS;
+    }
+
+    /**
+     * Makes sure that {@link #accumulator} belongs to a network, so moves
+     * from this board can update it.
+     *
+     * @param net The current network, may be {@code null}.
+     */
+    private void prepareAccumulator(NeuralEvaluator net) {
+        if (network != net) {
+            network = net;
+            accumulator = net == null ? null : net.accumulate(
+                    bits(Player.COMPUTER), bits(Player.HUMAN));
+        }
+    }
+
+    /**
+     * Sets the network that replaces the hand-tuned local score of all
+     * boards. Scores cached by earlier searches are not recalculated, so
+     * it should be set before the first search.
+     *
+     * @param network The network, {@code null} for the hand-tuned score.
+     */
+    public static void setEvaluator(NeuralEvaluator network) {
+        evaluator = network;
+    }
+
+    /**
+     * Checks whether boards are scored with the hand-tuned local score,
+     * which {@link BatchEvaluator} can calculate for many boards at once.
+     *
+     * @return {@code true} if no network is set.
+     */
+    static boolean usesHandTunedScore() {
+        return evaluator == null;
+    }
+
+    /**
+     * Gets the network scoring this board. Networks have the inputs of the
+     * standard board, so boards of other sizes always use the hand-tuned
+     * score.
+     *
+     * @return The network, {@code null} for the hand-tuned score.
+     */
+    private NeuralEvaluator activeEvaluator() {
+        return size == SIZE ? evaluator : null;
+    }
+
+    /**
+     * Gets the network that replaces the hand-tuned local score.
+     *
+     * @return The network, {@code null} for the hand-tuned score.
+     */
+    static NeuralEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Sets the calibration of selective searches. With a calibration, the
+     * machine searches with alpha-beta on bit boards and skips subtrees
+     * that a shallow search predicts to be irrelevant, so deep levels take
+     * a fraction of the time. Analyses and the Monte Carlo engine are not
+     * affected.
+     *
+     * @param calibration The calibration, {@code null} for full searches.
+     */
+    public static void setProbCut(ProbCut calibration) {
+        probCut = calibration;
+    }
+
+    /**
+     * Sets the algorithm the machine searches with on bit boards instead
+     * of building the tree. All algorithms find the same best value, but
+     * visit different numbers of positions. Analyses and the Monte Carlo
+     * engine are not affected.
+     *
+     * @param newAlgorithm The algorithm, {@code null} to build the tree
+     *        unless a ProbCut calibration is set.
+     */
+    public static void setSearchAlgorithm(SearchAlgorithm newAlgorithm) {
+        algorithm = newAlgorithm;
+    }
+
+    /**
+     * Sets the most nodes of a Monte Carlo tree kept from one machine move
+     * to the next. The next search continues with the subtree of the
+     * position actually reached, and its games count towards the games of
+     * the move, so the move takes less time.
+     *
+     * @param nodes The most nodes per game, 0 to start every search with
+     *        an empty tree.
+     */
+    public static void setReuseLimit(int nodes) {
+        reuseNodes = nodes;
+    }
+
+    /**
+     * Calculates the Zobrist hash of this board from its tiles and the
+     * player to move. The hash is the same in every run of the program, so
+     * it can be stored in files.
+     *
+     * @return The hash of this position.
+     */
+    public long hash() {
+        long hash = Zobrist.size(size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (field[i][j] != null) {
+                    hash ^= Zobrist.tile(i * size + j,
+                            field[i][j].getPlayer());
+                }
+            }
+        }
+        if (nextTurn == Player.COMPUTER) {
+            hash ^= Zobrist.computerToMove();
+        }
+        return hash;
     }
 
     /**
@@ -165,8 +573,8 @@ public class ReversiBoard implements Board {
         for (Directions direction: Directions.values()) {
             int rowDir = row + direction.getRow();
             int columnDir = column + direction.getColumn();
-            boolean validRowIndex = (rowDir >= 0 && rowDir < SIZE);
-            boolean validColumnIndex = (columnDir >= 0 && columnDir < SIZE);
+            boolean validRowIndex = (rowDir >= 0 && rowDir < size);
+            boolean validColumnIndex = (columnDir >= 0 && columnDir < size);
             if (validRowIndex && validColumnIndex
                     && getSlot(rowDir, columnDir) == Player.NOBODY) {
                 counter++;
@@ -195,8 +603,8 @@ public class ReversiBoard implements Board {
             boolean validTile = false;
             int rowDir = row + direction.getRow();
             int columnDir = column + direction.getColumn();
-            boolean validRowIndex = (rowDir >= 0 && rowDir < SIZE);
-            boolean validColumnIndex = (columnDir >= 0 && columnDir < SIZE);
+            boolean validRowIndex = (rowDir >= 0 && rowDir < size);
+            boolean validColumnIndex = (columnDir >= 0 && columnDir < size);
             if (!validRowIndex || !validColumnIndex
                     || getSlot(rowDir, columnDir) == Player.NOBODY
                     || getSlot(rowDir, columnDir) == player) {
@@ -215,8 +623,8 @@ public class ReversiBoard implements Board {
                 }
                 rowDir += direction.getRow();
                 columnDir += direction.getColumn();
-                validRowIndex = (rowDir >= 0 && rowDir < SIZE);
-                validColumnIndex = (columnDir >= 0 && columnDir < SIZE);
+                validRowIndex = (rowDir >= 0 && rowDir < size);
+                validColumnIndex = (columnDir >= 0 && columnDir < size);
             }
             if (flip && validTile) {
                 rowDir -= direction.getRow();
@@ -225,6 +633,10 @@ public class ReversiBoard implements Board {
                 // Flip all enemy tiles between the given and found tile.
                 while (getSlot(rowDir, columnDir) != player) {
                     field[rowDir][columnDir].changeSide();
+                    if (network != null) {
+                        network.flip(accumulator, rowDir * size + columnDir,
+                                player);
+                    }
                     rowDir -= direction.getRow();
                     columnDir -= direction.getColumn();
                 }
@@ -254,60 +666,338 @@ public class ReversiBoard implements Board {
      * @return {@code true} if and only if a player has valid moves.
      */
     private boolean hasMoves(Player player) {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (validMove(i, j, player)) {
-                    return true;
-                }
+        Player opponent = player == Player.HUMAN ? Player.COMPUTER
+                : Player.HUMAN;
+        if (size == SIZE) {
+            return BitBoard.moves(bits(player), bits(opponent)) != 0;
+        }
+        long[] moves = new long[WideBitBoard.WORDS];
+        WideBitBoard.moves(wideBits(player), wideBits(opponent), size,
+                moves);
+        return !WideBitBoard.isEmpty(moves);
+    }
+
+    /**
+     * Collects the valid moves of a player with bit sets, which is much
+     * faster than checking every slot.
+     *
+     * @param player Human or computer.
+     * @param moves Receives the moves, each encoded as
+     *        {@code row * size + column}, in ascending order.
+     * @return The number of moves.
+     */
+    private int collectMoves(Player player, int[] moves) {
+        Player opponent = player == Player.HUMAN ? Player.COMPUTER
+                : Player.HUMAN;
+        int count = 0;
+        if (size == SIZE) {
+            for (long rest = BitBoard.moves(bits(player), bits(opponent));
+                    rest != 0; rest &= rest - 1) {
+                moves[count++] = Long.numberOfTrailingZeros(rest);
             }
+            return count;
         }
-        return false;
+        long[] valid = new long[WideBitBoard.WORDS];
+        WideBitBoard.moves(wideBits(player), wideBits(opponent), size,
+                valid);
+        for (int w = 0; w < WideBitBoard.WORDS; w++) {
+            for (long rest = valid[w]; rest != 0; rest &= rest - 1) {
+                int bit = w * Long.SIZE + Long.numberOfTrailingZeros(rest);
+                moves[count++] = bit / WideBitBoard.STRIDE * size
+                        + bit % WideBitBoard.STRIDE;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the valid moves of a player.
+     *
+     * @param player Human or computer.
+     * @return The number of moves.
+     */
+    private int countMoves(Player player) {
+        if (size == SIZE) {
+            Player opponent = player == Player.HUMAN ? Player.COMPUTER
+                    : Player.HUMAN;
+            return Long.bitCount(BitBoard.moves(bits(player),
+                    bits(opponent)));
+        }
+        return collectMoves(player, new int[size * size]);
     }
 
     /**
      * Captures all possible moves of a specific player for a Reversi board
      * of a TreeNode and stores them in a TreeNode array as children. This
      * method is recursively called, until the depth of the tree is as big as
-     * the level.
+     * the maximum depth of the search.
      *
+     * @param node The node of this board.
      * @param depth The actual depth of the tree.
+     * @param context The state of the running search.
      */
-    private void setChildren(TreeNode node, int depth) {
-        TreeNode[] children = new TreeNode[SIZE * SIZE - 4];
-        if (depth < level) {
-            int counter = 0;
-            Player nextTurn = next();
-
-            // Check each field for a valid move and store it.
-            for (int i = 0; i < Board.SIZE; i++) {
-                for (int j = 0; j < Board.SIZE; j++) {
-                    if (validMove(i, j, nextTurn)) {
-                        ReversiBoard newBoard = clone();
-                        newBoard.field[i][j] = new PlayerTile(i, j,
-                                nextTurn);
-                        newBoard.validTiles(i, j, nextTurn, true);
-                        if (nextTurn == Player.HUMAN) {
-                            newBoard.nextTurn = Player.COMPUTER;
-                        } else {
-                            newBoard.nextTurn = Player.HUMAN;
-                        }
-                        TreeNode child = new TreeNode(newBoard, level);
-                        children[counter] = child;
-                        counter++;
-                    }
-                }
+    private void setChildren(TreeNode node, int depth, SearchContext context) {
+        long hash = 0;
+        if (context.usesHashes()) {
+            hash = hash();
+        }
+        int remainingDepth = context.getMaxDepth() - depth;
+        if (remainingDepth > 0 && !context.isStopped()) {
+            // Was this position searched as deep as needed already?
+            double tableScore = context.probe(hash, remainingDepth);
+            if (!Double.isNaN(tableScore)) {
+                node.setTableScore(tableScore);
+                return;
             }
-            if (counter != 0) {
+            TreeNode[] children = expand(context);
+            if (children[0] != null) {
                 ++depth;
-                for (TreeNode child: children) {
-                    if (child != null) {
-                        child.getReversiBoard().setChildren(child, depth);
+                if (remainingDepth == 1) {
+                    // The children are leaves, score them in one batch.
+                    context.scoreLeaves(children);
+                } else {
+                    for (TreeNode child: children) {
+                        if (child != null) {
+                            child.getReversiBoard().setChildren(child,
+                                    depth, context);
+                        }
                     }
                 }
                 node.setChildren(children);
+                node.setLocalScore(context.score(this, hash));
+                node.evaluate();
+                context.store(hash, remainingDepth, node.getGlobalScore());
+                return;
             }
         }
-        node.setLocalScore(score());
+        node.setLocalScore(context.score(this, hash));
+    }
+
+    /**
+     * Creates a TreeNode for each valid move of the player to move without
+     * building any deeper level of the tree.
+     *
+     * @param context The state of the running search.
+     * @return The new nodes, followed by {@code null} entries.
+     */
+    private TreeNode[] expand(SearchContext context) {
+        TreeNode[] children = new TreeNode[size * size - 4];
+        int counter = 0;
+        Player nextTurn = next();
+        int[] moves = new int[size * size];
+        int count = nextTurn == Player.NOBODY ? 0
+                : collectMoves(nextTurn, moves);
+
+        // Store a node for each valid move.
+        for (int k = 0; k < count; k++) {
+            int i = moves[k] / size;
+            int j = moves[k] % size;
+            children[counter] = new TreeNode(executeMove(i, j, nextTurn),
+                    level, moves[k]);
+            context.countNode();
+            counter++;
+        }
+        return children;
+    }
+
+    /**
+     * Searches the best machine move of this board. In contrast to building
+     * the whole tree at once, the subtrees of the root's children are built
+     * and scored one after another, so the progress can be reported to the
+     * listener of the context whenever the best move improves.
+     *
+     * @param context The state of the running search.
+     * @return The board of the best move or {@code null} if there is none.
+     */
+    private ReversiBoard searchRoot(SearchContext context) {
+        ProbCut selective = probCut;
+        SearchAlgorithm window = algorithm;
+        if ((selective != null || window != null) && size == SIZE) {
+            return bitBoardSearchRoot(context,
+                    window == null ? SearchAlgorithm.ALPHA_BETA : window,
+                    selective);
+        }
+        TreeNode root = new TreeNode(this, level);
+        TreeNode[] children = expand(context);
+        root.setLocalScore(score());
+        TreeNode best = null;
+        for (TreeNode child: children) {
+            if (child == null || context.isStopped()) {
+                break;
+            }
+            child.getReversiBoard().setChildren(child, 1, context);
+            child.minimaxAlgorithm();
+            if (best == null
+                    || best.getGlobalScore() < child.getGlobalScore()) {
+                best = child;
+                context.report(best, context.getMaxDepth(), false);
+            }
+        }
+        if (best == null || context.isStopped()) {
+            return null;
+        }
+        root.selectChild(best);
+        context.report(best, context.getMaxDepth(), true);
+        return best.getReversiBoard();
+    }
+
+    /**
+     * Searches the best machine move of this board on bit boards instead
+     * of building the tree. Algorithms that start from a guess deepen step
+     * by step, each depth guessing the value of the previous one.
+     *
+     * @param context The state of the running search.
+     * @param window The search algorithm.
+     * @param selective The calibration of the cuts, may be {@code null}.
+     * @return The board of the best move or {@code null} if there is none.
+     */
+    private ReversiBoard bitBoardSearchRoot(SearchContext context,
+                                            SearchAlgorithm window,
+                                            ProbCut selective) {
+        RootSearch search = window.create(context, selective);
+        long machine = bits(Player.COMPUTER);
+        long human = bits(Player.HUMAN);
+        int maxDepth = context.getMaxDepth();
+        int move = -1;
+        double guess = 0;
+        for (int d = window.usesGuess() ? 1 : maxDepth; d <= maxDepth; d++) {
+            move = search.searchRoot(machine, human, d, guess);
+            if (move < 0) {
+                return null;
+            }
+            guess = search.getBestScore();
+        }
+        context.report(new int[] {move}, search.getBestScore(),
+                context.getMaxDepth(), true);
+        return executeMove(move / SIZE, move % SIZE, Player.COMPUTER);
+    }
+
+    /**
+     * Analyses every legal move of the player to move and returns them
+     * together with their global scores, best moves first. All moves share
+     * one cache of local scores, so positions reached by several moves are
+     * scored only once. If a time limit is given, the moves are analysed with
+     * increasing depth until either the depth is reached or the time is up,
+     * and the scores of the deepest complete analysis are returned. A depth
+     * that would take more than the time left is not started.
+     *
+     * @param depth The depth of the trees to be built, must be at least 1.
+     * @param maxMoves The maximum number of moves to be returned. Values less
+     *        than 1 mean all moves.
+     * @param timeMillis The time limit in milliseconds. Values less than 1
+     *        mean no limit.
+     * @return The legal moves with their scores from the machine's point of
+     *         view, the best move for the player to move first.
+     * @throws IllegalMoveException If the game is already over.
+     * @throws IllegalArgumentException If the depth is less than 1.
+     */
+    public List<MoveScore> analyze(int depth, int maxMoves, long timeMillis) {
+        return analyze(depth, maxMoves, timeMillis, null);
+    }
+
+    /**
+     * Analyses every legal move like {@link #analyze(int, int, long)} and
+     * reports the best line of every complete depth to a listener, together
+     * with the number of positions created so far.
+     *
+     * @param depth The depth of the trees to be built, must be at least 1.
+     * @param maxMoves The maximum number of moves to be returned. Values less
+     *        than 1 mean all moves.
+     * @param timeMillis The time limit in milliseconds. Values less than 1
+     *        mean no limit.
+     * @param listener The listener, may be {@code null}.
+     * @return The legal moves with their scores from the machine's point of
+     *         view, the best move for the player to move first.
+     * @throws IllegalMoveException If the game is already over.
+     * @throws IllegalArgumentException If the depth is less than 1.
+     */
+    public List<MoveScore> analyze(int depth, int maxMoves, long timeMillis,
+                                   SearchListener listener) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        Player player = next();
+        if (gameState == GameState.OVER || player == Player.NOBODY) {
+            throw new IllegalMoveException("The game is already over.");
+        }
+        long deadline = Long.MAX_VALUE;
+        int firstDepth = depth;
+        if (timeMillis > 0) {
+            deadline = System.nanoTime() + timeMillis * 1_000_000L;
+            firstDepth = 1;
+        }
+        long start = System.nanoTime();
+        long nodes = 0;
+        long tableHits = 0;
+        ScoreCache cache = ANALYSIS_CACHE.get();
+        cache.resetStatistics();
+        List<MoveScore> result = new ArrayList<>();
+        for (int d = firstDepth; d <= depth; d++) {
+            SearchContext context = new SearchContext(d, null, cache,
+                    deadline);
+            List<MoveScore> scores = new ArrayList<>();
+            TreeNode best = null;
+            for (TreeNode child: expand(context)) {
+                if (child == null) {
+                    break;
+                }
+                child.getReversiBoard().setChildren(child, 1, context);
+                if (context.isStopped()) {
+                    break;
+                }
+                child.minimaxAlgorithm();
+                int[] move = child.principalVariation();
+                scores.add(new MoveScore(move[0] / size, move[0] % size,
+                        child.getGlobalScore()));
+                if (best == null || (player == Player.COMPUTER
+                        ? child.getGlobalScore() > best.getGlobalScore()
+                        : child.getGlobalScore() < best.getGlobalScore())) {
+                    best = child;
+                }
+            }
+            nodes += context.getNodes();
+            tableHits += context.getTableHits();
+            if (listener != null && best != null && !context.isStopped()) {
+                listener.onProgress(new SearchProgress(d,
+                        best.getGlobalScore(), best.principalVariation(),
+                        size, nodes,
+                        (System.nanoTime() - start) / 1_000_000L, true));
+            }
+
+            // Keep partial results only if nothing is complete.
+            if (!context.isStopped() || result.isEmpty()) {
+                result = scores;
+            }
+            if (context.isStopped()) {
+                break;
+            }
+
+            // A depth that cannot end in time would only be thrown away.
+            if (deadline != Long.MAX_VALUE && System.nanoTime()
+                    + TimeManager.GROWTH * context.getElapsedMillis()
+                    * 1_000_000L - deadline > 0) {
+                break;
+            }
+        }
+        EngineMetrics.searchFinished(depth, nodes, tableHits, cache, start);
+        Comparator<MoveScore> order
+                = Comparator.comparingDouble(MoveScore::getScore);
+        if (player == Player.COMPUTER) {
+            order = order.reversed();
+        }
+        result.sort(order);
+        if (maxMoves > 0 && result.size() > maxMoves) {
+            result = new ArrayList<>(result.subList(0, maxMoves));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return size;
     }
 
     /**
@@ -347,38 +1037,186 @@ public class ReversiBoard implements Board {
     @Override
     public ReversiBoard move(int row, int col) {
         // Indices within board dimensions?
-        if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
             throw new IllegalArgumentException("Row and column indices must be"
-                    + " in the range between 1 and " + Board.SIZE);
+                    + " in the range between 1 and " + size);
         }
         if (gameState == GameState.OVER || next() != Player.HUMAN) {
             throw new IllegalMoveException("It's not your turn!");
         } else {
             if (getSlot(row, col) == Player.NOBODY && next() == Player.HUMAN
                     && validMove(row, col, Player.HUMAN)) {
-                ReversiBoard newBoard = clone();
-                newBoard.field[row][col]
-                        = new PlayerTile(row, col, Player.HUMAN);
-                newBoard.validTiles(row, col, Player.HUMAN, true);
-                newBoard.nextTurn = Player.COMPUTER;
-                return newBoard;
+                EngineMetrics.movePlayed(Player.HUMAN);
+                return followMonteCarloTree(executeMove(row, col,
+                        Player.HUMAN), row, col);
             }
         }
         return null;
     }
 
+    /**
+     * Executes a move of the player to move, who may be the human or the
+     * machine. Like {@link #move(int, int)}, this method does not change the
+     * state of this instance but returns a copy with the move executed.
+     *
+     * @param row The slot's row number where a tile should be placed on.
+     * @param col The slot's column number where a tile should be placed on.
+     * @return A new board with the move executed, or {@code null} if the
+     *         move is not valid.
+     * @throws IllegalMoveException If the game is already over.
+     * @throws IllegalArgumentException If the slot is not on the grid.
+     */
+    public ReversiBoard play(int row, int col) {
+        ReversiBoard newBoard = replay(row, col);
+        if (newBoard != null) {
+            EngineMetrics.movePlayed(next());
+        }
+        return newBoard;
+    }
+
+    /**
+     * Executes a move of the player to move like {@link #play(int, int)},
+     * but does not count it as a played move, e.g., to replay a recorded
+     * game or to look at the positions after each move.
+     *
+     * @param row The slot's row number where a tile should be placed on.
+     * @param col The slot's column number where a tile should be placed on.
+     * @return A new board with the move executed, or {@code null} if the
+     *         move is not valid.
+     * @throws IllegalMoveException If the game is already over.
+     * @throws IllegalArgumentException If the slot is not on the grid.
+     */
+    public ReversiBoard replay(int row, int col) {
+        if (row < 0 || row >= size || col < 0 || col >= size) {
+            throw new IllegalArgumentException("Row and column indices must be"
+                    + " in the range between 1 and " + size);
+        }
+        Player player = next();
+        if (gameState == GameState.OVER || player == Player.NOBODY) {
+            throw new IllegalMoveException("The game is already over.");
+        }
+        if (!validMove(row, col, player)) {
+            return null;
+        }
+        return followMonteCarloTree(executeMove(row, col, player), row, col);
+    }
+
+    /**
+     * Creates a copy of this board with a valid move executed, i.e., the new
+     * tile placed, the enclosed tiles flipped and the turn passed on.
+     *
+     * @param row Row index of the move.
+     * @param col Column index of the move.
+     * @param player The player who makes the move.
+     * @return The new board.
+     */
+    private ReversiBoard executeMove(int row, int col, Player player) {
+        prepareAccumulator(activeEvaluator());
+        ReversiBoard newBoard = clone();
+        newBoard.field[row][col] = new PlayerTile(row, col, player);
+        if (network != null) {
+            network.place(newBoard.accumulator, row * size + col, player);
+        }
+        newBoard.validTiles(row, col, player, true);
+        if (player == Player.HUMAN) {
+            newBoard.nextTurn = Player.COMPUTER;
+        } else {
+            newBoard.nextTurn = Player.HUMAN;
+        }
+        return newBoard;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReversiBoard undoMove(int row, int col, int[] flipped) {
+        Player player = getSlot(row, col);
+        if (player == Player.NOBODY) {
+            throw new IllegalArgumentException("No tile at (" + (row + 1)
+                    + ", " + (col + 1) + ")");
+        }
+        ReversiBoard newBoard = clone();
+        newBoard.field[row][col] = null;
+        if (network != null) {
+            network.remove(newBoard.accumulator, row * size + col, player);
+        }
+        newBoard.flip(flipped);
+        newBoard.nextTurn = player;
+        newBoard.gameState = GameState.RUNNING;
+        return newBoard;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReversiBoard redoMove(int row, int col, Player player,
+                                 int[] flipped) {
+        ReversiBoard newBoard = clone();
+        newBoard.field[row][col] = new PlayerTile(row, col, player);
+        if (network != null) {
+            network.place(newBoard.accumulator, row * size + col, player);
+        }
+        newBoard.flip(flipped);
+        if (player == Player.HUMAN) {
+            newBoard.nextTurn = Player.COMPUTER;
+        } else {
+            newBoard.nextTurn = Player.HUMAN;
+        }
+        return newBoard;
+    }
+
+    /**
+     * Changes the owner of some tiles of this board.
+     *
+     * @param slots The slots of the tiles, each encoded as
+     *        {@code row * size + column}.
+     */
+    private void flip(int[] slots) {
+        for (int slot: slots) {
+            PlayerTile tile = field[slot / size][slot % size];
+            tile.changeSide();
+            if (network != null) {
+                network.flip(accumulator, slot, tile.getPlayer());
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public ReversiBoard machineMove() {
+        return machineMove(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReversiBoard machineMove(SearchListener listener) {
         if (gameState == GameState.OVER || next() != Player.COMPUTER) {
             throw new IllegalMoveException("Machine made a move twice.");
         } else {
-            TreeNode root = new TreeNode(this, level);
-            setChildren(root, 0);
-            ReversiBoard bestBoard = root.minimaxAlgorithm();
+            ReversiBoard bookBoard = bookMove();
+            if (bookBoard != null) {
+                return bookBoard;
+            }
+            if (engine == Engine.MONTE_CARLO && size == SIZE) {
+                return monteCarloMove((long) level * PLAYOUTS_PER_LEVEL,
+                        Long.MAX_VALUE, listener);
+            }
+            long start = System.nanoTime();
+            SearchContext context = new SearchContext(level, listener);
+            ReversiBoard bestBoard = searchRoot(context);
+            EngineMetrics.searchFinished(level, context.getNodes(),
+                    context.getTableHits(), null, start);
+            if (context.isCancelled()) {
+                throw new CancellationException("The search was interrupted");
+            }
             if (bestBoard != null) {
+                EngineMetrics.movePlayed(Player.COMPUTER);
                 return bestBoard;
             } else {
                 nextTurn = Player.HUMAN;
@@ -387,6 +1225,297 @@ public class ReversiBoard implements Board {
         }
     }
 
+    /**
+     * Searches the machine's move with Monte Carlo tree search on all cores.
+     * The machine must be able to move.
+     *
+     * @param playouts The number of random games to be played.
+     * @param deadline The value of {@link System#nanoTime()} at which the
+     *        search stops, {@code Long.MAX_VALUE} for no limit.
+     * @param listener The listener, may be {@code null}.
+     * @return A new board with the move executed.
+     * @throws CancellationException If the searching thread was interrupted.
+     */
+    private ReversiBoard monteCarloMove(long playouts, long deadline,
+                                       SearchListener listener) {
+        long start = System.nanoTime();
+        int limit = reuseNodes;
+        MonteCarloSearch.Node tree = limit > 0 ? monteCarloTree : null;
+        monteCarloTree = null;
+        MonteCarloSearch search = new MonteCarloSearch(
+                bits(Player.COMPUTER), bits(Player.HUMAN), tree,
+                MONTE_CARLO_THREADS, true);
+        int move;
+        try {
+            move = search.search(playouts, deadline, listener);
+        } finally {
+            EngineMetrics.searchFinished(level, search.getPlayouts(), 0,
+                    null, start);
+        }
+        EngineMetrics.movePlayed(Player.COMPUTER);
+        ReversiBoard newBoard = executeMove(move / SIZE, move % SIZE,
+                Player.COMPUTER);
+        if (limit > 0) {
+            newBoard.monteCarloTree = search.subtree(move);
+            if (newBoard.monteCarloTree != null) {
+                MonteCarloSearch.prune(newBoard.monteCarloTree, limit);
+            }
+        }
+        return newBoard;
+    }
+
+    /**
+     * Passes the node of a move in the last Monte Carlo tree on to the
+     * board after the move.
+     *
+     * @param board The board after the move.
+     * @param row Row index of the move.
+     * @param col Column index of the move.
+     * @return The board.
+     */
+    private ReversiBoard followMonteCarloTree(ReversiBoard board, int row,
+                                              int col) {
+        MonteCarloSearch.Node tree = monteCarloTree;
+        if (tree != null) {
+            // The machine may have had to pass before.
+            MonteCarloSearch.Node node = MonteCarloSearch.child(tree,
+                    row * size + col);
+            if (node == null) {
+                node = MonteCarloSearch.child(MonteCarloSearch.child(tree,
+                        -1), row * size + col);
+            }
+            board.monteCarloTree = node;
+        }
+        return board;
+    }
+
+    /**
+     * Collects the tiles of a player of a board of the standard size as a
+     * bit set, bit {@code row * size + column} standing for each slot.
+     *
+     * @param player Human or computer.
+     * @return The tiles.
+     */
+    long bits(Player player) {
+        long tiles = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (getSlot(i, j) == player) {
+                    tiles |= 1L << (i * SIZE + j);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Collects the tiles of a player as a bit set of
+     * {@link WideBitBoard}, which holds boards of every size.
+     *
+     * @param player Human or computer.
+     * @return The tiles.
+     */
+    long[] wideBits(Player player) {
+        long[] tiles = new long[WideBitBoard.WORDS];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                if (getSlot(i, j) == player) {
+                    WideBitBoard.set(tiles, WideBitBoard.square(i, j));
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Sets the strategy of the machine for this game. New games started
+     * from this board keep it.
+     *
+     * @param engine The strategy.
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Gets the strategy of the machine.
+     *
+     * @return The strategy.
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Sets the book which all machine moves consult before searching. If it
+     * knows a valid move for a position, the move is played without a
+     * search.
+     *
+     * @param moveBook The book, {@code null} to search every move.
+     */
+    public static void setBook(MoveBook moveBook) {
+        book = moveBook;
+    }
+
+    /**
+     * Plays the move of the book for the machine, if there is one.
+     *
+     * @return A new board with the book move executed, or {@code null} if
+     *         the book knows no valid move.
+     */
+    private ReversiBoard bookMove() {
+        MoveBook currentBook = book;
+        if (currentBook == null || size != SIZE) {
+            return null;
+        }
+        int move = currentBook.bookMove(this);
+        if (move < 0 || move >= size * size
+                || !validMove(move / size, move % size, Player.COMPUTER)) {
+            return null;
+        }
+        EngineMetrics.movePlayed(Player.COMPUTER);
+        return executeMove(move / size, move % size, Player.COMPUTER);
+    }
+
+    /**
+     * Executes a machine move within a time limit. The best move is searched
+     * with increasing depth, starting at 1, until either the given depth is
+     * reached or the time is up. The move of the deepest complete search is
+     * executed. The search with depth 1 is always completed, so a move is
+     * found even if the time limit is too small. All depths share one cache
+     * of local scores. The Monte Carlo engine plays random games until the
+     * time is up or, without a time limit, as many as for the level
+     * {@code depth}.
+     *
+     * @param depth The maximum depth of the search, must be at least 1.
+     * @param timeMillis The time limit in milliseconds. Values less than 1
+     *        mean no limit.
+     * @param listener The listener to be informed after each depth and on
+     *        improvements, may be {@code null}.
+     * @return A new board with the move executed.
+     * @throws IllegalMoveException If the game is already over, or it is not
+     *         the machine's turn.
+     * @throws IllegalArgumentException If the depth is less than 1.
+     * @throws CancellationException If the searching thread was interrupted.
+     */
+    public ReversiBoard machineMove(int depth, long timeMillis,
+                                    SearchListener listener) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        if (gameState == GameState.OVER || next() != Player.COMPUTER) {
+            throw new IllegalMoveException("Machine made a move twice.");
+        }
+        ReversiBoard bookBoard = bookMove();
+        if (bookBoard != null) {
+            return bookBoard;
+        }
+        long deadline = Long.MAX_VALUE;
+        if (timeMillis > 0) {
+            deadline = System.nanoTime() + timeMillis * 1_000_000L;
+        }
+        if (engine == Engine.MONTE_CARLO && size == SIZE) {
+            long playouts = (long) depth * PLAYOUTS_PER_LEVEL;
+            if (timeMillis > 0) {
+                playouts = Long.MAX_VALUE;
+            }
+            return monteCarloMove(playouts, deadline, listener);
+        }
+        return deepeningMove(depth, deadline, null, listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Like {@link #machineMove(int, long, SearchListener)}, the depth of
+     * the search increases step by step, at most until the end of the game.
+     * The search stops at the maximum time of the move, and no deeper search
+     * is started when the time manager advises against it. The Monte Carlo
+     * engine plays random games for the target time.</p>
+     */
+    @Override
+    public ReversiBoard machineMove(TimeManager time,
+                                    SearchListener listener) {
+        if (gameState == GameState.OVER || next() != Player.COMPUTER) {
+            throw new IllegalMoveException("Machine made a move twice.");
+        }
+        ReversiBoard bookBoard = bookMove();
+        if (bookBoard != null) {
+            return bookBoard;
+        }
+        long start = System.nanoTime();
+        if (engine == Engine.MONTE_CARLO && size == SIZE) {
+            return monteCarloMove(Long.MAX_VALUE,
+                    start + time.getTargetMillis() * 1_000_000L, listener);
+        }
+        int empties = size * size - getNumberOfHumanTiles()
+                - getNumberOfMachineTiles();
+        return deepeningMove(Math.max(1, empties),
+                start + time.getMaximumMillis() * 1_000_000L, time, listener);
+    }
+
+    /**
+     * Searches the machine's move with increasing depth, starting at 1. The
+     * search with depth 1 is always completed.
+     *
+     * @param depth The maximum depth of the search, at least 1.
+     * @param deadline The value of {@link System#nanoTime()} at which the
+     *        search stops, {@code Long.MAX_VALUE} for no limit.
+     * @param time The time manager deciding whether to search deeper, or
+     *        {@code null} to search deeper until the deadline.
+     * @param listener The listener, may be {@code null}.
+     * @return A new board with the move executed.
+     * @throws CancellationException If the searching thread was interrupted.
+     */
+    private ReversiBoard deepeningMove(int depth, long deadline,
+                                       TimeManager time,
+                                       SearchListener listener) {
+        long start = System.nanoTime();
+        long nodes = 0;
+        long tableHits = 0;
+        ScoreCache cache = new ScoreCache(ANALYSIS_CACHE_BITS);
+        ReversiBoard bestBoard = null;
+        for (int d = 1; d <= depth; d++) {
+            long stop = deadline;
+            if (d == 1) {
+                stop = Long.MAX_VALUE;
+            }
+            SearchContext context = new SearchContext(d, listener, cache,
+                    stop);
+            ReversiBoard board = searchRoot(context);
+            nodes += context.getNodes();
+            tableHits += context.getTableHits();
+            if (context.isCancelled()) {
+                EngineMetrics.searchFinished(depth, nodes, tableHits, cache,
+                        start);
+                throw new CancellationException("The search was interrupted");
+            }
+            if (board == null) {
+                break;
+            }
+            boolean unstable = bestBoard != null
+                    && board.hash() != bestBoard.hash();
+            bestBoard = board;
+            if (deadline != Long.MAX_VALUE
+                    && System.nanoTime() - deadline > 0) {
+                break;
+            }
+            if (time != null && !time.searchDeeper(
+                    (System.nanoTime() - start) / 1_000_000L,
+                    context.getElapsedMillis(), unstable)) {
+                break;
+            }
+        }
+        EngineMetrics.searchFinished(depth, nodes, tableHits, cache, start);
+        if (bestBoard != null) {
+            EngineMetrics.movePlayed(Player.COMPUTER);
+            return bestBoard;
+        } else {
+            nextTurn = Player.HUMAN;
+            return this;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -395,6 +1524,15 @@ public class ReversiBoard implements Board {
         this.level = level;
     }
 
+    /**
+     * Gets the skill level of the machine.
+     *
+     * @return The skill as a number.
+     */
+    public int getLevel() {
+        return level;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -427,8 +1565,8 @@ public class ReversiBoard implements Board {
     @Override
     public int getNumberOfHumanTiles() {
         int numberOfTiles = 0;
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (field[i][j] != null
                         && field[i][j].getPlayer() == Player.HUMAN) {
                     numberOfTiles++;
@@ -444,8 +1582,8 @@ public class ReversiBoard implements Board {
     @Override
     public int getNumberOfMachineTiles() {
         int numberOfTiles = 0;
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (field[i][j] != null
                         && field[i][j].getPlayer() == Player.COMPUTER) {
                     numberOfTiles++;
@@ -455,6 +1593,21 @@ public class ReversiBoard implements Board {
         return numberOfTiles;
     }
 
+    /**
+     * Collects the valid moves of the player to move.
+     *
+     * @return The moves, each encoded as {@code row * getSize() + column}.
+     */
+    public int[] legalMoves() {
+        Player player = next();
+        int[] moves = new int[size * size];
+        int counter = 0;
+        if (player != Player.NOBODY) {
+            counter = collectMoves(player, moves);
+        }
+        return Arrays.copyOf(moves, counter);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -473,8 +1626,8 @@ public class ReversiBoard implements Board {
     @Override
     public ReversiBoard clone() {
         ReversiBoard copyBoard = new ReversiBoard(this, firstPlayer);
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (field[i][j] != null) {
 
                     // Create a deep copy of every tile.
@@ -484,6 +1637,10 @@ public class ReversiBoard implements Board {
             }
         }
         copyBoard.setLevel(level);
+        if (network != null) {
+            copyBoard.network = network;
+            copyBoard.accumulator = accumulator.clone();
+        }
         copyBoard.nextTurn = nextTurn;
         copyBoard.gameState = gameState;
         return copyBoard;
@@ -495,8 +1652,8 @@ public class ReversiBoard implements Board {
     @Override
     public String toString() {
         StringBuilder bob = new StringBuilder();
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 if (field[i][j] == null) {
                     bob.append('.');
                 } else if (field[i][j].getPlayer() == Player.HUMAN) {
@@ -0,0 +1,30 @@
+package model;
+
+/**
+ * A search of the machine's best move on bit boards. The implementations
+ * differ in the windows they search with, but all find the same value of
+ * the best move, the sum of the local scores along the best line.
+ */
+interface RootSearch {
+
+    /**
+     * Searches the best move of the machine.
+     *
+     * @param machine The machine's tiles.
+     * @param human The human's tiles.
+     * @param depth The depth of the search, at most the maximum depth of
+     *        the context of the search.
+     * @param guess The expected value of the best move, e.g., the value of
+     *        the previous, shallower search.
+     * @return The best move encoded as {@code row * Board.SIZE + column},
+     *         or -1 if the machine cannot move or the search was stopped.
+     */
+    int searchRoot(long machine, long human, int depth, double guess);
+
+    /**
+     * Gets the value of the best move found by the last search.
+     *
+     * @return The value.
+     */
+    double getBestScore();
+}
@@ -0,0 +1,130 @@
+package model;
+
+/**
+ * A fixed-size hash table mapping Zobrist hashes of positions to their local
+ * scores. It lets searches skip the expensive {@code score()} calculation for
+ * positions reached via different move orders or already scored by a
+ * previous search. Colliding entries are simply replaced.
+ */
+final class ScoreCache {
+
+    /**
+     * Hashes of the stored positions. 0 marks an empty entry.
+     */
+    private final long[] keys;
+
+    /**
+     * Local scores of the stored positions.
+     */
+    private final double[] scores;
+
+    /**
+     * Bit mask to map a hash to an index.
+     */
+    private final int mask;
+
+    /**
+     * The number of successful lookups.
+     */
+    private long hits;
+
+    /**
+     * The number of failed lookups.
+     */
+    private long misses;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param bits The cache holds {@code 2^bits} entries.
+     */
+    ScoreCache(int bits) {
+        keys = new long[1 << bits];
+        scores = new double[1 << bits];
+        mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Gets the local score of a board, either from the cache or by
+     * calculating and storing it.
+     *
+     * @param board The board to be scored.
+     * @param hash The Zobrist hash of the board.
+     * @return The local score of the board.
+     */
+    double score(ReversiBoard board, long hash) {
+        double score = lookup(hash);
+        if (Double.isNaN(score)) {
+            score = board.score();
+            put(hash, score);
+        }
+        return score;
+    }
+
+    /**
+     * Looks up the local score of a board.
+     *
+     * @param hash The Zobrist hash of the board.
+     * @return The cached score or {@code NaN} if the board is not cached.
+     */
+    double lookup(long hash) {
+        long key = key(hash);
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+        misses++;
+        return Double.NaN;
+    }
+
+    /**
+     * Stores the local score of a board.
+     *
+     * @param hash The Zobrist hash of the board.
+     * @param score The local score.
+     */
+    void put(long hash, double score) {
+        long key = key(hash);
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        keys[index] = key;
+        scores[index] = score;
+    }
+
+    /**
+     * Turns a hash into a key, avoiding the empty marker.
+     *
+     * @param hash The Zobrist hash.
+     * @return The key.
+     */
+    private static long key(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Sets the lookup statistics back to zero, so a reused cache reports
+     * the lookups of one search only.
+     */
+    void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Gets the number of successful lookups.
+     *
+     * @return The number of cache hits.
+     */
+    long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of failed lookups.
+     *
+     * @return The number of cache misses.
+     */
+    long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * The window strategies the machine can search with instead of building
+ * the whole tree. All of them find the same value of the best move; they
+ * differ in the number of positions they visit.
+ */
+public enum SearchAlgorithm {
+
+    /**
+     * Depth-first alpha-beta with the full window at the root.
+     */
+    ALPHA_BETA,
+
+    /**
+     * Principal variation search: every move after the first is only
+     * checked with a null window to be worse, and searched again with the
+     * full window if it is not.
+     */
+    PRINCIPAL_VARIATION,
+
+    /**
+     * Alpha-beta with a window around the value of the previous iteration,
+     * widened whenever the value falls outside.
+     */
+    ASPIRATION,
+
+    /**
+     * MTD(f): a series of null-window searches that close in on the value
+     * from the value of the previous iteration, reusing bounds found
+     * before.
+     */
+    MTDF;
+
+    /**
+     * Creates a search of this algorithm.
+     *
+     * @param context The state of the search.
+     * @param probCut The calibration of selective searches, {@code null}
+     *        for a full search.
+     * @return The search.
+     */
+    RootSearch create(SearchContext context, ProbCut probCut) {
+        switch (this) {
+        case PRINCIPAL_VARIATION:
+            return new AlphaBetaSearch(context, probCut, true);
+        case ASPIRATION:
+            return new AspirationSearch(
+                    new AlphaBetaSearch(context, probCut, false));
+        case MTDF:
+            return new MtdfSearch(
+                    new AlphaBetaSearch(context, probCut, false));
+        default:
+            return new AlphaBetaSearch(context, probCut, false);
+        }
+    }
+
+    /**
+     * Checks whether this algorithm relies on the guess of a previous
+     * iteration, so it should deepen step by step.
+     *
+     * @return {@code true} for aspiration windows and MTD(f).
+     */
+    boolean usesGuess() {
+        return this == ASPIRATION || this == MTDF;
+    }
+}
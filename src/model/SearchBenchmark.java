@@ -0,0 +1,149 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the search algorithms on a fixed suite of positions. Every
+ * algorithm deepens step by step up to the given depth, each depth
+ * guessing the value of the previous one, and must find the same value of
+ * the best move as alpha-beta with the full window. One JSON line per
+ * algorithm gives the positions visited, the time, the positions whose
+ * value differs and the positions where another move of the same value
+ * was chosen. The program exits with status 1 if any value differs.
+ *
+ * <p>Options: {@code --positions n} (default 40) and {@code --depth d}
+ * (default 7). The suite consists of the positions after 8 to 47 random
+ * moves of games with a fixed seed in which the machine is to move.</p>
+ */
+public final class SearchBenchmark {
+
+    /**
+     * The fewest random moves before a position of the suite.
+     */
+    private static final int FIRST_PLY = 8;
+
+    /**
+     * The number of positions.
+     */
+    private int positions = 40;
+
+    /**
+     * The depth of the searches.
+     */
+    private int depth = 7;
+
+    // Use the command line.
+    private SearchBenchmark() {
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        SearchBenchmark benchmark = new SearchBenchmark();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--positions":
+                benchmark.positions = Integer.parseInt(args[i + 1]);
+                break;
+            case "--depth":
+                benchmark.depth = Integer.parseInt(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+        System.exit(benchmark.run() ? 0 : 1);
+    }
+
+    /**
+     * Creates the suite of positions. The number of random moves before
+     * each position grows by one from position to position, so all stages
+     * of the game are covered.
+     *
+     * @param count The number of positions.
+     * @return The positions, the machine to move in each.
+     */
+    static List<ReversiBoard> suite(int count) {
+        Random random = new Random(1);
+        List<ReversiBoard> boards = new ArrayList<>();
+        while (boards.size() < count) {
+            int length = FIRST_PLY + boards.size() % 40;
+            ReversiBoard board = new ReversiBoard();
+            for (int ply = 0; ply < length && !board.gameOver(); ply++) {
+                int[] moves = board.legalMoves();
+                int move = moves[random.nextInt(moves.length)];
+                board = board.play(move / Board.SIZE, move % Board.SIZE);
+            }
+            if (!board.gameOver() && board.next() == Player.COMPUTER) {
+                boards.add(board);
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * Searches the suite with every algorithm and prints the results.
+     *
+     * @return {@code true} if all algorithms found the same values.
+     */
+    private boolean run() {
+        List<ReversiBoard> boards = suite(positions);
+        SearchAlgorithm[] algorithms = SearchAlgorithm.values();
+        double[][] values = new double[algorithms.length][boards.size()];
+        int[][] moves = new int[algorithms.length][boards.size()];
+        long[] nodes = new long[algorithms.length];
+        long[] nanos = new long[algorithms.length];
+
+        // The first round warms up the compiler and is not reported.
+        for (int round = 0; round < 2; round++) {
+            for (int a = 0; a < algorithms.length; a++) {
+                nodes[a] = 0;
+                nanos[a] = 0;
+                for (int i = 0; i < boards.size(); i++) {
+                    SearchContext context = new SearchContext(depth, null);
+                    RootSearch search = algorithms[a].create(context, null);
+                    long machine = boards.get(i).bits(Player.COMPUTER);
+                    long human = boards.get(i).bits(Player.HUMAN);
+                    long start = System.nanoTime();
+                    double guess = 0;
+                    for (int d = 1; d <= depth; d++) {
+                        moves[a][i] = search.searchRoot(machine, human, d,
+                                guess);
+                        guess = search.getBestScore();
+                    }
+                    nanos[a] += System.nanoTime() - start;
+                    nodes[a] += context.getNodes();
+                    values[a][i] = guess;
+                }
+            }
+        }
+        boolean identical = true;
+        for (int a = 0; a < algorithms.length; a++) {
+            int differentValues = 0;
+            int otherMoves = 0;
+            for (int i = 0; i < boards.size(); i++) {
+                if (Double.compare(values[a][i], values[0][i]) != 0) {
+                    differentValues++;
+                } else if (moves[a][i] != moves[0][i]) {
+                    otherMoves++;
+                }
+            }
+            identical &= differentValues == 0;
+            System.out.println(String.format(Locale.ROOT,
+                    "{\"algorithm\": \"%s\", \"depth\": %d, "
+                            + "\"positions\": %d, \"nodes\": %d, "
+                            + "\"millis\": %d, \"differentValues\": %d, "
+                            + "\"otherMovesOfSameValue\": %d}",
+                    algorithms[a], depth, boards.size(), nodes[a],
+                    nanos[a] / 1_000_000L, differentValues, otherMoves));
+        }
+        return identical;
+    }
+}
@@ -0,0 +1,351 @@
+package model;
+
+/**
+ * Holds the state shared by all nodes of a single machine search, such as
+ * the maximum depth, the node counter and the listener which is informed
+ * about the progress.
+ */
+final class SearchContext {
+
+    /**
+     * The minimum time in nanoseconds between two intermediate progress
+     * reports.
+     */
+    private static final long REPORT_INTERVAL_NANOS = 100_000_000L;
+
+    /**
+     * The depth of the tree which should be built.
+     */
+    private final int maxDepth;
+
+    /**
+     * The listener to be informed about the progress, may be {@code null}.
+     */
+    private final SearchListener listener;
+
+    /**
+     * The start time of the search as given by {@link System#nanoTime()}.
+     */
+    private final long startNanos;
+
+    /**
+     * The time of the last intermediate report.
+     */
+    private long lastReportNanos;
+
+    /**
+     * The cache of local scores shared with other searches, may be
+     * {@code null}.
+     */
+    private final ScoreCache cache;
+
+    /**
+     * Collects the leaves scored by {@link #scoreLeaves(TreeNode[])}.
+     */
+    private final BatchEvaluator batch
+            = new BatchEvaluator(Board.SIZE * Board.SIZE);
+
+    /**
+     * The hashes of the leaves of {@link #scoreLeaves(TreeNode[])}.
+     */
+    private final long[] leafHashes = new long[Board.SIZE * Board.SIZE];
+
+    /**
+     * The index of each leaf in {@link #batch}, -1 for cached leaves.
+     */
+    private final int[] batchIndices = new int[Board.SIZE * Board.SIZE];
+
+    /**
+     * The transposition table shared by all searches, may be {@code null}.
+     */
+    private final TranspositionTable table = TranspositionTable.getShared();
+
+    /**
+     * The number of global scores found in the transposition table.
+     */
+    private long tableHits;
+
+    /**
+     * The time as given by {@link System#nanoTime()} when the search must
+     * stop, or {@code Long.MAX_VALUE} if there is no time limit.
+     */
+    private final long deadlineNanos;
+
+    /**
+     * Is set as soon as the deadline has passed or the searching thread is
+     * interrupted.
+     */
+    private boolean stopped;
+
+    /**
+     * Is set if the search was stopped because the searching thread was
+     * interrupted.
+     */
+    private boolean cancelled;
+
+    /**
+     * The number of positions created so far.
+     */
+    private long nodes;
+
+    /**
+     * Creates a new context for a search without cache and time limit.
+     *
+     * @param maxDepth The depth of the tree which should be built.
+     * @param listener The listener to be informed, may be {@code null}.
+     */
+    SearchContext(int maxDepth, SearchListener listener) {
+        this(maxDepth, listener, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new context for a search.
+     *
+     * @param maxDepth The depth of the tree which should be built.
+     * @param listener The listener to be informed, may be {@code null}.
+     * @param cache The cache of local scores, may be {@code null}.
+     * @param deadlineNanos The time as given by {@link System#nanoTime()}
+     *        when the search must stop, or {@code Long.MAX_VALUE}.
+     */
+    SearchContext(int maxDepth, SearchListener listener, ScoreCache cache,
+                  long deadlineNanos) {
+        this.maxDepth = maxDepth;
+        this.listener = listener;
+        this.cache = cache;
+        this.deadlineNanos = deadlineNanos;
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+    }
+
+    /**
+     * Gets the depth of the tree which should be built.
+     *
+     * @return The maximum depth.
+     */
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Counts a newly created position.
+     */
+    void countNode() {
+        nodes++;
+
+        // Reading the clock for every node would be too expensive.
+        if ((nodes & 0xFF) == 0) {
+            if (deadlineNanos != Long.MAX_VALUE
+                    && System.nanoTime() - deadlineNanos > 0) {
+                stopped = true;
+            } else if (Thread.currentThread().isInterrupted()) {
+                stopped = true;
+                cancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the search was stopped because the searching thread was
+     * interrupted. Such a search has no result at all.
+     *
+     * @return {@code true} if and only if the search was cancelled.
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the deadline of the search has passed or the search was
+     * cancelled. The results of a stopped search are incomplete and must be
+     * discarded.
+     *
+     * @return {@code true} if and only if the search has to stop.
+     */
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Checks if the search needs the Zobrist hashes of its positions.
+     *
+     * @return {@code true} if there is a cache or a transposition table.
+     */
+    boolean usesHashes() {
+        return cache != null || table != null;
+    }
+
+    /**
+     * Gets the local score of a board, using the cache if there is one.
+     *
+     * @param board The board to be scored.
+     * @param hash The Zobrist hash of the board, if {@link #usesHashes()}.
+     * @return The local score of the board.
+     */
+    double score(ReversiBoard board, long hash) {
+        if (cache == null) {
+            return board.score();
+        }
+        return cache.score(board, hash);
+    }
+
+    /**
+     * Scores positions without children together, like
+     * {@link #score(ReversiBoard, long)} for each of them. Cached scores
+     * are reused, and the others are calculated in one batch. The batch
+     * holds boards of the standard size only, so positions of other sizes
+     * are scored one by one.
+     *
+     * @param leaves The nodes of the positions, followed by {@code null}
+     *        entries.
+     */
+    void scoreLeaves(TreeNode[] leaves) {
+        if (!ReversiBoard.usesHandTunedScore() || leaves.length == 0
+                || leaves[0] == null
+                || leaves[0].getReversiBoard().getSize() != Board.SIZE) {
+            for (TreeNode leaf: leaves) {
+                if (leaf == null) {
+                    break;
+                }
+                ReversiBoard board = leaf.getReversiBoard();
+                leaf.setLocalScore(score(board, usesHashes()
+                        ? board.hash() : 0));
+            }
+            return;
+        }
+        batch.clear();
+        int count = 0;
+        for (TreeNode leaf: leaves) {
+            if (leaf == null) {
+                break;
+            }
+            ReversiBoard board = leaf.getReversiBoard();
+            long hash = usesHashes() ? board.hash() : 0;
+            double cached = cache == null ? Double.NaN : cache.lookup(hash);
+            leafHashes[count] = hash;
+            batchIndices[count] = -1;
+            if (Double.isNaN(cached)) {
+                batchIndices[count] = batch.add(board.bits(Player.COMPUTER),
+                        board.bits(Player.HUMAN));
+            } else {
+                leaf.setLocalScore(cached);
+            }
+            count++;
+        }
+        batch.evaluate();
+        for (int i = 0; i < count; i++) {
+            if (batchIndices[i] >= 0) {
+                double score = batch.score(batchIndices[i]);
+                leaves[i].setLocalScore(score);
+                if (cache != null) {
+                    cache.put(leafHashes[i], score);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up the global score of a position in the transposition table.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @param remainingDepth The depth of the tree below the position.
+     * @return The global score, or {@code Double.NaN} if it is unknown.
+     */
+    double probe(long hash, int remainingDepth) {
+        if (table == null) {
+            return Double.NaN;
+        }
+        double score = table.probe(hash, remainingDepth);
+        if (!Double.isNaN(score)) {
+            tableHits++;
+        }
+        return score;
+    }
+
+    /**
+     * Stores the global score of a position in the transposition table,
+     * unless the search was stopped and the score might be incomplete.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @param remainingDepth The depth of the tree below the position.
+     * @param globalScore The global score of the position.
+     */
+    void store(long hash, int remainingDepth, double globalScore) {
+        if (table != null && !stopped) {
+            table.store(hash, remainingDepth, globalScore);
+        }
+    }
+
+    /**
+     * Gets the number of global scores found in the transposition table.
+     *
+     * @return The number of table hits.
+     */
+    long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Gets the number of positions created so far.
+     *
+     * @return The node count.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time since the search started.
+     *
+     * @return The elapsed time in milliseconds.
+     */
+    long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
+    }
+
+    /**
+     * Informs the listener about a new best line. Intermediate reports are
+     * dropped if the previous one is less than {@code REPORT_INTERVAL_NANOS}
+     * ago, so the listener costs nothing measurable in the search. Final
+     * reports are always delivered.
+     *
+     * @param best The node of the best move found so far.
+     * @param depth The searched depth.
+     * @param finished {@code true} if the search is complete.
+     */
+    void report(TreeNode best, int depth, boolean finished) {
+        if (listener == null || best == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!finished && now - lastReportNanos < REPORT_INTERVAL_NANOS) {
+            return;
+        }
+        lastReportNanos = now;
+        listener.onProgress(new SearchProgress(depth, best.getGlobalScore(),
+                best.principalVariation(),
+                best.getReversiBoard().getSize(), nodes,
+                (now - startNanos) / 1_000_000L, finished));
+    }
+
+    /**
+     * Informs the listener about a new best line found without a tree, like
+     * {@link #report(TreeNode, int, boolean)}.
+     *
+     * @param line The encoded moves of the best line, not copied.
+     * @param score The global score of the first move.
+     * @param depth The searched depth.
+     * @param finished {@code true} if the search is complete.
+     */
+    void report(int[] line, double score, int depth, boolean finished) {
+        if (listener == null || line == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!finished && now - lastReportNanos < REPORT_INTERVAL_NANOS) {
+            return;
+        }
+        lastReportNanos = now;
+        listener.onProgress(new SearchProgress(depth, score, line, nodes,
+                (now - startNanos) / 1_000_000L, finished));
+    }
+}
@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Receives progress reports of a running machine search. Reports are
+ * delivered on the searching thread, so implementations must return quickly
+ * and must not touch any user interface components directly.
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+    /**
+     * Called whenever the search improved its best move or completed a
+     * depth. Calls are throttled by the engine, so not every improvement is
+     * reported, but the final result always is.
+     *
+     * @param progress An immutable snapshot of the current search state.
+     */
+    void onProgress(SearchProgress progress);
+}
@@ -0,0 +1,181 @@
+package model;
+
+/**
+ * An immutable snapshot of a running machine search. It contains the
+ * principal variation, i.e., the line of moves the engine currently
+ * considers best for both sides, together with its score and the effort
+ * spent so far.
+ */
+public final class SearchProgress {
+
+    /**
+     * The depth the reported line was searched with.
+     */
+    private final int depth;
+
+    /**
+     * The global score of the best move as calculated by the minimax
+     * algorithm.
+     */
+    private final double score;
+
+    /**
+     * The moves of the principal variation, each encoded as
+     * {@code row * size + column}.
+     */
+    private final int[] principalVariation;
+
+    /**
+     * The number of rows and columns of the searched board.
+     */
+    private final int size;
+
+    /**
+     * The number of positions created so far.
+     */
+    private final long nodes;
+
+    /**
+     * The time in milliseconds since the search started.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * {@code true} if and only if the search of the reported depth is
+     * complete.
+     */
+    private final boolean finished;
+
+    /**
+     * Creates a new progress snapshot of a search on the standard board.
+     *
+     * @param depth The searched depth.
+     * @param score Score of the best move.
+     * @param principalVariation The encoded moves of the best line. The array
+     *        is not copied and must not be changed afterwards.
+     * @param nodes Number of positions created so far.
+     * @param elapsedMillis Milliseconds since the search started.
+     * @param finished {@code true} if the depth is completely searched.
+     */
+    SearchProgress(int depth, double score, int[] principalVariation,
+                   long nodes, long elapsedMillis, boolean finished) {
+        this(depth, score, principalVariation, Board.SIZE, nodes,
+                elapsedMillis, finished);
+    }
+
+    /**
+     * Creates a new progress snapshot.
+     *
+     * @param depth The searched depth.
+     * @param score Score of the best move.
+     * @param principalVariation The encoded moves of the best line. The array
+     *        is not copied and must not be changed afterwards.
+     * @param size The number of rows and columns of the board.
+     * @param nodes Number of positions created so far.
+     * @param elapsedMillis Milliseconds since the search started.
+     * @param finished {@code true} if the depth is completely searched.
+     */
+    SearchProgress(int depth, double score, int[] principalVariation,
+                   int size, long nodes, long elapsedMillis,
+                   boolean finished) {
+        this.depth = depth;
+        this.score = score;
+        this.principalVariation = principalVariation;
+        this.size = size;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    /**
+     * Gets the depth the reported line was searched with.
+     *
+     * @return The search depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the score of the best move from the machine's point of view.
+     *
+     * @return The score of the best move.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the number of moves in the principal variation.
+     *
+     * @return The length of the best line.
+     */
+    public int getLength() {
+        return principalVariation.length;
+    }
+
+    /**
+     * Gets the row index of a move in the principal variation.
+     *
+     * @param index The position of the move in the line, starting at 0.
+     * @return The row index of the move.
+     */
+    public int getRow(int index) {
+        return principalVariation[index] / size;
+    }
+
+    /**
+     * Gets the column index of a move in the principal variation.
+     *
+     * @param index The position of the move in the line, starting at 0.
+     * @return The column index of the move.
+     */
+    public int getColumn(int index) {
+        return principalVariation[index] % size;
+    }
+
+    /**
+     * Gets the number of positions created so far.
+     *
+     * @return The node count.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time since the search started.
+     *
+     * @return The elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Checks if this is the final report of the search of its depth.
+     *
+     * @return {@code true} if and only if the depth is completely searched.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the principal variation as whitespace separated (row, column)
+     * pairs. The origin is (1, 1) as in the shell.
+     *
+     * @return The string representation of the best line.
+     */
+    public String principalVariationToString() {
+        StringBuilder bob = new StringBuilder();
+        for (int i = 0; i < principalVariation.length; i++) {
+            if (i != 0) {
+                bob.append(' ');
+            }
+            bob.append('(').append(getRow(i) + 1).append(", ")
+                    .append(getColumn(i) + 1).append(')');
+        }
+        return bob.toString();
+    }
+}
@@ -0,0 +1,482 @@
+package model;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Finds stable tiles, which no sequence of moves can flip any more, on the
+ * compact board of {@link BitBoard}. The result is a lower bound of the
+ * stable tiles, found in three steps:
+ *
+ * <ul>
+ * <li>On the four edges, a table gives the tiles no move on the edge
+ * itself can flip; tiles of an edge cannot be flipped from inside.</li>
+ * <li>Tiles whose four lines (row, column and both diagonals) are full
+ *     cannot be flipped either.</li>
+ * <li>An inner tile is stable if on each of its four lines it has a stable
+ *     neighbour of its own or the line is full. This is repeated while it
+ *     finds new stable tiles.</li>
+ * </ul>
+ *
+ * <p>All steps work on whole boards with shifts, like the move generation,
+ * so a call costs about as much as generating the moves of a position.</p>
+ */
+final class Stability {
+
+    /**
+     * The stable tiles of the player to move on an edge of eight slots,
+     * indexed by {@code own << 8 | opponent}.
+     */
+    private static final byte[] EDGE_STABLE = initEdgeStable();
+
+    /**
+     * The slots of the first column.
+     */
+    private static final long FIRST_COLUMN = 0x0101010101010101L;
+
+    /**
+     * The tiles of the first column for each result of
+     * {@link #column(long)}.
+     */
+    private static final long[] COLUMN_TILES = initColumnTiles();
+
+    /**
+     * The slots that are not on an edge.
+     */
+    private static final long INNER = 0x007E7E7E7E7E7E00L;
+
+    /**
+     * All slots except the first column.
+     */
+    private static final long NOT_FIRST_COLUMN = 0xFEFEFEFEFEFEFEFEL;
+
+    /**
+     * All slots except the last column.
+     */
+    private static final long NOT_LAST_COLUMN = 0x7F7F7F7F7F7F7F7FL;
+
+    /**
+     * The number of slots.
+     */
+    private static final int SLOTS = 64;
+
+    // Utility class.
+    private Stability() {
+    }
+
+    /**
+     * Finds stable tiles of the player to move.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @return The stable tiles of {@code own}.
+     */
+    static long stable(long own, long opponent) {
+        long occupied = own | opponent;
+        long stable = edgeStable(own, opponent);
+
+        // Full lines in all four directions.
+        long rows = fullRows(occupied);
+        long columns = fullColumns(occupied);
+        long diagonals = fullLine(occupied, 9, NOT_FIRST_COLUMN)
+                & fullLine(occupied, -9, NOT_LAST_COLUMN);
+        long antiDiagonals = fullLine(occupied, 7, NOT_LAST_COLUMN)
+                & fullLine(occupied, -7, NOT_FIRST_COLUMN);
+        stable |= own & rows & columns & diagonals & antiDiagonals;
+
+        // Inner tiles leaning against stable tiles on every line.
+        long inner = own & INNER & ~stable;
+        while (inner != 0) {
+            long found = inner
+                    & (stable >>> 1 | stable << 1 | rows)
+                    & (stable >>> 8 | stable << 8 | columns)
+                    & (stable >>> 9 | stable << 9 | diagonals)
+                    & (stable >>> 7 | stable << 7 | antiDiagonals);
+            if (found == 0) {
+                break;
+            }
+            stable |= found;
+            inner &= ~found;
+        }
+        return stable;
+    }
+
+    /**
+     * Decides the game by the stable tiles alone, if possible: a player
+     * with stable tiles on more than half of the slots wins whatever
+     * happens.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @return The result for the player to move in half points like
+     *         {@link BitBoard#playout(long, long)}, 2 for a win and 0 for a
+     *         loss, or -1 if the game is still open.
+     */
+    static int decided(long own, long opponent) {
+        if (Long.bitCount(stable(own, opponent)) > SLOTS / 2) {
+            return 2;
+        }
+        if (Long.bitCount(stable(opponent, own)) > SLOTS / 2) {
+            return 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks the stable tiles on positions of random games: from each
+     * position, random games are played to the end, and no tile found
+     * stable may ever change sides. Prints the positions per second of
+     * {@link #stable(long, long)}, of the move generation and of the local
+     * score, the average number of stable tiles by stage of the game and
+     * the violations as JSON. The program exits with status 1 if any stable
+     * tile was flipped.
+     *
+     * @param args Optionally the number of games (default 2000).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Random random = new Random(1);
+        long[] own = new long[games * SLOTS];
+        long[] opponent = new long[games * SLOTS];
+        int count = 0;
+        for (int game = 0; game < games; game++) {
+            long player = 0x0000000810000000L;
+            long other = 0x0000001008000000L;
+            boolean passed = false;
+            while (true) {
+                long moves = BitBoard.moves(player, other);
+                if (moves == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    for (int k = random.nextInt(Long.bitCount(moves)); k > 0;
+                            k--) {
+                        moves &= moves - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(moves);
+                    long flipped = BitBoard.flips(player, other, square);
+                    player |= flipped | (1L << square);
+                    other &= ~flipped;
+                    own[count] = other;
+                    opponent[count] = player;
+                    count++;
+                }
+                long tiles = player;
+                player = other;
+                other = tiles;
+            }
+        }
+        long stableNanos = Long.MAX_VALUE;
+        long movesNanos = Long.MAX_VALUE;
+        long scoreNanos = Long.MAX_VALUE;
+        long sink = 0;
+
+        // The best of several rounds, the first ones warm up.
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += stable(own[i], opponent[i]);
+            }
+            stableNanos = Math.min(stableNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += BitBoard.moves(own[i], opponent[i]);
+            }
+            movesNanos = Math.min(movesNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sink += (long) BatchEvaluator.score(own[i], opponent[i]);
+            }
+            scoreNanos = Math.min(scoreNanos, System.nanoTime() - start);
+        }
+        int violations = 0;
+        long[] stableByStage = new long[4];
+        long[] positionsByStage = new long[4];
+        for (int i = 0; i < count; i++) {
+            long stable = stable(own[i], opponent[i]);
+            int stage = Math.min(3, Long.bitCount(own[i] | opponent[i])
+                    / 16);
+            stableByStage[stage] += Long.bitCount(stable);
+            positionsByStage[stage]++;
+            if (i % 8 == 0 && !holds(own[i], opponent[i], stable, random)) {
+                violations++;
+            }
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "{\"positions\": %d, \"stablePerSecond\": %.0f, "
+                        + "\"movesPerSecond\": %.0f, "
+                        + "\"scorePerSecond\": %.0f, \"check\": %d}",
+                count, count * 1e9 / Math.max(1, stableNanos),
+                count * 1e9 / Math.max(1, movesNanos),
+                count * 1e9 / Math.max(1, scoreNanos), sink & 1));
+        for (int stage = 0; stage < 4; stage++) {
+            System.out.println(String.format(Locale.ROOT,
+                    "{\"tiles\": \"%d-%d\", \"averageStable\": %.2f}",
+                    stage * 16, stage * 16 + 15, (double) stableByStage[stage]
+                            / Math.max(1, positionsByStage[stage])));
+        }
+        System.out.println("{\"violations\": " + violations + "}");
+        System.exit(violations == 0 ? 0 : 1);
+    }
+
+    /**
+     * Plays random games from a position and checks that the stable tiles
+     * of the player to move are never flipped.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param stable The stable tiles of {@code own}.
+     * @param random The source of the random moves.
+     * @return {@code true} if no stable tile was flipped.
+     */
+    private static boolean holds(long own, long opponent, long stable,
+                                 Random random) {
+        for (int game = 0; game < 20; game++) {
+            long player = own;
+            long other = opponent;
+            boolean owner = true;
+            boolean passed = false;
+            while (true) {
+                long mine = owner ? player : other;
+                if ((stable & ~mine) != 0) {
+                    return false;
+                }
+                long moves = BitBoard.moves(player, other);
+                if (moves == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                } else {
+                    passed = false;
+                    for (int k = random.nextInt(Long.bitCount(moves)); k > 0;
+                            k--) {
+                        moves &= moves - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(moves);
+                    long flipped = BitBoard.flips(player, other, square);
+                    player |= flipped | (1L << square);
+                    other &= ~flipped;
+                }
+                long tiles = player;
+                player = other;
+                other = tiles;
+                owner = !owner;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the tiles of the player to move that cannot be flipped along
+     * an edge.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @return The stable tiles on the four edges.
+     */
+    private static long edgeStable(long own, long opponent) {
+        long stable = EDGE_STABLE[(int) (own & 0xFF) << 8
+                | (int) (opponent & 0xFF)] & 0xFFL;
+        stable |= (EDGE_STABLE[(int) (own >>> 56) << 8
+                | (int) (opponent >>> 56)] & 0xFFL) << 56;
+        stable |= toColumn(EDGE_STABLE[column(own) << 8 | column(opponent)]);
+        stable |= toColumn(EDGE_STABLE[column(own >>> 7) << 8
+                | column(opponent >>> 7)]) << 7;
+        return stable;
+    }
+
+    /**
+     * Gathers the first column into eight bits, row {@code i} into bit
+     * {@code i}.
+     *
+     * @param tiles The tiles.
+     * @return The tiles of the first column.
+     */
+    private static int column(long tiles) {
+        return (int) (((tiles & FIRST_COLUMN) * 0x0102040810204080L)
+                >>> 56);
+    }
+
+    /**
+     * Spreads eight bits over the first column, the reverse of
+     * {@link #column(long)}.
+     *
+     * @param bits The bits, only the lowest eight are used.
+     * @return The tiles of the first column.
+     */
+    private static long toColumn(int bits) {
+        return COLUMN_TILES[bits & 0xFF];
+    }
+
+    /**
+     * Creates the table of {@link #toColumn(int)}.
+     *
+     * @return The tiles for each combination of bits.
+     */
+    private static long[] initColumnTiles() {
+        long[] tiles = new long[256];
+        for (int row = 0; row < 8; row++) {
+            long tile = 1L << (row * 8);
+            int bit = column(tile);
+            for (int bits = 0; bits < 256; bits++) {
+                if ((bits & bit) != 0) {
+                    tiles[bits] |= tile;
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Finds the slots of full rows.
+     *
+     * @param occupied The occupied slots.
+     * @return All slots of the rows without empty slot.
+     */
+    private static long fullRows(long occupied) {
+        long full = occupied & occupied >>> 4;
+        full &= full >>> 2;
+        full &= full >>> 1;
+        return (full & FIRST_COLUMN) * 0xFF;
+    }
+
+    /**
+     * Finds the slots of full columns.
+     *
+     * @param occupied The occupied slots.
+     * @return All slots of the columns without empty slot.
+     */
+    private static long fullColumns(long occupied) {
+        long full = occupied & occupied >>> 32;
+        full &= full >>> 16;
+        full &= full >>> 8;
+        return (full & 0xFF) * FIRST_COLUMN;
+    }
+
+    /**
+     * Finds the occupied slots from which all slots in one direction up to
+     * the edge are occupied.
+     *
+     * @param occupied The occupied slots.
+     * @param shift The shift of the direction.
+     * @param targets The slots a tile can be shifted to in that direction
+     *        without wrapping around into another row.
+     * @return The slots whose ray in the direction is full.
+     */
+    private static long fullLine(long occupied, int shift, long targets) {
+        // The slots without neighbour in the direction end every ray.
+        long edge = ~shift(shift(-1L, shift) & targets, -shift);
+        long full = occupied;
+        for (int i = 1; i < 8; i++) {
+            full = occupied & (shift(full, -shift) | edge);
+        }
+        return full;
+    }
+
+    /**
+     * Shifts all tiles one slot in a direction. Tiles shifted beyond the
+     * first or last row are dropped.
+     *
+     * @param tiles The tiles.
+     * @param shift The shift of the direction.
+     * @return The shifted tiles.
+     */
+    private static long shift(long tiles, int shift) {
+        if (shift > 0) {
+            return tiles << shift;
+        }
+        return tiles >>> -shift;
+    }
+
+    /**
+     * Creates the table of stable tiles on an edge. A tile of the player
+     * to move is stable if it stays the player's whatever tiles either
+     * player places on the empty slots of the edge, since moves elsewhere
+     * may make any of them valid.
+     *
+     * @return The table.
+     */
+    private static byte[] initEdgeStable() {
+        byte[] table = new byte[1 << 16];
+        boolean[] done = new boolean[1 << 16];
+        for (int own = 0; own < 256; own++) {
+            for (int opponent = 0; opponent < 256; opponent++) {
+                if ((own & opponent) == 0) {
+                    edgeStable(own, opponent, table, done);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Finds the stable tiles of an edge position, looking up or filling
+     * the table for the positions after each move.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param table The table being filled.
+     * @param done Marks the entries of the table already filled.
+     * @return The stable tiles of {@code own}.
+     */
+    private static int edgeStable(int own, int opponent, byte[] table,
+                                  boolean[] done) {
+        int index = own << 8 | opponent;
+        if (done[index]) {
+            return table[index] & 0xFF;
+        }
+        int stable = own;
+        int empty = ~(own | opponent) & 0xFF;
+        for (int rest = empty; rest != 0 && stable != 0; rest &= rest - 1) {
+            int placed = rest & -rest;
+
+            // A tile of the player cannot flip the player's own tiles, but
+            // may let the opponent flip them later.
+            int flipped = edgeFlips(own, opponent, placed);
+            stable &= edgeStable(own | placed | flipped, opponent & ~flipped,
+                    table, done);
+            flipped = edgeFlips(opponent, own, placed);
+            stable &= edgeStable(own & ~flipped, opponent | placed | flipped,
+                    table, done);
+        }
+        stable &= own;
+        table[index] = (byte) stable;
+        done[index] = true;
+        return stable;
+    }
+
+    /**
+     * Collects the tiles a tile placed on an edge flips along the edge.
+     *
+     * @param mover The tiles of the player placing the tile.
+     * @param other The tiles of the other player.
+     * @param placed The bit of the placed tile.
+     * @return The tiles of {@code other} that change sides.
+     */
+    private static int edgeFlips(int mover, int other, int placed) {
+        int flipped = 0;
+        int run = 0;
+        int next = placed << 1;
+        while ((next & other) != 0) {
+            run |= next;
+            next <<= 1;
+        }
+        if ((next & mover & 0xFF) != 0) {
+            flipped |= run;
+        }
+        run = 0;
+        next = placed >>> 1;
+        while ((next & other) != 0) {
+            run |= next;
+            next >>>= 1;
+        }
+        if ((next & mover) != 0) {
+            flipped |= run;
+        }
+        return flipped;
+    }
+}
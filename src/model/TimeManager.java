@@ -0,0 +1,106 @@
+package model;
+
+/**
+ * Divides the time left on the machine's clock among its remaining moves.
+ * Each move gets a target time, the remaining time shared by the moves the
+ * machine still has to make plus most of the increment, and a maximum
+ * time after which its search is aborted. A deeper search is only started
+ * if it is expected to end within the target, taking a few times as long
+ * as the last depth; if the best move changed with the last depth, the
+ * position is unclear and the target is doubled, up to the maximum. A
+ * reserve is never touched, and a move may take at most a quarter of the
+ * rest, so the machine does not lose on time even if garbage collection
+ * holds a search well beyond its maximum.
+ */
+public final class TimeManager {
+
+    /**
+     * The time in milliseconds that is kept on the clock for the overhead
+     * around the searches.
+     */
+    static final long RESERVE_MILLIS = 100;
+
+    /**
+     * The maximum time of a move as a multiple of its target.
+     */
+    private static final int MAXIMUM_FACTOR = 3;
+
+    /**
+     * The share of the usable time a single move may take at most. Garbage
+     * collection may hold a search for a while after its deadline, longer
+     * the larger its tree, so an aborted move may take about twice its
+     * maximum.
+     */
+    private static final int MAXIMUM_SHARE = 4;
+
+    /**
+     * How many times longer than a depth the next deeper one is expected
+     * to take.
+     */
+    static final int GROWTH = 4;
+
+    /**
+     * The time in milliseconds the search should take.
+     */
+    private final long targetMillis;
+
+    /**
+     * The time in milliseconds after which the search is aborted.
+     */
+    private final long maximumMillis;
+
+    /**
+     * Allots the time of the next move of the machine.
+     *
+     * @param remainingMillis The time left on the machine's clock.
+     * @param incrementMillis The time added to the clock after each move.
+     * @param empties The number of empty slots of the board.
+     */
+    public TimeManager(long remainingMillis, long incrementMillis,
+                       int empties) {
+        long usable = Math.max(0, remainingMillis - RESERVE_MILLIS);
+
+        // The machine makes about every second of the remaining moves.
+        int movesToGo = Math.max(1, (empties + 1) / 2);
+        long target = usable / movesToGo + incrementMillis * 3 / 4;
+        maximumMillis = Math.max(1, Math.min(usable / MAXIMUM_SHARE,
+                target * MAXIMUM_FACTOR));
+        targetMillis = Math.max(1, Math.min(target, maximumMillis));
+    }
+
+    /**
+     * Gets the time the search of the move should take.
+     *
+     * @return The target time in milliseconds.
+     */
+    public long getTargetMillis() {
+        return targetMillis;
+    }
+
+    /**
+     * Gets the time after which the search of the move is aborted.
+     *
+     * @return The maximum time in milliseconds.
+     */
+    public long getMaximumMillis() {
+        return maximumMillis;
+    }
+
+    /**
+     * Decides whether to search one ply deeper.
+     *
+     * @param elapsedMillis The time the search took so far.
+     * @param lastMillis The time the last depth took.
+     * @param unstable {@code true} if the last depth chose another move
+     *        than the one before.
+     * @return {@code true} if the next depth should be searched.
+     */
+    boolean searchDeeper(long elapsedMillis, long lastMillis,
+                         boolean unstable) {
+        long limit = targetMillis;
+        if (unstable) {
+            limit = Math.min(maximumMillis, 2 * targetMillis);
+        }
+        return elapsedMillis + GROWTH * lastMillis < limit;
+    }
+}
@@ -0,0 +1,250 @@
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A hash table storing the global scores of searched positions, shared by
+ * all threads searching in this process. The entries are stored outside of
+ * the Java heap in direct byte buffers, so even tables of several gigabytes
+ * cause no garbage collection work.
+ *
+ * <p>The table uses no locks. Each entry consists of three 64-bit words: a
+ * check word, the score and the meta data. The check word is the XOR of the
+ * position's hash and the other two words, so an entry torn by two threads
+ * writing at the same time fails the check on reading and is treated as
+ * missing. Entries are replaced if they are from an older game generation
+ * or were searched with less or equal remaining depth.
+ *
+ * <p>The shared table is configured by the system properties
+ * {@code reversi.tt.mb} (size in megabytes, 0 disables it, default 64) and
+ * {@code reversi.tt.clear} ({@code never} or {@code game}, default
+ * {@code never}), or by calling {@link #configure(long, ClearPolicy)}.
+ */
+public final class TranspositionTable {
+
+    /**
+     * Decides what happens to the shared table when a new game starts.
+     */
+    public enum ClearPolicy {
+
+        /**
+         * Entries are kept, but entries of older games are replaced first.
+         * Best for many concurrent games.
+         */
+        NEVER,
+
+        /**
+         * All entries are removed, so every game starts with the same
+         * table.
+         */
+        GAME
+    }
+
+    /**
+     * The number of bytes per entry.
+     */
+    private static final int ENTRY_BYTES = 24;
+
+    /**
+     * Entries per buffer as power of two. A direct buffer holds at most
+     * {@code 2^31 - 1} bytes, so bigger tables consist of several buffers.
+     */
+    private static final int CHUNK_BITS = 25;
+
+    /**
+     * The default size of the shared table in megabytes.
+     */
+    private static final long DEFAULT_MEGABYTES = 64;
+
+    /**
+     * The table shared by all searches, may be {@code null}.
+     */
+    private static volatile TranspositionTable shared;
+
+    /**
+     * {@code true} if the shared table was created or configured already.
+     */
+    private static volatile boolean initialized;
+
+    /**
+     * The policy of the shared table.
+     */
+    private static volatile ClearPolicy clearPolicy = ClearPolicy.NEVER;
+
+    /**
+     * The buffers holding the entries.
+     */
+    private final ByteBuffer[] chunks;
+
+    /**
+     * Bit mask to map a hash to an entry index.
+     */
+    private final long mask;
+
+    /**
+     * The current game generation. Entries of older generations are
+     * replaced first.
+     */
+    private volatile int generation;
+
+    /**
+     * Creates a new, empty table.
+     *
+     * @param megabytes The maximum size of the table. The number of entries
+     *        is rounded down to a power of two.
+     * @throws IllegalArgumentException If the size is too small for a
+     *         single entry.
+     */
+    public TranspositionTable(long megabytes) {
+        long entries = Long.highestOneBit(megabytes * 1024 * 1024
+                / ENTRY_BYTES);
+        if (entries == 0) {
+            throw new IllegalArgumentException("Table size too small");
+        }
+        mask = entries - 1;
+        long chunkEntries = Math.min(entries, 1L << CHUNK_BITS);
+        chunks = new ByteBuffer[(int) (entries / chunkEntries)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(
+                    (int) (chunkEntries * ENTRY_BYTES));
+        }
+    }
+
+    /**
+     * Gets the table shared by all searches. It is created on first use.
+     *
+     * @return The shared table or {@code null} if it is disabled.
+     */
+    static TranspositionTable getShared() {
+        if (!initialized) {
+            synchronized (TranspositionTable.class) {
+                if (!initialized) {
+                    long megabytes = Long.getLong("reversi.tt.mb",
+                            DEFAULT_MEGABYTES);
+                    if ("game".equalsIgnoreCase(System.getProperty(
+                            "reversi.tt.clear"))) {
+                        clearPolicy = ClearPolicy.GAME;
+                    }
+                    if (megabytes > 0) {
+                        shared = new TranspositionTable(megabytes);
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Replaces the shared table. Searches running at the same time keep
+     * using the old one.
+     *
+     * @param megabytes The size of the new table, 0 to disable it.
+     * @param policy What happens to the table when a new game starts.
+     */
+    public static synchronized void configure(long megabytes,
+                                              ClearPolicy policy) {
+        clearPolicy = policy;
+        if (megabytes > 0) {
+            shared = new TranspositionTable(megabytes);
+        } else {
+            shared = null;
+        }
+        initialized = true;
+    }
+
+    /**
+     * Informs the shared table that a new game starts. Depending on the
+     * policy, the table is cleared or its entries are marked as old.
+     */
+    public static void newGame() {
+        TranspositionTable table = getShared();
+        if (table == null) {
+            return;
+        }
+        if (clearPolicy == ClearPolicy.GAME) {
+            table.clear();
+        } else {
+            table.generation = (table.generation + 1) & 0xFF;
+        }
+    }
+
+    /**
+     * Looks up the global score of a position.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @param remainingDepth The depth of the tree below the position.
+     * @return The global score, or {@code Double.NaN} if there is no entry
+     *         for the position searched with exactly this depth.
+     */
+    double probe(long hash, int remainingDepth) {
+        long index = hash & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_BITS)];
+        int offset = (int) (index & ((1L << CHUNK_BITS) - 1)) * ENTRY_BYTES;
+        long check = chunk.getLong(offset);
+        long score = chunk.getLong(offset + 8);
+        long meta = chunk.getLong(offset + 16);
+        if ((check ^ score ^ meta) != hash
+                || depth(meta) != remainingDepth) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(score);
+    }
+
+    /**
+     * Stores the global score of a position, unless the entry holds a
+     * position of the current game searched deeper.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @param remainingDepth The depth of the tree below the position.
+     * @param globalScore The global score of the position.
+     */
+    void store(long hash, int remainingDepth, double globalScore) {
+        long index = hash & mask;
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_BITS)];
+        int offset = (int) (index & ((1L << CHUNK_BITS) - 1)) * ENTRY_BYTES;
+        long oldMeta = chunk.getLong(offset + 16);
+        int currentGeneration = generation;
+        if (generation(oldMeta) == currentGeneration
+                && depth(oldMeta) > remainingDepth) {
+            return;
+        }
+        long score = Double.doubleToRawLongBits(globalScore);
+        long meta = ((long) currentGeneration << 8) | remainingDepth;
+        chunk.putLong(offset, hash ^ score ^ meta);
+        chunk.putLong(offset + 8, score);
+        chunk.putLong(offset + 16, meta);
+    }
+
+    /**
+     * Removes all entries. Searches using the table at the same time may
+     * miss entries, but never read wrong ones.
+     */
+    void clear() {
+        for (ByteBuffer chunk: chunks) {
+            for (int i = 0; i < chunk.capacity(); i += 8) {
+                chunk.putLong(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Gets the remaining depth from the meta data of an entry.
+     *
+     * @param meta The meta data word.
+     * @return The remaining depth.
+     */
+    private static int depth(long meta) {
+        return (int) (meta & 0xFF);
+    }
+
+    /**
+     * Gets the game generation from the meta data of an entry.
+     *
+     * @param meta The meta data word.
+     * @return The generation.
+     */
+    private static int generation(long meta) {
+        return (int) ((meta >>> 8) & 0xFF);
+    }
+}
@@ -28,6 +28,30 @@ public class TreeNode {
      */
     private TreeNode[] children;
 
+    /**
+     * The move which led to this node, encoded as
+     * {@code row * size + column}, or -1 for the root.
+     */
+    private final int move;
+
+    /**
+     * The child with the best global score for the player to move, as chosen
+     * by the minimax algorithm.
+     */
+    private TreeNode bestChild;
+
+    /**
+     * {@code true} if the global score was taken from the transposition
+     * table, so the subtree of this node was not built.
+     */
+    private boolean fromTable;
+
+    /**
+     * {@code true} if the global score was calculated from the children
+     * already, while the tree was built.
+     */
+    private boolean evaluated;
+
     /**
      * Creates a TreeNode with a given game board and level. Represents a node
      * in the tree.
@@ -36,10 +60,25 @@ public class TreeNode {
      * @param level Level value of the given board.
      */
     TreeNode(ReversiBoard reversiBoard, int level) {
+        this(reversiBoard, level, -1);
+    }
+
+    /**
+     * Creates a TreeNode with a given game board and level, which was
+     * reached by a given move.
+     *
+     * @param reversiBoard A board of a specific game state.
+     * @param level Level value of the given board.
+     * @param move The move which led to this board, encoded as
+     *        {@code row * size + column}.
+     */
+    TreeNode(ReversiBoard reversiBoard, int level, int move) {
         this.reversiBoard = reversiBoard;
+        this.move = move;
         localScore = 0;
         globalScore = 0;
-        children = new TreeNode[Board.SIZE * Board.SIZE - 4];
+        int size = reversiBoard.getSize();
+        children = new TreeNode[size * size - 4];
     }
 
     /**
@@ -69,6 +108,68 @@ public class TreeNode {
      */
     void setLocalScore(double localScore) {
         this.localScore = localScore;
+
+        // A leaf's global score equals its local score.
+        globalScore = localScore;
+    }
+
+    /**
+     * Sets the global score of this node to a value found in the
+     * transposition table. The minimax algorithm keeps it instead of
+     * building the subtree.
+     *
+     * @param tableScore The global score of the same position searched with
+     *        the same remaining depth.
+     */
+    void setTableScore(double tableScore) {
+        globalScore = tableScore;
+        fromTable = true;
+    }
+
+    /**
+     * Gets the global score of this node as calculated by the minimax
+     * algorithm.
+     *
+     * @return The global score.
+     */
+    double getGlobalScore() {
+        return globalScore;
+    }
+
+    /**
+     * Selects a child as the best one and updates the global score of this
+     * node accordingly. Used by searches which score the children one after
+     * another instead of calling {@link #minimaxAlgorithm()} on the whole
+     * tree.
+     *
+     * @param child The child with the best global score.
+     */
+    void selectChild(TreeNode child) {
+        bestChild = child;
+        globalScore = localScore + child.globalScore;
+    }
+
+    /**
+     * Collects the moves from this node along the best children down to a
+     * leaf. The move leading to this node is included.
+     *
+     * @return The encoded moves of the principal variation.
+     */
+    int[] principalVariation() {
+        int length = 0;
+        for (TreeNode node = this; node != null; node = node.bestChild) {
+            if (node.move >= 0) {
+                length++;
+            }
+        }
+        int[] line = new int[length];
+        int i = 0;
+        for (TreeNode node = this; node != null; node = node.bestChild) {
+            if (node.move >= 0) {
+                line[i++] = node.move;
+            }
+        }
+        return line;
     }
 
     /**
@@ -81,40 +182,62 @@ public class TreeNode {
      */
     ReversiBoard minimaxAlgorithm() {
         if (children[0] == null) {
-            globalScore = localScore;
+            if (!fromTable) {
+                globalScore = localScore;
+            }
             return reversiBoard;
+        } else if (evaluated) {
+            return bestChild.reversiBoard;
+        } else {
+            for (TreeNode child: children) {
+                if (child == null) {
+                    break;
+                }
+                child.minimaxAlgorithm();
+            }
+            return evaluate();
+        }
+    }
+
+    /**
+     * Calculates the global score of this node from the global scores of its
+     * children, which must be calculated already. This node must have at
+     * least one child.
+     *
+     * @return ReversiBoard object of the best child for the player to move.
+     */
+    ReversiBoard evaluate() {
+        evaluated = true;
+        if (reversiBoard.next() == Player.COMPUTER) {
+            double maxScore = Integer.MIN_VALUE;
+            ReversiBoard bestBoard = null;
+            for (TreeNode child: children) {
+                if (child == null) {
+                    break;
+                }
+                if (maxScore < child.globalScore) {
+                    maxScore = child.globalScore;
+                    bestBoard = child.reversiBoard;
+                    bestChild = child;
+                }
+            }
+            globalScore = localScore + maxScore;
+            return bestBoard;
         } else {
-            if (reversiBoard.next() == Player.COMPUTER) {
-                double maxScore = Integer.MIN_VALUE;
-                ReversiBoard bestBoard = null;
-                for (TreeNode child: children) {
-                    if (child == null) {
-                        break;
-                    }
-                    child.minimaxAlgorithm();
-                    if (maxScore < child.globalScore) {
-                        maxScore = child.globalScore;
-                        bestBoard = child.reversiBoard;
-                    }
+            double minScore = Integer.MAX_VALUE;
+            ReversiBoard worstBoard = null;
+            for (TreeNode child: children) {
+                if (child == null) {
+                    break;
                 }
-                globalScore = localScore + maxScore;
-                return bestBoard;
-            } else {
-                double minScore = Integer.MAX_VALUE;
-                ReversiBoard worstBoard = null;
-                for (TreeNode child: children) {
-                    if (child == null) {
-                        break;
-                    }
-                    child.minimaxAlgorithm();
-                    if (minScore > child.globalScore) {
-                        minScore = child.globalScore;
-                        worstBoard = child.reversiBoard;
-                    }
+                if (minScore > child.globalScore) {
+                    minScore = child.globalScore;
+                    worstBoard = child.reversiBoard;
+                    bestChild = child;
                 }
-                globalScore = localScore + minScore;
-                return worstBoard;
             }
+            globalScore = localScore + minScore;
+            return worstBoard;
         }
     }
 }
@@ -0,0 +1,105 @@
+package model;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures how much time the Monte Carlo engine saves by continuing the
+ * tree of its previous move. The engine plays games against random moves,
+ * once without and once with reuse, and one JSON line per run gives the
+ * machine's moves and the milliseconds per move. The random moves use the
+ * same seed in both runs, but the games differ as soon as the engine
+ * chooses differently.
+ *
+ * <p>Options: {@code --games n} (default 4), {@code --level l} (default 2)
+ * and {@code --nodes n}, the most nodes kept between moves (default
+ * 1000000).</p>
+ */
+public final class TreeReuseBenchmark {
+
+    /**
+     * The number of games per run.
+     */
+    private int games = 4;
+
+    /**
+     * The level of the engine.
+     */
+    private int level = 2;
+
+    /**
+     * The most nodes kept between moves in the run with reuse.
+     */
+    private int nodes = 1_000_000;
+
+    // Use the command line.
+    private TreeReuseBenchmark() {
+    }
+
+    /**
+     * Runs the comparison.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        TreeReuseBenchmark benchmark = new TreeReuseBenchmark();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--games":
+                benchmark.games = Integer.parseInt(args[i + 1]);
+                break;
+            case "--level":
+                benchmark.level = Integer.parseInt(args[i + 1]);
+                break;
+            case "--nodes":
+                benchmark.nodes = Integer.parseInt(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+
+        // The first run warms up the compiler and is not reported.
+        benchmark.run(0, false);
+        benchmark.run(0, true);
+        benchmark.run(benchmark.nodes, true);
+    }
+
+    /**
+     * Plays the games of one run.
+     *
+     * @param limit The most nodes kept between moves, 0 for no reuse.
+     * @param report Whether to print the result.
+     */
+    private void run(int limit, boolean report) {
+        ReversiBoard.setReuseLimit(limit);
+        Random random = new Random(1);
+        long moves = 0;
+        long nanos = 0;
+        for (int game = 0; game < games; game++) {
+            ReversiBoard board = new ReversiBoard();
+            board.setEngine(Engine.MONTE_CARLO);
+            board.setLevel(level);
+            while (!board.gameOver()) {
+                if (board.next() == Player.COMPUTER) {
+                    long start = System.nanoTime();
+                    board = board.machineMove();
+                    nanos += System.nanoTime() - start;
+                    moves++;
+                } else {
+                    int[] legal = board.legalMoves();
+                    int move = legal[random.nextInt(legal.length)];
+                    board = board.move(move / Board.SIZE, move % Board.SIZE);
+                }
+            }
+        }
+        if (report) {
+            System.out.println(String.format(Locale.ROOT,
+                    "{\"reuseNodes\": %d, \"level\": %d, \"games\": %d, "
+                            + "\"moves\": %d, \"millisPerMove\": %.1f}",
+                    limit, level, games, moves,
+                    nanos / 1e6 / Math.max(1, moves)));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Move generation on boards of any size up to 16 rows and columns, whose
+ * slots do not fit into one {@code long}. Each player's tiles are a bit set
+ * of {@link #WORDS} words, bit {@code row * 16 + column} standing for each
+ * slot, so every row occupies 16 bits whatever the size of the board.
+ * Neighbours in all eight directions are then reached by shifting the whole
+ * bit set by a fixed distance, and all slots of a direction are handled at
+ * once like with {@link BitBoard}.
+ */
+final class WideBitBoard {
+
+    /**
+     * The number of words of a bit set.
+     */
+    static final int WORDS = 4;
+
+    /**
+     * The bits of one row.
+     */
+    static final int STRIDE = 16;
+
+    /**
+     * The shifts that move a bit to its neighbour in each direction.
+     */
+    private static final int[] SHIFTS = {1, -1, STRIDE, -STRIDE, STRIDE + 1,
+            -STRIDE - 1, STRIDE - 1, -STRIDE + 1};
+
+    /**
+     * The slots of the board per size.
+     */
+    private static final long[][] SLOTS = new long[Board.MAX_SIZE + 1][];
+
+    /**
+     * The slots except the first and last column per size.
+     */
+    private static final long[][] INNER_COLUMNS
+            = new long[Board.MAX_SIZE + 1][];
+
+    static {
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size++) {
+            SLOTS[size] = new long[WORDS];
+            INNER_COLUMNS[size] = new long[WORDS];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    set(SLOTS[size], square(row, col));
+                    if (col > 0 && col < size - 1) {
+                        set(INNER_COLUMNS[size], square(row, col));
+                    }
+                }
+            }
+        }
+    }
+
+    // Utility class.
+    private WideBitBoard() {
+    }
+
+    /**
+     * Gets the bit of a slot.
+     *
+     * @param row The row of the slot.
+     * @param col The column of the slot.
+     * @return The index of the bit.
+     */
+    static int square(int row, int col) {
+        return row * STRIDE + col;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param bits The bit set.
+     * @param square The index of the bit.
+     */
+    static void set(long[] bits, int square) {
+        bits[square >>> 6] |= 1L << square;
+    }
+
+    /**
+     * Checks whether a bit set is empty.
+     *
+     * @param bits The bit set.
+     * @return {@code true} if no bit is set.
+     */
+    static boolean isEmpty(long[] bits) {
+        return (bits[0] | bits[1] | bits[2] | bits[3]) == 0;
+    }
+
+    /**
+     * Collects the slots the player to move can place a tile on.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param size The number of rows and columns of the board.
+     * @param moves Receives the valid moves.
+     */
+    static void moves(long[] own, long[] opponent, int size, long[] moves) {
+        long[] slots = SLOTS[size];
+        long[] inner = INNER_COLUMNS[size];
+        long[] empty = new long[WORDS];
+        long[] between = new long[WORDS];
+        long[] run = new long[WORDS];
+        long[] next = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            empty[w] = slots[w] & ~(own[w] | opponent[w]);
+            moves[w] = 0;
+        }
+        for (int d = 0; d < SHIFTS.length; d++) {
+            int shift = SHIFTS[d];
+
+            // Runs along a row must not wrap around into the next one.
+            long[] allowed = shift == STRIDE || shift == -STRIDE ? slots
+                    : inner;
+            for (int w = 0; w < WORDS; w++) {
+                between[w] = opponent[w] & allowed[w];
+            }
+            shift(own, shift, run);
+            long any = 0;
+            for (int w = 0; w < WORDS; w++) {
+                run[w] &= between[w];
+                any |= run[w];
+            }
+
+            // Follow runs of up to size - 2 opponent tiles.
+            for (int k = 2; k < size - 1 && any != 0; k++) {
+                shift(run, shift, next);
+                for (int w = 0; w < WORDS; w++) {
+                    run[w] |= next[w] & between[w];
+                }
+            }
+            if (any != 0) {
+                shift(run, shift, next);
+                for (int w = 0; w < WORDS; w++) {
+                    moves[w] |= next[w] & empty[w];
+                }
+            }
+        }
+    }
+
+    /**
+     * Shifts all bits by a distance.
+     *
+     * @param bits The bit set.
+     * @param shift The distance, positive towards higher bits, at most 63.
+     * @param result Receives the shifted bits. Bits shifted beyond either
+     *        end are dropped.
+     */
+    private static void shift(long[] bits, int shift, long[] result) {
+        if (shift > 0) {
+            for (int w = WORDS - 1; w > 0; w--) {
+                result[w] = bits[w] << shift | bits[w - 1] >>> (64 - shift);
+            }
+            result[0] = bits[0] << shift;
+        } else {
+            int distance = -shift;
+            for (int w = 0; w < WORDS - 1; w++) {
+                result[w] = bits[w] >>> distance
+                        | bits[w + 1] << (64 - distance);
+            }
+            result[WORDS - 1] = bits[WORDS - 1] >>> distance;
+        }
+    }
+
+    /**
+     * Compares the move generation with a slot-by-slot search on positions
+     * of random games of every board size and prints the positions per
+     * second of both as JSON, one line per size. The program exits with
+     * status 1 if any move differs.
+     *
+     * @param args Optionally the number of games per size (default 200).
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int mismatches = 0;
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size += 2) {
+            Random random = new Random(size);
+            int capacity = games * size * size;
+            long[][] human = new long[capacity][];
+            long[][] machine = new long[capacity][];
+            int count = 0;
+            for (int game = 0; game < games; game++) {
+                ReversiBoard board = new ReversiBoard(size);
+                while (!board.gameOver()) {
+                    int[] legal = board.legalMoves();
+                    int move = legal[random.nextInt(legal.length)];
+                    board = board.play(move / size, move % size);
+                    human[count] = board.wideBits(Player.HUMAN);
+                    machine[count] = board.wideBits(Player.COMPUTER);
+                    count++;
+                }
+            }
+            long[] moves = new long[WORDS];
+            long[] expected = new long[WORDS];
+            long wideNanos = Long.MAX_VALUE;
+            long slotNanos = Long.MAX_VALUE;
+            long sink = 0;
+
+            // The best of several rounds, the first ones warm up.
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    moves(human[i], machine[i], size, moves);
+                    sink += moves[0];
+                }
+                wideNanos = Math.min(wideNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    slotMoves(human[i], machine[i], size, expected);
+                    sink += expected[0];
+                }
+                slotNanos = Math.min(slotNanos, System.nanoTime() - start);
+            }
+            for (int i = 0; i < count; i++) {
+                moves(human[i], machine[i], size, moves);
+                slotMoves(human[i], machine[i], size, expected);
+                for (int w = 0; w < WORDS; w++) {
+                    if (moves[w] != expected[w]) {
+                        mismatches++;
+                        break;
+                    }
+                }
+            }
+            System.out.println(String.format(Locale.ROOT,
+                    "{\"size\": %d, \"positions\": %d, "
+                            + "\"bitSetPerSecond\": %.0f, "
+                            + "\"slotsPerSecond\": %.0f, \"check\": %d}",
+                    size, count, count * 1e9 / Math.max(1, wideNanos),
+                    count * 1e9 / Math.max(1, slotNanos), sink & 1));
+        }
+        System.out.println("{\"mismatches\": " + mismatches + "}");
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Collects the valid moves by walking from every empty slot in every
+     * direction, as reference for {@link #moves}.
+     *
+     * @param own The tiles of the player to move.
+     * @param opponent The tiles of the opponent.
+     * @param size The number of rows and columns of the board.
+     * @param moves Receives the valid moves.
+     */
+    private static void slotMoves(long[] own, long[] opponent, int size,
+                                  long[] moves) {
+        Arrays.fill(moves, 0);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (get(own, row, col) || get(opponent, row, col)) {
+                    continue;
+                }
+                for (Directions direction: Directions.values()) {
+                    int r = row + direction.getRow();
+                    int c = col + direction.getColumn();
+                    int run = 0;
+                    while (r >= 0 && r < size && c >= 0 && c < size
+                            && get(opponent, r, c)) {
+                        r += direction.getRow();
+                        c += direction.getColumn();
+                        run++;
+                    }
+                    if (run > 0 && r >= 0 && r < size && c >= 0 && c < size
+                            && get(own, r, c)) {
+                        set(moves, square(row, col));
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks a slot of a bit set.
+     *
+     * @param bits The bit set.
+     * @param row The row of the slot.
+     * @param col The column of the slot.
+     * @return {@code true} if the bit of the slot is set.
+     */
+    private static boolean get(long[] bits, int row, int col) {
+        int square = square(row, col);
+        return (bits[square >>> 6] & 1L << square) != 0;
+    }
+}
@@ -0,0 +1,100 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of Reversi positions. The hash of a board
+ * is the XOR of the keys of all occupied slots and, if the machine is to
+ * move, of the side key. Boards of other sizes than the standard one also
+ * add a key of their size, so equal slot numbers of different sizes do not
+ * collide.
+ */
+final class Zobrist {
+
+    /**
+     * Fixed seed, so hashes are the same in every run of the program.
+     */
+    private static final long SEED = 0x5EED_0F_07E1L;
+
+    /**
+     * Keys of human tiles, indexed by {@code row * size + column}.
+     */
+    private static final long[] HUMAN_KEYS
+            = new long[Board.MAX_SIZE * Board.MAX_SIZE];
+
+    /**
+     * Keys of machine tiles, indexed by {@code row * size + column}.
+     */
+    private static final long[] COMPUTER_KEYS
+            = new long[Board.MAX_SIZE * Board.MAX_SIZE];
+
+    /**
+     * Keys of the board sizes, 0 for the standard size.
+     */
+    private static final long[] SIZE_KEYS = new long[Board.MAX_SIZE + 1];
+
+    /**
+     * Key which is added if the machine is to move.
+     */
+    private static final long COMPUTER_TO_MOVE;
+
+    static {
+        Random random = new Random(SEED);
+
+        // The keys of the standard board come first, so its hashes stay
+        // the same as before larger boards were supported.
+        int standard = Board.SIZE * Board.SIZE;
+        for (int i = 0; i < standard; i++) {
+            HUMAN_KEYS[i] = random.nextLong();
+            COMPUTER_KEYS[i] = random.nextLong();
+        }
+        COMPUTER_TO_MOVE = random.nextLong();
+        for (int i = standard; i < HUMAN_KEYS.length; i++) {
+            HUMAN_KEYS[i] = random.nextLong();
+            COMPUTER_KEYS[i] = random.nextLong();
+        }
+        for (int size = 0; size < SIZE_KEYS.length; size++) {
+            if (size != Board.SIZE) {
+                SIZE_KEYS[size] = random.nextLong();
+            }
+        }
+    }
+
+    // Allow no instances of this utility class.
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a tile.
+     *
+     * @param square The slot, encoded as {@code row * size + column}.
+     * @param player The owner of the tile, human or computer.
+     * @return The random key of the tile.
+     */
+    static long tile(int square, Player player) {
+        if (player == Player.HUMAN) {
+            return HUMAN_KEYS[square];
+        } else {
+            return COMPUTER_KEYS[square];
+        }
+    }
+
+    /**
+     * Gets the key of a board size.
+     *
+     * @param size The number of rows and columns.
+     * @return The random key of the size, 0 for the standard size.
+     */
+    static long size(int size) {
+        return SIZE_KEYS[size];
+    }
+
+    /**
+     * Gets the key which is added if the machine is to move.
+     *
+     * @return The random side key.
+     */
+    static long computerToMove() {
+        return COMPUTER_TO_MOVE;
+    }
+}
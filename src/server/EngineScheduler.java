@@ -0,0 +1,352 @@
+package server;
+
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import model.ReversiBoard;
+
+import java.io.Closeable;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues machine searches of many sessions and executes them on a fixed
+ * number of worker threads. Each level has a time budget. Requests are
+ * executed in the order of their deadlines, i.e., enqueue time plus budget,
+ * so short, interactive searches overtake long ones without starving them.
+ * If the queue is full, new requests are rejected. Under overload, i.e., if
+ * the queue is longer than the number of workers or a request waited longer
+ * than its budget, the search depth is reduced step by step instead.
+ */
+public final class EngineScheduler implements Closeable {
+
+    /**
+     * Time budgets in milliseconds, indexed by level. Searches use iterative
+     * deepening and stop as soon as their budget is used up.
+     */
+    private static final long[] BUDGET_MILLIS = {0, 50, 100, 250, 1000, 3000};
+
+    /**
+     * The times requests of all schedulers waited in the queue.
+     */
+    private static final Histogram WAIT_DURATION = MetricsRegistry
+            .getDefault().histogram("reversi_scheduler_wait_seconds",
+                    "Time machine searches waited for a worker.");
+
+    /**
+     * The schedulers that are not closed yet, whose queued requests the
+     * queue depth gauge adds up.
+     */
+    private static final Set<EngineScheduler> OPEN
+            = ConcurrentHashMap.newKeySet();
+
+    static {
+        MetricsRegistry.getDefault().gauge("reversi_scheduler_queue_depth",
+                "Machine searches waiting for a worker.",
+                EngineScheduler::totalQueueDepth);
+    }
+
+    /**
+     * A queue longer than the number of workers times this factor counts as
+     * overload.
+     */
+    private static final int OVERLOAD_FACTOR = 2;
+
+    /**
+     * The queued requests, ordered by their deadlines.
+     */
+    private final PriorityBlockingQueue<Request> queue
+            = new PriorityBlockingQueue<>();
+
+    /**
+     * The threads executing the searches.
+     */
+    private final Thread[] workers;
+
+    /**
+     * The maximum number of queued requests.
+     */
+    private final int capacity;
+
+    /**
+     * Gives every request a sequence number to keep the order of requests
+     * with equal deadlines.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The number of queued requests. Unlike {@code queue.size()}, this is
+     * incremented before a request is added, so the capacity holds exactly.
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    /**
+     * The number of executed searches.
+     */
+    private final AtomicLong executed = new AtomicLong();
+
+    /**
+     * The number of rejected requests.
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The number of searches executed with a reduced depth.
+     */
+    private final AtomicLong degraded = new AtomicLong();
+
+    /**
+     * The times requests waited in the queue. Guarded by itself.
+     */
+    private final LatencyStats waitTimes = new LatencyStats();
+
+    /**
+     * Whether {@link #close()} was called.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a new scheduler and starts its workers.
+     *
+     * @param threads The number of worker threads.
+     * @param capacity The maximum number of queued requests.
+     */
+    public EngineScheduler(int threads, int capacity) {
+        this.capacity = capacity;
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::work, "engine-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        OPEN.add(this);
+    }
+
+    /**
+     * Queues a machine move of a board. The search depth is the board's
+     * level, or less under overload.
+     *
+     * @param board The board, on which the machine is to move.
+     * @return The future board with the move executed. If the scheduler is
+     *         closed before the search ends, it fails with a
+     *         {@link RejectedExecutionException}.
+     * @throws RejectedExecutionException If the queue is full or the
+     *         scheduler is closed.
+     * @throws IllegalArgumentException If the board's level is not between 1
+     *         and 5.
+     */
+    public CompletableFuture<ReversiBoard> machineMove(ReversiBoard board) {
+        int level = board.getLevel();
+        if (level < 1 || level >= BUDGET_MILLIS.length) {
+            throw new IllegalArgumentException("Level must be between 1 and "
+                    + (BUDGET_MILLIS.length - 1));
+        }
+        if (closed) {
+            throw new RejectedExecutionException("Scheduler closed");
+        }
+        if (queueDepth.incrementAndGet() > capacity) {
+            queueDepth.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Server overloaded");
+        }
+        Request request = new Request(board, level, sequence.getAndIncrement());
+        queue.add(request);
+        if (closed) {
+            // close() may have drained the queue before the request arrived.
+            rejectQueued();
+        }
+        return request.result;
+    }
+
+    /**
+     * Gets the number of queued requests.
+     *
+     * @return The current queue depth.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets a one line summary of the scheduler's state and history.
+     *
+     * @return Whitespace separated key=value pairs.
+     */
+    public String getStats() {
+        String waits;
+        synchronized (waitTimes) {
+            waits = String.format(Locale.ROOT,
+                    "wait_mean_ms=%.3f wait_p99_ms=%.3f wait_max_ms=%.3f",
+                    waitTimes.getMeanMillis(),
+                    waitTimes.getPercentileMillis(99),
+                    waitTimes.getMaxMillis());
+        }
+        return "queue=" + queueDepth.get() + " executed=" + executed.get()
+                + " rejected=" + rejected.get() + " degraded="
+                + degraded.get() + " " + waits;
+    }
+
+    /**
+     * Stops the workers. Queued requests are not executed anymore but fail
+     * like the running searches, and new requests are rejected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        OPEN.remove(this);
+        for (Thread worker: workers) {
+            worker.interrupt();
+        }
+        rejectQueued();
+    }
+
+    /**
+     * Removes all queued requests and lets them fail.
+     */
+    private void rejectQueued() {
+        Request request;
+        while ((request = queue.poll()) != null) {
+            queueDepth.decrementAndGet();
+            request.result.completeExceptionally(
+                    new RejectedExecutionException("Scheduler closed"));
+        }
+    }
+
+    /**
+     * Adds up the queued requests of all open schedulers.
+     *
+     * @return The total queue depth.
+     */
+    private static long totalQueueDepth() {
+        long total = 0;
+        for (EngineScheduler scheduler: OPEN) {
+            total += scheduler.queueDepth.get();
+        }
+        return total;
+    }
+
+    /**
+     * Executes queued requests until the worker is interrupted.
+     */
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Request request;
+            try {
+                request = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queueDepth.decrementAndGet();
+            long waited = System.nanoTime() - request.enqueued;
+            synchronized (waitTimes) {
+                waitTimes.record(waited);
+            }
+            WAIT_DURATION.record(waited);
+            int depth = depth(request.level, waited);
+            if (depth < request.level) {
+                degraded.incrementAndGet();
+            }
+            try {
+                request.result.complete(request.board.machineMove(depth,
+                        BUDGET_MILLIS[depth], null));
+            } catch (RuntimeException e) {
+                // A search interrupted by close() fails like queued ones.
+                request.result.completeExceptionally(closed
+                        ? new RejectedExecutionException("Scheduler closed")
+                        : e);
+            }
+            executed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Determines the search depth of a request. The depth is reduced by one
+     * if the scheduler is overloaded and by one if the request waited longer
+     * than the budget of its level.
+     *
+     * @param level The level of the request.
+     * @param waitedNanos The time the request waited in the queue.
+     * @return The depth between 1 and the level.
+     */
+    private int depth(int level, long waitedNanos) {
+        int depth = level;
+        if (queueDepth.get() > workers.length * OVERLOAD_FACTOR) {
+            depth--;
+        }
+        if (waitedNanos / 1_000_000L > BUDGET_MILLIS[level]) {
+            depth--;
+        }
+        return Math.max(1, depth);
+    }
+
+    /**
+     * A queued machine move.
+     */
+    private static final class Request implements Comparable<Request> {
+
+        /**
+         * The board, on which the machine is to move.
+         */
+        private final ReversiBoard board;
+
+        /**
+         * The requested level.
+         */
+        private final int level;
+
+        /**
+         * The sequence number of the request.
+         */
+        private final long number;
+
+        /**
+         * The time the request was queued.
+         */
+        private final long enqueued = System.nanoTime();
+
+        /**
+         * The time the search should be finished.
+         */
+        private final long deadline;
+
+        /**
+         * Is completed by the worker with the new board.
+         */
+        private final CompletableFuture<ReversiBoard> result
+                = new CompletableFuture<>();
+
+        /**
+         * Creates a new request.
+         *
+         * @param board The board, on which the machine is to move.
+         * @param level The requested level between 1 and 5.
+         * @param number The sequence number.
+         */
+        private Request(ReversiBoard board, int level, long number) {
+            this.board = board;
+            this.level = level;
+            this.number = number;
+            deadline = enqueued + BUDGET_MILLIS[level] * 1_000_000L;
+        }
+
+        /**
+         * Orders requests by deadline and sequence number.
+         *
+         * @param other Another request.
+         * @return A negative value if {@code this} is to be executed first.
+         */
+        @Override
+        public int compareTo(Request other) {
+            int order = Long.compare(deadline - other.deadline, 0);
+            if (order == 0) {
+                order = Long.compare(number, other.number);
+            }
+            return order;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package server;
+
+import metrics.Gauge;
+import metrics.MetricsRegistry;
+import metrics.MetricsServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless server hosting many concurrent games. Clients connect via TCP
+ * on the loopback interface and send one command per line, see
+ * {@link GameSession#execute(String)}; {@code QUIT} closes the connection.
+ * Every connection is served by its own thread, which is a virtual thread if
+ * the Java runtime supports them. Machine searches are queued at an
+ * {@link EngineScheduler}, usually with one thread per processor, so the
+ * number of connections does not influence the CPU load of the engine.
+ */
+public final class GameServer implements Closeable {
+
+    /**
+     * The port used if none is given on the command line.
+     */
+    private static final int DEFAULT_PORT = 7777;
+
+    /**
+     * The number of open sessions of all servers in this process.
+     */
+    private static final Gauge ACTIVE_GAMES = MetricsRegistry.getDefault()
+            .gauge("reversi_active_games", "Open game sessions.");
+
+    /**
+     * The socket accepting new connections.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * The maximum number of queued machine searches per engine thread.
+     */
+    private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
+    /**
+     * The scheduler executing the machine searches of all sessions.
+     */
+    private final EngineScheduler engine;
+
+    /**
+     * Creates the threads serving the connections.
+     */
+    private final ThreadFactory connectionThreads;
+
+    /**
+     * The sockets of all open connections, closed on shutdown.
+     */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of sessions opened so far, used as session id.
+     */
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+
+    /**
+     * Creates a new server listening on the loopback interface. Call
+     * {@link #start()} to accept connections.
+     *
+     * @param port The port to listen on, 0 for any free port.
+     * @param engineThreads The number of threads executing machine searches.
+     * @throws IOException If the port cannot be bound.
+     */
+    public GameServer(int port, int engineThreads) throws IOException {
+        serverSocket = new ServerSocket(port, 0,
+                InetAddress.getLoopbackAddress());
+        engine = new EngineScheduler(engineThreads,
+                engineThreads * QUEUE_CAPACITY_PER_THREAD);
+        connectionThreads = connectionThreadFactory();
+    }
+
+    /**
+     * Starts the server in a new thread and returns immediately.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptConnections,
+                "game-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the server is listening on.
+     *
+     * @return The local port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections, closes all open ones and stops the engine
+     * scheduler.
+     *
+     * @throws IOException If the server socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket: connections) {
+            socket.close();
+        }
+        engine.close();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                connectionThreads.newThread(() -> serve(socket)).start();
+            } catch (SocketException e) {
+                // The server socket was closed.
+                return;
+            } catch (IOException e) {
+                System.err.println("Error! " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Executes the commands of one connection until the client quits or
+     * disconnects, and prints the latencies of its session afterwards.
+     *
+     * @param socket The socket of the connection.
+     */
+    private void serve(Socket socket) {
+        int id = sessionCounter.incrementAndGet();
+        GameSession session = new GameSession(engine);
+        ACTIVE_GAMES.increment();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().toUpperCase().startsWith("Q")) {
+                    out.write("OK Bye");
+                    out.newLine();
+                    out.flush();
+                    break;
+                }
+                out.write(session.execute(line));
+                out.newLine();
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client disconnected, nothing left to do.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ACTIVE_GAMES.decrement();
+            connections.remove(socket);
+            System.out.println("session=" + id + " "
+                    + session.getLatencies());
+        }
+    }
+
+    /**
+     * Gets a factory for virtual threads if the runtime supports them, i.e.,
+     * on Java 21 and newer, and for daemon platform threads otherwise.
+     *
+     * @return The factory for connection threads.
+     */
+    private static ThreadFactory connectionThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Starts a server and keeps it running until the process is killed.
+     *
+     * @param args Optionally the port, the number of engine threads and the
+     *        port of the metrics endpoint.
+     * @throws IOException If the port cannot be bound.
+     * @throws InterruptedException If the main thread is interrupted.
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        int port = DEFAULT_PORT;
+        int engineThreads = Runtime.getRuntime().availableProcessors();
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            engineThreads = Integer.parseInt(args[1]);
+        }
+        GameServer server = new GameServer(port, engineThreads);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+        if (args.length > 2) {
+            MetricsServer metrics = new MetricsServer(
+                    Integer.parseInt(args[2]), MetricsRegistry.getDefault());
+            System.out.println("Serving metrics on http://localhost:"
+                    + metrics.getPort() + "/metrics");
+        }
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,212 @@
+package server;
+
+import model.IllegalMoveException;
+import model.Player;
+import model.ReversiBoard;
+import model.TranspositionTable;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One game of a client connected to the {@link GameServer}. A session
+ * executes the commands of its client one after another, like the
+ * {@code Shell} does, but answers with exactly one line per command, which
+ * is easy to parse by programs. Machine moves are not searched on the
+ * connection's thread but queued at the engine scheduler of the server.
+ */
+final class GameSession {
+
+    /**
+     * The scheduler executing the machine searches of all sessions.
+     */
+    private final EngineScheduler engine;
+
+    /**
+     * Latencies of the commands of this session.
+     */
+    private final LatencyStats latencies = new LatencyStats();
+
+    /**
+     * The current board of this session.
+     */
+    private ReversiBoard board = new ReversiBoard();
+
+    /**
+     * Creates a new session with a new game where the human starts.
+     *
+     * @param engine The scheduler executing machine searches.
+     */
+    GameSession(EngineScheduler engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Gets the latencies of all commands of this session.
+     *
+     * @return The latency statistics.
+     */
+    LatencyStats getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Executes one command line of the client and returns the answer. The
+     * commands are the ones of the shell: {@code NEW}, {@code MOVE row col},
+     * {@code LEVEL i}, {@code SWITCH} and {@code PRINT}, plus {@code STATS}
+     * for the latencies of this session and the state of the scheduler. As
+     * in the shell, only the first character of the other commands matters.
+     * A command answered with {@code ERR} leaves the game unchanged, even if
+     * it failed after the human's move, e.g., because the server was
+     * overloaded.
+     *
+     * @param input The command line.
+     * @return A line starting with {@code OK} or {@code ERR}.
+     * @throws InterruptedException If the thread was interrupted while
+     *         waiting for a machine move.
+     */
+    String execute(String input) throws InterruptedException {
+        long start = System.nanoTime();
+        String[] tokens = input.trim().split("\\s+");
+        if (tokens[0].isEmpty()) {
+            return "ERR Empty command";
+        }
+        if (tokens[0].equalsIgnoreCase("STATS")) {
+            return "OK " + latencies + " " + engine.getStats();
+        }
+        String answer;
+        ReversiBoard before = board;
+        try {
+            answer = execute(Character.toUpperCase(tokens[0].charAt(0)),
+                    tokens);
+        } catch (NumberFormatException e) {
+            answer = "ERR Arguments must be integers";
+        } catch (IllegalMoveException | IllegalArgumentException
+                | RejectedExecutionException e) {
+            board = before;
+            answer = "ERR " + e.getMessage();
+        } catch (ExecutionException e) {
+            board = before;
+            answer = "ERR Machine move failed";
+        }
+        latencies.record(System.nanoTime() - start);
+        return answer;
+    }
+
+    /**
+     * Executes a parsed command.
+     *
+     * @param command The first character of the command.
+     * @param tokens The whitespace separated tokens of the command line.
+     * @return The answer to the client.
+     * @throws InterruptedException If the thread was interrupted while
+     *         waiting for a machine move.
+     * @throws ExecutionException If a machine move failed.
+     */
+    private String execute(char command, String[] tokens)
+            throws InterruptedException, ExecutionException {
+        switch (command) {
+        case 'M':
+            if (tokens.length != 3) {
+                return "ERR Usage: MOVE row column";
+            }
+            return move(Integer.parseInt(tokens[1]) - 1,
+                    Integer.parseInt(tokens[2]) - 1);
+        case 'L':
+            if (tokens.length != 2) {
+                return "ERR Usage: LEVEL i";
+            }
+            int level = Integer.parseInt(tokens[1]);
+            if (level > 5 || level < 1) {
+                return "ERR Enter a level between 1 and 5";
+            }
+            board.setLevel(level);
+            return state();
+        case 'N':
+            TranspositionTable.newGame();
+            board = new ReversiBoard(board, board.getFirstPlayer());
+            machineMoves();
+            return state();
+        case 'S':
+            TranspositionTable.newGame();
+            if (board.getFirstPlayer() == Player.HUMAN) {
+                board = new ReversiBoard(board, Player.COMPUTER);
+            } else {
+                board = new ReversiBoard(board, Player.HUMAN);
+            }
+            machineMoves();
+            return state();
+        case 'P':
+            return state();
+        default:
+            return "ERR Invalid command";
+        }
+    }
+
+    /**
+     * Executes a human move and afterwards all machine moves until the human
+     * is to move again or the game is over.
+     *
+     * @param row Row index of the move, starting at 0.
+     * @param column Column index of the move, starting at 0.
+     * @return The answer to the client.
+     * @throws InterruptedException If the thread was interrupted while
+     *         waiting for a machine move.
+     * @throws ExecutionException If a machine move failed.
+     */
+    private String move(int row, int column)
+            throws InterruptedException, ExecutionException {
+        if (board.gameOver()) {
+            return "ERR The game is over";
+        }
+        if (board.next() == Player.HUMAN) {
+            ReversiBoard newBoard = board.move(row, column);
+            if (newBoard == null) {
+                return "ERR Invalid move at (" + (row + 1) + ", "
+                        + (column + 1) + ")";
+            }
+            board = newBoard;
+        }
+        machineMoves();
+        return state();
+    }
+
+    /**
+     * Lets the engine scheduler execute machine moves as long as it is the
+     * machine's turn.
+     *
+     * @throws InterruptedException If the thread was interrupted while
+     *         waiting for a machine move.
+     * @throws ExecutionException If a machine move failed.
+     */
+    private void machineMoves()
+            throws InterruptedException, ExecutionException {
+        while (!board.gameOver() && board.next() == Player.COMPUTER) {
+            board = engine.machineMove(board).get();
+        }
+    }
+
+    /**
+     * Describes the current game as one line. It contains the slots row by
+     * row as in {@code ReversiBoard.toString()} but without separators, the
+     * player to move, the number of human and machine tiles and the winner,
+     * if the game is over.
+     *
+     * @return The answer to the client.
+     */
+    private String state() {
+        StringBuilder bob = new StringBuilder("OK ");
+        for (char c: board.toString().toCharArray()) {
+            if (c == '.' || c == 'X' || c == 'O') {
+                bob.append(c);
+            }
+        }
+        bob.append(' ').append(board.next())
+                .append(' ').append(board.getNumberOfHumanTiles())
+                .append(' ').append(board.getNumberOfMachineTiles());
+        if (board.gameOver()) {
+            bob.append(" OVER ").append(board.getWinner());
+        }
+        return bob.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package server;
+
+import java.util.Locale;
+
+/**
+ * Records the latencies of requests and summarises them by count, mean,
+ * maximum and approximate percentiles. Latencies are counted in buckets
+ * whose bounds grow by a factor of two, starting at one microsecond, so the
+ * memory needed does not depend on the number of requests. Instances are not
+ * thread-safe.
+ */
+final class LatencyStats {
+
+    /**
+     * The number of buckets. The last one covers everything above about
+     * 35 minutes.
+     */
+    private static final int BUCKETS = 32;
+
+    /**
+     * Number of latencies per bucket. Bucket i counts latencies below
+     * {@code 2^i} microseconds which do not fit into bucket i - 1.
+     */
+    private final long[] buckets = new long[BUCKETS];
+
+    /**
+     * The number of recorded latencies.
+     */
+    private long count;
+
+    /**
+     * The sum of all recorded latencies in nanoseconds.
+     */
+    private long totalNanos;
+
+    /**
+     * The highest recorded latency in nanoseconds.
+     */
+    private long maxNanos;
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(
+                micros));
+        buckets[bucket]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The number of requests.
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean latency.
+     *
+     * @return The mean in milliseconds, 0 if nothing was recorded.
+     */
+    double getMeanMillis() {
+        if (count == 0) {
+            return 0;
+        }
+        return totalNanos / 1e6 / count;
+    }
+
+    /**
+     * Gets the highest latency.
+     *
+     * @return The maximum in milliseconds.
+     */
+    double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * Gets an upper bound of a percentile, i.e., the upper bound of the
+     * bucket containing it. The result is at most twice the exact value.
+     *
+     * @param percentile The percentile between 0 and 100.
+     * @return The upper bound in milliseconds, 0 if nothing was recorded.
+     */
+    double getPercentileMillis(double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min((1L << i) / 1e3, getMaxMillis());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets a one line summary of the recorded latencies.
+     *
+     * @return Whitespace separated key=value pairs.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "requests=%d mean_ms=%.3f p50_ms=%.3f p99_ms=%.3f "
+                        + "max_ms=%.3f", count, getMeanMillis(),
+                getPercentileMillis(50), getPercentileMillis(99),
+                getMaxMillis());
+    }
+}
@@ -0,0 +1,446 @@
+package server;
+
+import model.Player;
+import model.ReversiBoard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates many human players to measure how many concurrent games a host
+ * sustains. Each player plays whole games, either against the engine in this
+ * process or against a {@link GameServer}, choosing random legal moves or
+ * moves from a script. The latencies of the machine's answers are broken down
+ * by level and game phase and printed as one JSON object.
+ *
+ * <p>Options: {@code --games n}, {@code --concurrency n}, {@code --rate
+ * moves per second} (0 for unlimited), {@code --levels 1,3,5},
+ * {@code --seed n}, {@code --script file} with one game per line as
+ * whitespace separated {@code row,column} pairs, and {@code --server
+ * host:port} to play against a server instead of the engine in this
+ * process.
+ */
+public final class LoadGenerator {
+
+    /**
+     * Games with at most this many tiles on the board are in the opening.
+     */
+    private static final int OPENING_TILES = 20;
+
+    /**
+     * Games with more than this many tiles on the board are in the endgame.
+     */
+    private static final int ENDGAME_TILES = 44;
+
+    /**
+     * The number of games to be played.
+     */
+    private int games = 100;
+
+    /**
+     * The number of games played at the same time.
+     */
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of human moves per second of all players, 0 for no
+     * limit.
+     */
+    private double rate;
+
+    /**
+     * The levels of the games, used in turn.
+     */
+    private int[] levels = {3};
+
+    /**
+     * The seed of the random move choices.
+     */
+    private long seed = 1;
+
+    /**
+     * Scripted games, each as a list of encoded moves. Empty for random
+     * players.
+     */
+    private final List<int[]> scripts = new ArrayList<>();
+
+    /**
+     * The host of the server, {@code null} to play in this process.
+     */
+    private String host;
+
+    /**
+     * The port of the server.
+     */
+    private int port;
+
+    /**
+     * Recorded latencies in nanoseconds, by level and phase. Guarded by
+     * itself.
+     */
+    private final Map<String, List<Long>> latencies = new TreeMap<>();
+
+    /**
+     * The number of human moves played by all players.
+     */
+    private final AtomicLong moves = new AtomicLong();
+
+    /**
+     * The number of games which failed, e.g., because of a rejected request.
+     */
+    private final AtomicInteger errors = new AtomicInteger();
+
+    /**
+     * The start time of the test as given by {@link System#nanoTime()}.
+     */
+    private long start;
+
+    /**
+     * The number of human move slots handed out by the rate limiter.
+     */
+    private final AtomicLong slots = new AtomicLong();
+
+    // Instances are created by the main method only.
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs a load test with the given options and prints the results.
+     *
+     * @param args The options, see the class description.
+     * @throws IOException If the script cannot be read.
+     * @throws InterruptedException If the main thread is interrupted.
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            generator.setOption(args[i], args[i + 1]);
+        }
+        generator.run();
+    }
+
+    /**
+     * Sets an option from the command line.
+     *
+     * @param name The name of the option, e.g., {@code --games}.
+     * @param value The value of the option.
+     * @throws IOException If a script cannot be read.
+     */
+    private void setOption(String name, String value) throws IOException {
+        switch (name) {
+        case "--games":
+            games = Integer.parseInt(value);
+            break;
+        case "--concurrency":
+            concurrency = Integer.parseInt(value);
+            break;
+        case "--rate":
+            rate = Double.parseDouble(value);
+            break;
+        case "--levels":
+            levels = Arrays.stream(value.split(","))
+                    .mapToInt(Integer::parseInt).toArray();
+            break;
+        case "--seed":
+            seed = Long.parseLong(value);
+            break;
+        case "--script":
+            for (String line: Files.readAllLines(Paths.get(value))) {
+                if (!line.isBlank()) {
+                    scripts.add(parseScript(line));
+                }
+            }
+            break;
+        case "--server":
+            host = value.substring(0, value.lastIndexOf(':'));
+            port = Integer.parseInt(value.substring(
+                    value.lastIndexOf(':') + 1));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    /**
+     * Parses one scripted game.
+     *
+     * @param line Whitespace separated {@code row,column} pairs, starting at
+     *        1 as in the shell.
+     * @return The encoded moves.
+     */
+    private static int[] parseScript(String line) {
+        String[] pairs = line.trim().split("\\s+");
+        int[] script = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            String[] coordinates = pairs[i].split(",");
+            script[i] = (Integer.parseInt(coordinates[0]) - 1)
+                    * ReversiBoard.SIZE + Integer.parseInt(coordinates[1]) - 1;
+        }
+        return script;
+    }
+
+    /**
+     * Plays all games and prints the results.
+     *
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void run() throws InterruptedException {
+        ExecutorService players = Executors.newFixedThreadPool(concurrency);
+        start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            int game = i;
+            players.execute(() -> playGame(game));
+        }
+        players.shutdown();
+        players.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        printResults(System.nanoTime() - start);
+    }
+
+    /**
+     * Plays one game and records the latencies of the machine's answers.
+     *
+     * @param game The number of the game.
+     */
+    private void playGame(int game) {
+        int level = levels[game % levels.length];
+        Random random = new Random(seed + game);
+        int[] script = new int[0];
+        if (!scripts.isEmpty()) {
+            script = scripts.get(game % scripts.size());
+        }
+        try {
+            if (host == null) {
+                playLocal(level, random, script);
+            } else {
+                playRemote(level, random, script);
+            }
+        } catch (IOException | RuntimeException e) {
+            errors.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Plays one game against the engine in this process.
+     *
+     * @param level The level of the game.
+     * @param random The source of random moves.
+     * @param script The scripted moves of the human.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void playLocal(int level, Random random, int[] script)
+            throws InterruptedException {
+        ReversiBoard board = new ReversiBoard();
+        board.setLevel(level);
+        int turn = 0;
+        while (!board.gameOver()) {
+            if (board.next() == Player.HUMAN) {
+                int move = chooseMove(board, random, script, turn++);
+                awaitSlot();
+                board = board.move(move / ReversiBoard.SIZE,
+                        move % ReversiBoard.SIZE);
+                moves.incrementAndGet();
+            } else {
+                String key = key(level, board);
+                long before = System.nanoTime();
+                board = board.machineMove();
+                record(key, System.nanoTime() - before);
+            }
+        }
+    }
+
+    /**
+     * Plays one game against the server.
+     *
+     * @param level The level of the game.
+     * @param random The source of random moves.
+     * @param script The scripted moves of the human.
+     * @throws IOException If the connection fails or the server answers with
+     *         an error.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void playRemote(int level, Random random, int[] script)
+            throws IOException, InterruptedException {
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(),
+                     true, StandardCharsets.UTF_8)) {
+            request(in, out, "LEVEL " + level);
+            String state = request(in, out, "PRINT");
+            int turn = 0;
+            while (!state.contains(" OVER ")) {
+                String[] tokens = state.split(" ");
+                ReversiBoard board = ReversiBoard.parse(tokens[1],
+                        Player.valueOf(tokens[2]));
+                int move = chooseMove(board, random, script, turn++);
+                awaitSlot();
+                String key = key(level, board);
+                long before = System.nanoTime();
+                state = request(in, out, "MOVE "
+                        + (move / ReversiBoard.SIZE + 1) + " "
+                        + (move % ReversiBoard.SIZE + 1));
+                record(key, System.nanoTime() - before);
+                moves.incrementAndGet();
+            }
+            out.println("QUIT");
+        }
+    }
+
+    /**
+     * Sends a command to the server and waits for the answer.
+     *
+     * @param in The stream of answers.
+     * @param out The stream of commands.
+     * @param command The command.
+     * @return The answer starting with {@code OK}.
+     * @throws IOException If the connection fails or the server answers with
+     *         an error.
+     */
+    private static String request(BufferedReader in, PrintWriter out,
+                                  String command) throws IOException {
+        out.println(command);
+        String answer = in.readLine();
+        if (answer == null || !answer.startsWith("OK")) {
+            throw new IOException("Server answered " + answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Chooses the next human move, the scripted one if it is legal and a
+     * random one otherwise.
+     *
+     * @param board The board, on which the human is to move.
+     * @param random The source of random moves.
+     * @param script The scripted moves.
+     * @param turn The number of human moves played so far.
+     * @return The encoded move.
+     */
+    private static int chooseMove(ReversiBoard board, Random random,
+                                  int[] script, int turn) {
+        int[] legal = board.legalMoves();
+        if (turn < script.length) {
+            for (int move: legal) {
+                if (move == script[turn]) {
+                    return move;
+                }
+            }
+        }
+        return legal[random.nextInt(legal.length)];
+    }
+
+    /**
+     * Waits until the rate limit allows the next human move.
+     *
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private void awaitSlot() throws InterruptedException {
+        if (rate <= 0) {
+            return;
+        }
+        long due = start + (long) (slots.getAndIncrement() * 1e9 / rate);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Gets the key under which the latency of a machine answer is recorded.
+     *
+     * @param level The level of the game.
+     * @param board The board before the answer.
+     * @return The level and the game phase.
+     */
+    private static String key(int level, ReversiBoard board) {
+        int tiles = board.getNumberOfHumanTiles()
+                + board.getNumberOfMachineTiles();
+        String phase;
+        if (tiles <= OPENING_TILES) {
+            phase = "opening";
+        } else if (tiles <= ENDGAME_TILES) {
+            phase = "midgame";
+        } else {
+            phase = "endgame";
+        }
+        return level + " " + phase;
+    }
+
+    /**
+     * Records the latency of a machine answer.
+     *
+     * @param key The level and phase.
+     * @param nanos The latency in nanoseconds.
+     */
+    private void record(String key, long nanos) {
+        synchronized (latencies) {
+            latencies.computeIfAbsent(key, k -> new ArrayList<>()).add(nanos);
+        }
+    }
+
+    /**
+     * Prints the throughput and latency percentiles as one JSON object.
+     *
+     * @param elapsedNanos The duration of the test.
+     */
+    private void printResults(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder bob = new StringBuilder();
+        bob.append(String.format(Locale.ROOT, "{\"target\":\"%s\","
+                        + "\"games\":%d,\"concurrency\":%d,\"errors\":%d,"
+                        + "\"moves\":%d,\"seconds\":%.3f,"
+                        + "\"moves_per_second\":%.3f,\"latency\":[",
+                host == null ? "in-process" : host + ":" + port, games,
+                concurrency, errors.get(), moves.get(), seconds,
+                moves.get() / seconds));
+        String separator = "";
+        for (Map.Entry<String, List<Long>> entry: latencies.entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue)
+                    .sorted().toArray();
+            String[] key = entry.getKey().split(" ");
+            bob.append(separator).append(String.format(Locale.ROOT,
+                    "{\"level\":%s,\"phase\":\"%s\",\"count\":%d,"
+                            + "\"p50_ms\":%.3f,\"p95_ms\":%.3f,"
+                            + "\"p99_ms\":%.3f,\"max_ms\":%.3f}",
+                    key[0], key[1], sorted.length, percentile(sorted, 50),
+                    percentile(sorted, 95), percentile(sorted, 99),
+                    sorted[sorted.length - 1] / 1e6));
+            separator = ",";
+        }
+        bob.append("]}");
+        System.out.println(bob);
+    }
+
+    /**
+     * Gets a percentile of sorted latencies by the nearest rank method.
+     *
+     * @param sorted The latencies in ascending order.
+     * @param percentile The percentile between 0 and 100.
+     * @return The percentile in milliseconds.
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(sorted.length * percentile / 100.0);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+}
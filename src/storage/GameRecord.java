@@ -0,0 +1,208 @@
+package storage;
+
+import model.Board;
+import model.IllegalMoveException;
+import model.Player;
+import model.ReversiBoard;
+
+import java.util.Arrays;
+
+/**
+ * A complete or partial game in its compact form: the first player, the
+ * level and one byte per move. A move is encoded as
+ * {@code row * Board.SIZE + column}; a player missing a turn is recorded as
+ * {@link #PASS}, so the player of each move follows from the first player
+ * by alternation.
+ */
+public final class GameRecord {
+
+    /**
+     * The byte recorded when a player has to miss a turn.
+     */
+    public static final byte PASS = (byte) (Board.SIZE * Board.SIZE);
+
+    /**
+     * The maximum number of recorded moves including passes.
+     */
+    public static final int MAX_MOVES = 255;
+
+    /**
+     * The player who made the first move.
+     */
+    private final Player firstPlayer;
+
+    /**
+     * The level of the machine.
+     */
+    private final int level;
+
+    /**
+     * The encoded moves.
+     */
+    private final byte[] moves;
+
+    /**
+     * Creates a new record.
+     *
+     * @param firstPlayer The player who made the first move.
+     * @param level The level of the machine between 1 and 255.
+     * @param moves The encoded moves. The array is not copied.
+     * @throws IllegalArgumentException If the level or number of moves does
+     *         not fit into the format.
+     */
+    public GameRecord(Player firstPlayer, int level, byte[] moves) {
+        if (firstPlayer == Player.NOBODY) {
+            throw new IllegalArgumentException("Invalid first player");
+        }
+        if (level < 1 || level > 0xFF) {
+            throw new IllegalArgumentException("Invalid level " + level);
+        }
+        if (moves.length > MAX_MOVES) {
+            throw new IllegalArgumentException("Too many moves");
+        }
+        this.firstPlayer = firstPlayer;
+        this.level = level;
+        this.moves = moves;
+    }
+
+    /**
+     * Gets the player who made the first move.
+     *
+     * @return Human or computer.
+     */
+    public Player getFirstPlayer() {
+        return firstPlayer;
+    }
+
+    /**
+     * Gets the level of the machine.
+     *
+     * @return The level.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the number of recorded moves including passes.
+     *
+     * @return The number of moves.
+     */
+    public int getNumberOfMoves() {
+        return moves.length;
+    }
+
+    /**
+     * Gets an encoded move.
+     *
+     * @param index The number of the move, starting at 0.
+     * @return The move or {@link #PASS}.
+     */
+    public byte getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replays the game from the initial board and checks every move with
+     * the board's move logic.
+     *
+     * @return The board after the last move.
+     * @throws IllegalMoveException If a move is not valid, a pass is
+     *         recorded although the player could move, or a move is recorded
+     *         after the end of the game.
+     */
+    public ReversiBoard replay() {
+        return replay(null);
+    }
+
+    /**
+     * Replays the game like {@link #replay()} and informs a listener about
+     * every position.
+     *
+     * @param listener The listener, may be {@code null}.
+     * @return The board after the last move.
+     * @throws IllegalMoveException If a move is not valid, a pass is
+     *         recorded although the player could move, or a move is recorded
+     *         after the end of the game.
+     */
+    public ReversiBoard replay(ReplayListener listener) {
+        ReversiBoard board = new ReversiBoard(new ReversiBoard(),
+                firstPlayer);
+        board.setLevel(level);
+        Player expected = firstPlayer;
+        for (int i = 0; i < moves.length; i++) {
+            if (listener != null) {
+                listener.position(board, i, moves[i] & 0xFF);
+            }
+            Player next = board.next();
+            if (next == Player.NOBODY) {
+                throw new IllegalMoveException("Move " + (i + 1)
+                        + " after the end of the game");
+            }
+            if (moves[i] == PASS) {
+                if (next == expected) {
+                    throw new IllegalMoveException("Invalid pass at move "
+                            + (i + 1));
+                }
+            } else {
+                int move = moves[i] & 0xFF;
+                ReversiBoard newBoard = null;
+                if (next == expected && move < PASS) {
+                    newBoard = board.replay(move / Board.SIZE,
+                            move % Board.SIZE);
+                }
+                if (newBoard == null) {
+                    throw new IllegalMoveException("Invalid move " + move
+                            + " at move " + (i + 1));
+                }
+                board = newBoard;
+            }
+            expected = opponent(expected);
+        }
+        if (listener != null) {
+            listener.position(board, moves.length, -1);
+        }
+        return board;
+    }
+
+    /**
+     * Gets the opponent of a player.
+     *
+     * @param player Human or computer.
+     * @return The other player.
+     */
+    static Player opponent(Player player) {
+        if (player == Player.HUMAN) {
+            return Player.COMPUTER;
+        }
+        return Player.HUMAN;
+    }
+
+    /**
+     * Compares this record with another object.
+     *
+     * @param other Another object.
+     * @return {@code true} if and only if the other object is a record of
+     *         the same game.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GameRecord)) {
+            return false;
+        }
+        GameRecord record = (GameRecord) other;
+        return firstPlayer == record.firstPlayer && level == record.level
+                && Arrays.equals(moves, record.moves);
+    }
+
+    /**
+     * Gets a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return (firstPlayer.hashCode() * 31 + level) * 31
+                + Arrays.hashCode(moves);
+    }
+}
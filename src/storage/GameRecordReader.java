@@ -0,0 +1,206 @@
+package storage;
+
+import model.Player;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads game records sequentially, either from a buffered stream or from a
+ * memory-mapped file. Mapped files are read in windows of at most one
+ * gigabyte, so files of any size can be scanned.
+ */
+public final class GameRecordReader implements Closeable {
+
+    /**
+     * The size of the input buffer of streams in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The maximum size of a mapped window in bytes.
+     */
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    /**
+     * The maximum size of one game in bytes.
+     */
+    private static final int MAX_GAME_SIZE = 3 + GameRecord.MAX_MOVES;
+
+    /**
+     * The buffered source, {@code null} if a file is mapped.
+     */
+    private final InputStream in;
+
+    /**
+     * The mapped file, {@code null} if a stream is read.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The currently mapped window of the file.
+     */
+    private ByteBuffer window;
+
+    /**
+     * The position of the window in the file.
+     */
+    private long windowStart;
+
+    /**
+     * Reads games from a stream.
+     *
+     * @param stream The source, is closed with this reader.
+     * @throws IOException If the header is missing or cannot be read.
+     */
+    public GameRecordReader(InputStream stream) throws IOException {
+        in = new BufferedInputStream(stream, BUFFER_SIZE);
+        channel = null;
+        byte[] magic = new byte[GameRecordWriter.MAGIC.length];
+        for (int i = 0; i < magic.length; i++) {
+            magic[i] = (byte) readByte();
+        }
+        checkMagic(magic);
+    }
+
+    /**
+     * Reads games from a memory-mapped file.
+     *
+     * @param path The file.
+     * @throws IOException If the header is missing or cannot be read.
+     */
+    public GameRecordReader(Path path) throws IOException {
+        in = null;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        map(0);
+        byte[] magic = new byte[GameRecordWriter.MAGIC.length];
+        if (window.remaining() < magic.length) {
+            throw new IOException("Not a game record file");
+        }
+        window.get(magic);
+        checkMagic(magic);
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game or {@code null} if there are no more games.
+     * @throws IOException If the file is truncated or cannot be read.
+     */
+    public GameRecord next() throws IOException {
+        int flags;
+        if (in != null) {
+            flags = in.read();
+            if (flags < 0) {
+                return null;
+            }
+        } else {
+            if (window.remaining() < MAX_GAME_SIZE
+                    && windowStart + window.limit() < channel.size()) {
+                map(windowStart + window.position());
+            }
+            if (!window.hasRemaining()) {
+                return null;
+            }
+            flags = window.get() & 0xFF;
+        }
+        int level = readByte();
+        byte[] moves = new byte[readByte()];
+        if (in != null) {
+            readFully(moves);
+        } else {
+            if (window.remaining() < moves.length) {
+                throw new EOFException("Truncated game record");
+            }
+            window.get(moves);
+        }
+        Player first = Player.HUMAN;
+        if ((flags & GameRecordWriter.COMPUTER_FIRST) != 0) {
+            first = Player.COMPUTER;
+        }
+        return new GameRecord(first, level, moves);
+    }
+
+    /**
+     * Closes the source.
+     *
+     * @throws IOException If the source cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        } else {
+            channel.close();
+        }
+    }
+
+    /**
+     * Maps a window of the file.
+     *
+     * @param start The position of the window in the file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                Math.min(WINDOW_SIZE, channel.size() - start));
+    }
+
+    /**
+     * Reads one byte, which must exist.
+     *
+     * @return The byte as unsigned value.
+     * @throws IOException If the source ends or cannot be read.
+     */
+    private int readByte() throws IOException {
+        if (in != null) {
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException("Truncated game record");
+            }
+            return value;
+        }
+        if (!window.hasRemaining()) {
+            throw new EOFException("Truncated game record");
+        }
+        return window.get() & 0xFF;
+    }
+
+    /**
+     * Fills an array from the stream.
+     *
+     * @param bytes The array to be filled.
+     * @throws IOException If the stream ends or cannot be read.
+     */
+    private void readFully(byte[] bytes) throws IOException {
+        int read = 0;
+        while (read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated game record");
+            }
+            read += n;
+        }
+    }
+
+    /**
+     * Checks the magic bytes of the header.
+     *
+     * @param magic The first bytes of the source.
+     * @throws IOException If they are not the expected ones.
+     */
+    private static void checkMagic(byte[] magic) throws IOException {
+        if (!Arrays.equals(magic, GameRecordWriter.MAGIC)) {
+            throw new IOException("Not a game record file");
+        }
+    }
+}
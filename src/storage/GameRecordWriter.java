@@ -0,0 +1,119 @@
+package storage;
+
+import model.Player;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends game records to a file or stream. A file starts with the four
+ * magic bytes {@code RVG1}; each game consists of a flags byte (bit 0 set
+ * if the machine moved first), the level, the number of moves and one byte
+ * per move. Output is buffered, so millions of games can be written
+ * sequentially at disk speed.
+ */
+public final class GameRecordWriter implements Closeable {
+
+    /**
+     * The magic bytes at the start of a record file.
+     */
+    static final byte[] MAGIC = {'R', 'V', 'G', '1'};
+
+    /**
+     * The flag set if the machine made the first move.
+     */
+    static final int COMPUTER_FIRST = 1;
+
+    /**
+     * The size of the output buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The buffered destination.
+     */
+    private final OutputStream out;
+
+    /**
+     * Opens a file for appending games. The file is created with a header
+     * if it does not exist or is empty.
+     *
+     * @param path The file.
+     * @throws IOException If the file cannot be opened or is not empty and
+     *         does not start with the header of a record file.
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        boolean empty = !Files.exists(path) || Files.size(path) == 0;
+        if (!empty) {
+            byte[] magic;
+            try (InputStream in = Files.newInputStream(path)) {
+                magic = in.readNBytes(MAGIC.length);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a game record file");
+            }
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                BUFFER_SIZE);
+        if (empty) {
+            out.write(MAGIC);
+        }
+    }
+
+    /**
+     * Writes games to a stream, starting with the header.
+     *
+     * @param stream The destination, is closed with this writer.
+     * @throws IOException If the header cannot be written.
+     */
+    public GameRecordWriter(OutputStream stream) throws IOException {
+        out = new BufferedOutputStream(stream, BUFFER_SIZE);
+        out.write(MAGIC);
+    }
+
+    /**
+     * Appends a game.
+     *
+     * @param record The game.
+     * @throws IOException If the game cannot be written.
+     */
+    public void write(GameRecord record) throws IOException {
+        int flags = 0;
+        if (record.getFirstPlayer() == Player.COMPUTER) {
+            flags |= COMPUTER_FIRST;
+        }
+        out.write(flags);
+        out.write(record.getLevel());
+        out.write(record.getNumberOfMoves());
+        for (int i = 0; i < record.getNumberOfMoves(); i++) {
+            out.write(record.getMove(i));
+        }
+    }
+
+    /**
+     * Writes all buffered games to the destination.
+     *
+     * @throws IOException If the games cannot be written.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes all buffered games and closes the destination.
+     *
+     * @throws IOException If the games cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
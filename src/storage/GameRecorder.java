@@ -0,0 +1,126 @@
+package storage;
+
+import model.Board;
+import model.Player;
+
+import java.util.Arrays;
+
+/**
+ * Records a game while it is played by observing its boards. After every
+ * move, the new board is passed to {@link #update(Board)}, which finds the
+ * placed tile and inserts passes where a player had to miss a turn.
+ */
+public final class GameRecorder {
+
+    /**
+     * The player who made the first move.
+     */
+    private final Player firstPlayer;
+
+    /**
+     * The level of the machine.
+     */
+    private int level;
+
+    /**
+     * The moves recorded so far.
+     */
+    private byte[] moves = new byte[Board.SIZE * Board.SIZE];
+
+    /**
+     * The number of moves recorded so far.
+     */
+    private int count;
+
+    /**
+     * The last observed board.
+     */
+    private Board last;
+
+    /**
+     * The player expected to make the next move by alternation.
+     */
+    private Player expected;
+
+    /**
+     * Starts recording a new game.
+     *
+     * @param initial The initial board of the game.
+     * @param level The level of the machine.
+     * @throws IllegalArgumentException If the board is not of the standard
+     *         size, the only one records can hold.
+     */
+    public GameRecorder(Board initial, int level) {
+        if (initial.getSize() != Board.SIZE) {
+            throw new IllegalArgumentException("Only games on the "
+                    + Board.SIZE + "x" + Board.SIZE + " board are recorded");
+        }
+        this.firstPlayer = initial.getFirstPlayer();
+        this.level = level;
+        last = initial;
+        expected = firstPlayer;
+    }
+
+    /**
+     * Records the move which led from the last observed board to the given
+     * one. Nothing is recorded if the board did not change.
+     *
+     * @param board The board after exactly one move.
+     */
+    public void update(Board board) {
+        for (int i = 0; i < Board.SIZE; i++) {
+            for (int j = 0; j < Board.SIZE; j++) {
+                if (last.getSlot(i, j) == Player.NOBODY
+                        && board.getSlot(i, j) != Player.NOBODY) {
+                    Player mover = board.getSlot(i, j);
+                    if (mover != expected) {
+                        add(GameRecord.PASS);
+                    }
+                    add((byte) (i * Board.SIZE + j));
+                    expected = GameRecord.opponent(mover);
+                    last = board;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the level of the machine, if it was changed during the game.
+     *
+     * @param level The level of the machine.
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Gets the number of moves recorded so far, including passes.
+     *
+     * @return The number of moves.
+     */
+    public int getNumberOfMoves() {
+        return count;
+    }
+
+    /**
+     * Creates a record of the moves so far.
+     *
+     * @return The game record.
+     */
+    public GameRecord toRecord() {
+        return new GameRecord(firstPlayer, level, Arrays.copyOf(moves, count));
+    }
+
+    /**
+     * Appends a move.
+     *
+     * @param move The encoded move or pass.
+     */
+    private void add(byte move) {
+        if (count == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[count++] = move;
+    }
+}
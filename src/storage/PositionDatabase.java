@@ -0,0 +1,545 @@
+package storage;
+
+import model.Board;
+import model.MoveBook;
+import model.Player;
+import model.ReversiBoard;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An index of all positions reached in a game record file. For every
+ * position it stores how often it was reached, how these games ended and
+ * which continuation was played most.
+ *
+ * <p>The index is a file of fixed-size entries sorted by the Zobrist hash of
+ * the position. It is memory-mapped and searched binarily, so a lookup
+ * touches only a few pages and costs microseconds even for millions of
+ * positions. Each entry consists of the hash (8 bytes), the number of games,
+ * human wins, machine wins and draws (4 bytes each), the best move (1 byte,
+ * 0xFF if none), 3 bytes padding and the number of games with the best move
+ * (4 bytes).</p>
+ *
+ * <p>As a {@link MoveBook}, the database suggests the legal move leading to
+ * the position in which the machine scored best, provided that position was
+ * reached often enough.</p>
+ */
+public final class PositionDatabase implements MoveBook, Closeable {
+
+    /**
+     * The magic bytes at the start of an index file.
+     */
+    static final byte[] MAGIC = {'R', 'V', 'P', '1'};
+
+    /**
+     * The size of the file header in bytes: magic, reserved int and the
+     * number of entries as long.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of an entry in bytes.
+     */
+    private static final int ENTRY_SIZE = 32;
+
+    /**
+     * The number of entries in a mapped segment, one gigabyte each.
+     */
+    private static final int SEGMENT_ENTRIES = (1 << 30) / ENTRY_SIZE;
+
+    /**
+     * The number of moves including passes up to which positions are
+     * indexed by default.
+     */
+    public static final int DEFAULT_MAX_PLY = 30;
+
+    /**
+     * The number of games a position must have been reached in before the
+     * machine follows the book into it by default.
+     */
+    public static final int DEFAULT_MIN_GAMES = 8;
+
+    /**
+     * The best move byte of positions without continuation.
+     */
+    private static final int NO_MOVE = 0xFF;
+
+    /**
+     * The index file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped segments of the entries.
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * The number of entries.
+     */
+    private final long size;
+
+    /**
+     * The minimum number of games of a position the book plays into.
+     */
+    private final int minGames;
+
+    /**
+     * Opens an index file with the default minimum number of games.
+     *
+     * @param path The index file.
+     * @throws IOException If the file is no index or cannot be mapped.
+     */
+    public PositionDatabase(Path path) throws IOException {
+        this(path, DEFAULT_MIN_GAMES);
+    }
+
+    /**
+     * Opens an index file.
+     *
+     * @param path The index file.
+     * @param minGames The minimum number of games of a position the book
+     *        plays into.
+     * @throws IOException If the file is no index or cannot be mapped.
+     */
+    public PositionDatabase(Path path, int minGames) throws IOException {
+        this.minGames = minGames;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            int read = 0;
+            while (read >= 0 && header.hasRemaining()) {
+                read = channel.read(header);
+            }
+            byte[] magic = new byte[MAGIC.length];
+            header.flip();
+            if (header.remaining() < HEADER_SIZE) {
+                throw new IOException("Not a position index file");
+            }
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a position index file");
+            }
+            size = header.getLong(8);
+            if (size < 0 || HEADER_SIZE + size * ENTRY_SIZE
+                    != channel.size()) {
+                throw new IOException("Truncated position index file");
+            }
+            int count = (int) ((size + SEGMENT_ENTRIES - 1)
+                    / SEGMENT_ENTRIES);
+            segments = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long first = (long) i * SEGMENT_ENTRIES;
+                long entries = Math.min(SEGMENT_ENTRIES, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * ENTRY_SIZE,
+                        entries * ENTRY_SIZE);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of indexed positions.
+     *
+     * @return The number of positions.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param board The position.
+     * @return The statistics or {@code null} if the position is unknown.
+     */
+    public PositionStats lookup(ReversiBoard board) {
+        return lookup(board.hash());
+    }
+
+    /**
+     * Looks up a position by its Zobrist hash.
+     *
+     * @param hash The hash of the position.
+     * @return The statistics or {@code null} if the position is unknown.
+     */
+    public PositionStats lookup(long hash) {
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long key = hashAt(middle);
+            if (key < hash) {
+                low = middle + 1;
+            } else if (key > hash) {
+                high = middle - 1;
+            } else {
+                return statsAt(middle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int bookMove(ReversiBoard board) {
+        int bestMove = -1;
+        double bestScore = -1;
+        for (int move : board.legalMoves()) {
+            ReversiBoard child = board.replay(move / Board.SIZE,
+                    move % Board.SIZE);
+            PositionStats stats = lookup(child);
+            if (stats != null && stats.getGames() >= minGames) {
+                double score = stats.getComputerScore();
+                if (board.next() == Player.HUMAN) {
+                    score = 1 - score;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                }
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Closes the index file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Gets the hash of an entry.
+     *
+     * @param index The number of the entry.
+     * @return The hash.
+     */
+    private long hashAt(long index) {
+        return segments[(int) (index / SEGMENT_ENTRIES)].getLong(
+                (int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE);
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param index The number of the entry.
+     * @return The statistics of the entry.
+     */
+    private PositionStats statsAt(long index) {
+        ByteBuffer segment = segments[(int) (index / SEGMENT_ENTRIES)];
+        int offset = (int) (index % SEGMENT_ENTRIES) * ENTRY_SIZE;
+        int bestMove = segment.get(offset + 24) & 0xFF;
+        if (bestMove == NO_MOVE) {
+            bestMove = -1;
+        }
+        return new PositionStats(segment.getLong(offset),
+                segment.getInt(offset + 8), segment.getInt(offset + 12),
+                segment.getInt(offset + 16), segment.getInt(offset + 20),
+                bestMove, segment.getInt(offset + 28));
+    }
+
+    /**
+     * Builds an index from a game record file. Games with invalid moves are
+     * skipped.
+     *
+     * @param records The game record file.
+     * @param index The index file to be written, is replaced if it exists.
+     * @param maxPly The number of moves including passes up to which
+     *        positions are indexed.
+     * @return The number of indexed positions.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static long build(Path records, Path index, int maxPly)
+            throws IOException {
+        Aggregator aggregator = new Aggregator(maxPly);
+        try (GameRecordReader reader = new GameRecordReader(records)) {
+            GameRecord record;
+            while ((record = reader.next()) != null) {
+                aggregator.add(record);
+            }
+        }
+        return aggregator.write(index);
+    }
+
+    /**
+     * Builds an index from the command line.
+     *
+     * @param args The game record file, the index file and optionally the
+     *        maximum ply.
+     * @throws IOException If a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: PositionDatabase records index "
+                    + "[maxPly]");
+            System.exit(1);
+        }
+        int maxPly = DEFAULT_MAX_PLY;
+        if (args.length == 3) {
+            maxPly = Integer.parseInt(args[2]);
+        }
+        long start = System.nanoTime();
+        long positions = build(Paths.get(args[0]), Paths.get(args[1]),
+                maxPly);
+        System.out.println(positions + " positions indexed in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Collects the statistics of all positions in memory while games are
+     * replayed.
+     */
+    private static final class Aggregator implements ReplayListener {
+
+        /**
+         * The number of int fields per position: games, human wins, machine
+         * wins, draws, best move and games with the best move.
+         */
+        private static final int FIELDS = 6;
+
+        /**
+         * The number of moves up to which positions are indexed.
+         */
+        private final int maxPly;
+
+        /**
+         * Maps the hash of a position to its number.
+         */
+        private final LongIndex positions = new LongIndex();
+
+        /**
+         * Maps a position and a move to the number of its counter.
+         */
+        private final LongIndex continuations = new LongIndex();
+
+        /**
+         * The statistics of all positions, {@link #FIELDS} per position.
+         */
+        private int[] stats = new int[1024 * FIELDS];
+
+        /**
+         * The number of games per continuation.
+         */
+        private int[] counts = new int[1024];
+
+        /**
+         * The positions of the current game.
+         */
+        private final int[] gamePositions = new int[GameRecord.MAX_MOVES + 1];
+
+        /**
+         * The number of positions of the current game.
+         */
+        private int gameLength;
+
+        /**
+         * Creates an empty aggregator.
+         *
+         * @param maxPly The number of moves up to which positions are
+         *        indexed.
+         */
+        Aggregator(int maxPly) {
+            this.maxPly = maxPly;
+        }
+
+        /**
+         * Adds the positions of a game.
+         *
+         * @param record The game.
+         */
+        void add(GameRecord record) {
+            gameLength = 0;
+            ReversiBoard end;
+            try {
+                end = record.replay(this);
+            } catch (RuntimeException e) {
+                // The positions before an invalid move count as reached,
+                // but the game has no result.
+                end = null;
+            }
+            int field = -1;
+            if (end != null && end.gameOver()) {
+                Player winner = end.getWinner();
+                if (winner == Player.HUMAN) {
+                    field = 1;
+                } else if (winner == Player.COMPUTER) {
+                    field = 2;
+                } else {
+                    field = 3;
+                }
+            }
+            if (field >= 0) {
+                for (int i = 0; i < gameLength; i++) {
+                    stats[gamePositions[i] * FIELDS + field]++;
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void position(ReversiBoard board, int ply, int nextMove) {
+            if (ply > maxPly || nextMove == (GameRecord.PASS & 0xFF)) {
+                return;
+            }
+            long hash = board.hash();
+            int position = positions.indexOf(hash);
+            if (position * FIELDS >= stats.length) {
+                stats = Arrays.copyOf(stats, stats.length * 2);
+            }
+            int base = position * FIELDS;
+            if (stats[base] == 0) {
+                stats[base + 4] = NO_MOVE;
+            }
+            stats[base]++;
+            gamePositions[gameLength++] = position;
+            if (nextMove >= 0) {
+                int continuation = continuations.indexOf(
+                        hash ^ ((nextMove + 1) * 0x9E3779B97F4A7C15L));
+                if (continuation >= counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+                int count = ++counts[continuation];
+                if (count > stats[base + 5]) {
+                    stats[base + 4] = nextMove;
+                    stats[base + 5] = count;
+                }
+            }
+        }
+
+        /**
+         * Writes the sorted index file.
+         *
+         * @param index The index file.
+         * @return The number of positions.
+         * @throws IOException If the file cannot be written.
+         */
+        long write(Path index) throws IOException {
+            long[] hashes = positions.keys();
+            Arrays.sort(hashes);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(index),
+                            1 << 16))) {
+                out.write(MAGIC);
+                out.writeInt(0);
+                out.writeLong(hashes.length);
+                for (long hash : hashes) {
+                    int base = positions.indexOf(hash) * FIELDS;
+                    out.writeLong(hash);
+                    for (int i = 0; i < 4; i++) {
+                        out.writeInt(stats[base + i]);
+                    }
+                    out.writeByte(stats[base + 4]);
+                    out.write(0);
+                    out.write(0);
+                    out.write(0);
+                    out.writeInt(stats[base + 5]);
+                }
+            }
+            return hashes.length;
+        }
+    }
+
+    /**
+     * Assigns consecutive numbers to long keys with open addressing.
+     */
+    private static final class LongIndex {
+
+        /**
+         * The keys, valid where {@link #numbers} is not 0.
+         */
+        private long[] keys = new long[1024];
+
+        /**
+         * The number of each key plus one, 0 for empty slots.
+         */
+        private int[] numbers = new int[1024];
+
+        /**
+         * The number of keys.
+         */
+        private int size;
+
+        /**
+         * Gets the number of a key and assigns the next one if the key is
+         * new.
+         *
+         * @param key The key.
+         * @return The number of the key.
+         */
+        int indexOf(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (numbers[slot] != 0) {
+                if (keys[slot] == key) {
+                    return numbers[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            numbers[slot] = ++size;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return size - 1;
+        }
+
+        /**
+         * Collects all keys.
+         *
+         * @return The keys in no particular order.
+         */
+        long[] keys() {
+            long[] result = new long[size];
+            for (int i = 0; i < keys.length; i++) {
+                if (numbers[i] != 0) {
+                    result[numbers[i] - 1] = keys[i];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Doubles the capacity of the table.
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldNumbers = numbers;
+            keys = new long[oldKeys.length * 2];
+            numbers = new int[oldNumbers.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldNumbers[i] != 0) {
+                    int slot = (int) (oldKeys[i] ^ (oldKeys[i] >>> 32))
+                            & mask;
+                    while (numbers[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    numbers[slot] = oldNumbers[i];
+                }
+            }
+        }
+    }
+}
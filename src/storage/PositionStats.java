@@ -0,0 +1,155 @@
+package storage;
+
+/**
+ * What a position database knows about one position: how often it was
+ * reached, how these games ended and which continuation was played most.
+ */
+public final class PositionStats {
+
+    /**
+     * The Zobrist hash of the position.
+     */
+    private final long hash;
+
+    /**
+     * The number of games that reached the position.
+     */
+    private final int games;
+
+    /**
+     * The number of finished games the human won.
+     */
+    private final int humanWins;
+
+    /**
+     * The number of finished games the machine won.
+     */
+    private final int computerWins;
+
+    /**
+     * The number of finished games without winner.
+     */
+    private final int draws;
+
+    /**
+     * The most played continuation, -1 if the position was never continued.
+     */
+    private final int bestMove;
+
+    /**
+     * The number of games that continued with the best move.
+     */
+    private final int bestMoveGames;
+
+    /**
+     * Creates the statistics of a position.
+     *
+     * @param hash The Zobrist hash of the position.
+     * @param games The number of games that reached the position.
+     * @param humanWins The number of finished games the human won.
+     * @param computerWins The number of finished games the machine won.
+     * @param draws The number of finished games without winner.
+     * @param bestMove The most played continuation encoded as
+     *        {@code row * Board.SIZE + column}, or -1.
+     * @param bestMoveGames The number of games that continued with the best
+     *        move.
+     */
+    PositionStats(long hash, int games, int humanWins, int computerWins,
+            int draws, int bestMove, int bestMoveGames) {
+        this.hash = hash;
+        this.games = games;
+        this.humanWins = humanWins;
+        this.computerWins = computerWins;
+        this.draws = draws;
+        this.bestMove = bestMove;
+        this.bestMoveGames = bestMoveGames;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position.
+     *
+     * @return The hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the number of games that reached the position.
+     *
+     * @return The number of games.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of finished games the human won.
+     *
+     * @return The number of wins.
+     */
+    public int getHumanWins() {
+        return humanWins;
+    }
+
+    /**
+     * Gets the number of finished games the machine won.
+     *
+     * @return The number of wins.
+     */
+    public int getComputerWins() {
+        return computerWins;
+    }
+
+    /**
+     * Gets the number of finished games without winner.
+     *
+     * @return The number of draws.
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Gets the most played continuation.
+     *
+     * @return The move encoded as {@code row * Board.SIZE + column}, or -1
+     *         if no recorded game continued from this position.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Gets the number of games that continued with the best move.
+     *
+     * @return The number of games.
+     */
+    public int getBestMoveGames() {
+        return bestMoveGames;
+    }
+
+    /**
+     * Computes the share of points the machine scored in finished games, a
+     * draw counting half.
+     *
+     * @return The score between 0 and 1, or 0.5 if no game was finished.
+     */
+    public double getComputerScore() {
+        int finished = humanWins + computerWins + draws;
+        if (finished == 0) {
+            return 0.5;
+        }
+        return (computerWins + draws / 2.0) / finished;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "games " + games + ", human " + humanWins + ", machine "
+                + computerWins + ", draws " + draws + ", best move "
+                + bestMove + " (" + bestMoveGames + ")";
+    }
+}
@@ -0,0 +1,22 @@
+package storage;
+
+import model.ReversiBoard;
+
+/**
+ * Is informed about every position of a game while it is replayed.
+ */
+@FunctionalInterface
+public interface ReplayListener {
+
+    /**
+     * Called for every position of a game, from the initial board to the
+     * final one.
+     *
+     * @param board The board of the position.
+     * @param ply The number of moves made before this position, including
+     *        passes.
+     * @param nextMove The move recorded after this position, which may be
+     *        {@link GameRecord#PASS}, or -1 for the final position.
+     */
+    void position(ReversiBoard board, int ply, int nextMove);
+}
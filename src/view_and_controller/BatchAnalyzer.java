@@ -0,0 +1,425 @@
+package view_and_controller;
+
+import model.IllegalMoveException;
+import model.MoveScore;
+import model.Player;
+import model.ReversiBoard;
+import model.SearchProgress;
+
+import storage.GameRecord;
+import storage.GameRecordReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analyses many positions with a fixed depth on all cores and prints one
+ * line per position in input order: its number, the best move (origin 1 1
+ * as in the shell), its score from the machine's point of view, the number
+ * of created positions and the time in milliseconds, separated by tabs.
+ * Positions whose analysis fails are printed as {@code n ERR message} and
+ * make the program exit with status 1.
+ *
+ * <p>Positions are read from a text file or standard input, one per line
+ * as 64 slots ({@code X} human, {@code O} machine, {@code .} empty, spaces
+ * allowed) followed by the player to move ({@code X} or {@code O}); empty
+ * lines and lines starting with {@code #} are skipped. Alternatively every
+ * position before a move of a game record file is analysed.</p>
+ *
+ * <p>Options: {@code --depth d}, {@code --time ms} to deepen iteratively
+ * up to the depth within a time limit per position, {@code --threads n},
+ * {@code --input file} ({@code -} for standard input), {@code --records
+ * file} and {@code --output file}. All workers share the transposition
+ * table, so positions that occur in several games are searched only
+ * once. Invalid options print a usage message and make the program exit
+ * with status 2.</p>
+ */
+public final class BatchAnalyzer {
+
+    /**
+     * The summary of the options.
+     */
+    private static final String USAGE = "Usage: BatchAnalyzer [--depth d] "
+            + "[--time ms] [--threads n] [--input file | --records file] "
+            + "[--output file]";
+
+    /**
+     * The number of positions per worker that may be analysed ahead of the
+     * output.
+     */
+    private static final int WINDOW_PER_THREAD = 8;
+
+    /**
+     * The depth of the analysis.
+     */
+    private int depth = 4;
+
+    /**
+     * The time limit per position in milliseconds, 0 for no limit.
+     */
+    private long timeMillis;
+
+    /**
+     * The number of workers.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The text file of positions, {@code -} for standard input.
+     */
+    private String input = "-";
+
+    /**
+     * The game record file, {@code null} if positions are read as text.
+     */
+    private String records;
+
+    /**
+     * The output file, {@code -} for standard output.
+     */
+    private String output = "-";
+
+    /**
+     * The number of positions read so far.
+     */
+    private int positions;
+
+    /**
+     * The number of failed analyses.
+     */
+    private final AtomicInteger errors = new AtomicInteger();
+
+    /**
+     * The number of positions created by all analyses.
+     */
+    private final AtomicLong nodes = new AtomicLong();
+
+    /**
+     * The workers.
+     */
+    private ExecutorService pool;
+
+    /**
+     * The analyses not yet printed, in input order.
+     */
+    private final Deque<Future<String>> pending = new ArrayDeque<>();
+
+    /**
+     * The number of printed analyses. Positions are numbered from 1 in
+     * input order, so this is also the number of the last printed one.
+     */
+    private int printed;
+
+    /**
+     * The destination of the results.
+     */
+    private PrintWriter out;
+
+    // Use the command line.
+    private BatchAnalyzer() {
+    }
+
+    /**
+     * Analyses the positions given on the command line.
+     *
+     * @param args The options.
+     * @throws IOException If a file cannot be read or written.
+     * @throws InterruptedException If the program is interrupted.
+     */
+    public static void main(String[] args) throws IOException,
+            InterruptedException {
+        BatchAnalyzer analyzer = new BatchAnalyzer();
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (!args[i].startsWith("--")) {
+                    throw new IllegalArgumentException("Unexpected argument "
+                            + args[i]);
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value of "
+                            + "option " + args[i]);
+                }
+                try {
+                    analyzer.setOption(args[i], args[i + 1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value "
+                            + args[i + 1] + " of option " + args[i]);
+                }
+            }
+            analyzer.checkOptions();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        analyzer.run();
+        if (analyzer.errors.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets an option from the command line.
+     *
+     * @param name The name of the option, e.g., {@code --depth}.
+     * @param value The value of the option.
+     */
+    private void setOption(String name, String value) {
+        switch (name) {
+        case "--depth":
+            depth = Integer.parseInt(value);
+            break;
+        case "--time":
+            timeMillis = Long.parseLong(value);
+            break;
+        case "--threads":
+            threads = Integer.parseInt(value);
+            break;
+        case "--input":
+            input = value;
+            break;
+        case "--records":
+            records = value;
+            break;
+        case "--output":
+            output = value;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown option " + name);
+        }
+    }
+
+    /**
+     * Checks the values of the options.
+     *
+     * @throws IllegalArgumentException If a value is out of range.
+     */
+    private void checkOptions() {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The depth must be at least 1");
+        }
+        if (timeMillis < 0) {
+            throw new IllegalArgumentException("The time must not be "
+                    + "negative");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must "
+                    + "be at least 1");
+        }
+    }
+
+    /**
+     * Reads, analyses and prints all positions, followed by a summary on
+     * standard error.
+     *
+     * @throws IOException If a file cannot be read or written.
+     * @throws InterruptedException If the program is interrupted.
+     */
+    private void run() throws IOException, InterruptedException {
+        Writer writer;
+        if (output.equals("-")) {
+            writer = new OutputStreamWriter(System.out,
+                    StandardCharsets.UTF_8);
+        } else {
+            writer = Files.newBufferedWriter(Paths.get(output));
+        }
+        out = new PrintWriter(new BufferedWriter(writer, 1 << 16));
+        pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            if (records != null) {
+                readRecords();
+            } else {
+                readText();
+            }
+            while (!pending.isEmpty()) {
+                printNext();
+            }
+        } finally {
+            pool.shutdownNow();
+            out.flush();
+            if (!output.equals("-")) {
+                out.close();
+            }
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000L);
+        System.err.println(String.format(Locale.ROOT,
+                "%d positions, %d errors, %d ms, %.1f positions/s, "
+                        + "%.0f nodes/s, %d threads", positions,
+                errors.get(), millis, positions * 1000.0 / millis,
+                nodes.get() * 1000.0 / millis, threads));
+    }
+
+    /**
+     * Submits every line of the text input.
+     *
+     * @throws IOException If the input cannot be read or the output cannot
+     *         be written.
+     * @throws InterruptedException If the program is interrupted.
+     */
+    private void readText() throws IOException, InterruptedException {
+        Reader reader;
+        if (input.equals("-")) {
+            reader = new InputStreamReader(System.in,
+                    StandardCharsets.UTF_8);
+        } else {
+            reader = Files.newBufferedReader(Paths.get(input));
+        }
+        try (BufferedReader in = new BufferedReader(reader, 1 << 16)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int number = ++positions;
+                ReversiBoard board;
+                try {
+                    board = parse(line);
+                } catch (IllegalArgumentException e) {
+                    errors.incrementAndGet();
+                    submit(CompletableFuture.completedFuture(
+                            number + "\tERR " + e.getMessage()));
+                    continue;
+                }
+                submit(pool.submit(analysis(number, board)));
+            }
+        }
+    }
+
+    /**
+     * Submits every position before a move of the recorded games.
+     *
+     * @throws IOException If the file cannot be read or the output cannot
+     *         be written.
+     * @throws InterruptedException If the program is interrupted.
+     */
+    private void readRecords() throws IOException, InterruptedException {
+        try (GameRecordReader reader
+                     = new GameRecordReader(Paths.get(records))) {
+            GameRecord record;
+            List<ReversiBoard> boards = new ArrayList<>();
+            while ((record = reader.next()) != null) {
+                boards.clear();
+                try {
+                    record.replay((board, ply, move) -> {
+                        if (move >= 0 && move != (GameRecord.PASS & 0xFF)) {
+                            boards.add(board);
+                        }
+                    });
+                } catch (IllegalMoveException e) {
+                    // Analyse the valid part of the game.
+                }
+                for (ReversiBoard board: boards) {
+                    submit(pool.submit(analysis(++positions, board)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses a position of the text input.
+     *
+     * @param line The slots followed by the player to move.
+     * @return The board.
+     * @throws IllegalArgumentException If the line is no position.
+     */
+    private static ReversiBoard parse(String line) {
+        char side = line.charAt(line.length() - 1);
+        Player next;
+        if (side == 'X') {
+            next = Player.HUMAN;
+        } else if (side == 'O') {
+            next = Player.COMPUTER;
+        } else {
+            throw new IllegalArgumentException("Invalid player '" + side
+                    + "'");
+        }
+        return ReversiBoard.parse(line.substring(0, line.length() - 1),
+                next);
+    }
+
+    /**
+     * Creates the analysis of a position.
+     *
+     * @param number The number of the position in the input.
+     * @param board The position.
+     * @return The task computing the output line.
+     */
+    private Callable<String> analysis(int number, ReversiBoard board) {
+        return () -> {
+            SearchProgress[] last = new SearchProgress[1];
+            long start = System.nanoTime();
+            List<MoveScore> scores;
+            try {
+                scores = board.analyze(depth, 1, timeMillis,
+                        progress -> last[0] = progress);
+            } catch (IllegalMoveException e) {
+                errors.incrementAndGet();
+                return number + "\tERR " + e.getMessage();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000L;
+            long created = 0;
+            if (last[0] != null) {
+                created = last[0].getNodes();
+            }
+            nodes.addAndGet(created);
+            MoveScore best = scores.get(0);
+            return String.format(Locale.ROOT, "%d\t%d %d\t%.2f\t%d\t%d",
+                    number, best.getRow() + 1, best.getColumn() + 1,
+                    best.getScore(), created, millis);
+        };
+    }
+
+    /**
+     * Queues an analysis for output and prints the oldest ones while too
+     * many are ahead of the output.
+     *
+     * @param result The analysis.
+     * @throws InterruptedException If the program is interrupted.
+     */
+    private void submit(Future<String> result) throws InterruptedException {
+        pending.addLast(result);
+        while (pending.size() > threads * WINDOW_PER_THREAD) {
+            printNext();
+        }
+    }
+
+    /**
+     * Waits for the oldest analysis and prints it.
+     *
+     * @throws InterruptedException If the program is interrupted.
+     */
+    private void printNext() throws InterruptedException {
+        Future<String> result = pending.removeFirst();
+        int number = ++printed;
+        try {
+            out.println(result.get());
+        } catch (ExecutionException e) {
+            errors.incrementAndGet();
+            out.println(number + "\tERR " + e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package view_and_controller;
+
+import model.Player;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Images of the discs of both players, rendered once per diameter. Slots
+ * draw these images instead of painting ovals, and the images are only
+ * rendered again if the board is resized.
+ */
+final class DiscSprites {
+
+    /**
+     * The color of the human's discs.
+     */
+    private final Color humanColor;
+
+    /**
+     * The color of the machine's discs.
+     */
+    private final Color machineColor;
+
+    /**
+     * The diameter of the current images, -1 if none are rendered yet.
+     */
+    private int diameter = -1;
+
+    /**
+     * The disc of the human.
+     */
+    private BufferedImage human;
+
+    /**
+     * The disc of the machine.
+     */
+    private BufferedImage machine;
+
+    /**
+     * Creates the sprites of two colors. Images are rendered on first use.
+     *
+     * @param humanColor The color of the human's discs.
+     * @param machineColor The color of the machine's discs.
+     */
+    DiscSprites(Color humanColor, Color machineColor) {
+        this.humanColor = humanColor;
+        this.machineColor = machineColor;
+    }
+
+    /**
+     * Gets the image of a disc. Must be called on the Event Dispatch Thread.
+     *
+     * @param player Human or computer.
+     * @param size The diameter of the disc in pixels.
+     * @return The image, which is {@code size + 1} pixels wide and high.
+     */
+    BufferedImage get(Player player, int size) {
+        if (size != diameter) {
+            human = render(humanColor, size);
+            machine = render(machineColor, size);
+            diameter = size;
+        }
+        if (player == Player.HUMAN) {
+            return human;
+        }
+        return machine;
+    }
+
+    /**
+     * Renders a disc.
+     *
+     * @param color The color of the disc.
+     * @param size The diameter of the disc in pixels.
+     * @return The image with a transparent background.
+     */
+    private static BufferedImage render(Color color, int size) {
+        int extent = Math.max(1, size + 1);
+        BufferedImage image = new BufferedImage(extent, extent,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D gr = image.createGraphics();
+        gr.setColor(color);
+        gr.fillOval(0, 0, size, size);
+        gr.drawOval(0, 0, size, size);
+        gr.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,330 @@
+package view_and_controller;
+
+import model.Board;
+import model.Player;
+import model.ReversiBoard;
+
+import javax.swing.SwingUtilities;
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks headlessly that machine searches never block the Event Dispatch
+ * Thread. It plays games through {@link MachinePlayer} exactly like the
+ * view, with random human moves, and measures the processor time the EDT
+ * spends on each event, so time slices of the search thread on a busy host
+ * do not count. Events during which the garbage collector ran are left out,
+ * since no design of the view can avoid these pauses. The program exits
+ * with status 1 if the longest event exceeds the threshold.
+ *
+ * <p>In addition, a probe posts a task to the EDT every millisecond and
+ * measures how long each task waits in the queue. This waiting time also
+ * contains garbage collection pauses and, on hosts with fewer cores than
+ * busy threads, the time slices of the search, so it is printed for
+ * information only.</p>
+ *
+ * <p>Options: {@code --level l} (default 4), {@code --turns n} machine
+ * turns (default 20), {@code --threshold ms} (default 10) and
+ * {@code --blocking true} to search on the EDT instead, which shows that
+ * the probe detects stalls.</p>
+ */
+public final class EdtLatencyProbe {
+
+    /**
+     * Measures the processor time of the EDT.
+     */
+    private static final ThreadMXBean THREADS
+            = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The level of the machine.
+     */
+    private int level = 4;
+
+    /**
+     * The number of machine turns to be played.
+     */
+    private int turns = 20;
+
+    /**
+     * The longest acceptable wait of the EDT in milliseconds.
+     */
+    private long thresholdMillis = 10;
+
+    /**
+     * {@code true} to search on the EDT like the old view did.
+     */
+    private boolean blocking;
+
+    /**
+     * The waiting times of the probe tasks in nanoseconds. Only used on the
+     * EDT until the games are over.
+     */
+    private long[] waits = new long[1 << 12];
+
+    /**
+     * The number of waiting times.
+     */
+    private int samples;
+
+    /**
+     * The most processor time the EDT spent on one event in nanoseconds,
+     * only used on the EDT.
+     */
+    private long longestEvent;
+
+    /**
+     * The number of events during which the garbage collector ran, which
+     * are not counted as busy time of the EDT. Only used on the EDT.
+     */
+    private int collectedEvents;
+
+    /**
+     * The current board, only used on the EDT.
+     */
+    private Board board;
+
+    /**
+     * The number of machine turns started so far, only used on the EDT.
+     */
+    private int started;
+
+    /**
+     * Chooses the human moves.
+     */
+    private final Random random = new Random(1);
+
+    /**
+     * Is counted down when all turns are played.
+     */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Plays the machine's turns, only used on the EDT.
+     */
+    private MachinePlayer machine;
+
+    /**
+     * The exception of a failed machine turn, {@code null} if none. Set on
+     * the EDT before {@link #done} is counted down.
+     */
+    private RuntimeException failure;
+
+    // Use the command line.
+    private EdtLatencyProbe() {
+    }
+
+    /**
+     * Runs the probe.
+     *
+     * @param args The options.
+     * @throws InterruptedException If the program is interrupted.
+     * @throws InvocationTargetException If the samples cannot be read.
+     */
+    public static void main(String[] args) throws InterruptedException,
+            InvocationTargetException {
+        System.setProperty("java.awt.headless", "true");
+        EdtLatencyProbe probe = new EdtLatencyProbe();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--level":
+                probe.level = Integer.parseInt(args[i + 1]);
+                break;
+            case "--turns":
+                probe.turns = Integer.parseInt(args[i + 1]);
+                break;
+            case "--threshold":
+                probe.thresholdMillis = Long.parseLong(args[i + 1]);
+                break;
+            case "--blocking":
+                probe.blocking = Boolean.parseBoolean(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+        System.exit(probe.run() ? 0 : 1);
+    }
+
+    /**
+     * Plays the turns while probing the EDT and prints the result.
+     *
+     * @return {@code true} if no event kept the EDT busy for longer than the
+     *         threshold.
+     * @throws InterruptedException If the program is interrupted.
+     * @throws InvocationTargetException If the samples cannot be read.
+     */
+    private boolean run() throws InterruptedException,
+            InvocationTargetException {
+        // Load and initialize the engine before measuring.
+        new ReversiBoard(new ReversiBoard(), Player.COMPUTER)
+                .machineMove(1, 0, null);
+        ScheduledExecutorService ticker
+                = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "edt-probe");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ticker.scheduleAtFixedRate(() -> {
+            long posted = System.nanoTime();
+            SwingUtilities.invokeLater(() -> record(System.nanoTime()
+                    - posted));
+        }, 1, 1, TimeUnit.MILLISECONDS);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(
+                new EventQueue() {
+                    @Override
+                    protected void dispatchEvent(AWTEvent event) {
+                        long collections = collections();
+                        long begin = THREADS.getCurrentThreadCpuTime();
+                        super.dispatchEvent(event);
+                        long nanos = THREADS.getCurrentThreadCpuTime()
+                                - begin;
+                        if (collections() == collections) {
+                            longestEvent = Math.max(longestEvent, nanos);
+                        } else {
+                            collectedEvents++;
+                        }
+                    }
+                });
+        long start = System.nanoTime();
+        SwingUtilities.invokeLater(this::newGame);
+        done.await();
+        ticker.shutdownNow();
+        if (failure != null) {
+            throw failure;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+
+        // Read the samples on the EDT, which wrote them.
+        long[][] copy = new long[1][];
+        long[] event = new long[2];
+        SwingUtilities.invokeAndWait(() -> {
+            copy[0] = Arrays.copyOf(waits, samples);
+            event[0] = longestEvent;
+            event[1] = collectedEvents;
+        });
+        long[] values = copy[0];
+        double longest = event[0] / 1e6;
+        Arrays.sort(values);
+        double max = values.length == 0 ? 0
+                : values[values.length - 1] / 1e6;
+        double p99 = values.length == 0 ? 0
+                : values[(int) (values.length * 0.99)] / 1e6;
+        System.out.println(String.format(Locale.ROOT,
+                "{\"level\": %d, \"turns\": %d, \"blocking\": %b, "
+                        + "\"millis\": %d, \"samples\": %d, "
+                        + "\"p99WaitMillis\": %.2f, \"maxWaitMillis\": %.2f, "
+                        + "\"maxEventMillis\": %.2f, \"gcEvents\": %d, "
+                        + "\"thresholdMillis\": %d}", level, turns, blocking,
+                millis, values.length, p99, max, longest, event[1],
+                thresholdMillis));
+        return longest <= thresholdMillis;
+    }
+
+    /**
+     * Counts the garbage collections of all collectors so far.
+     *
+     * @return The number of collections.
+     */
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean
+                : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Records a waiting time of the probe. Called on the EDT.
+     *
+     * @param nanos The time between posting and running the probe task.
+     */
+    private void record(long nanos) {
+        if (samples == waits.length) {
+            waits = Arrays.copyOf(waits, waits.length * 2);
+        }
+        waits[samples++] = nanos;
+    }
+
+    /**
+     * Starts a game in which the machine moves first. Called on the EDT.
+     */
+    private void newGame() {
+        if (machine == null) {
+            machine = new MachinePlayer(new SwingSearchListener(
+                    progress -> { }));
+        }
+        board = new ReversiBoard(new ReversiBoard(), Player.COMPUTER);
+        board.setLevel(level);
+        machineTurn();
+    }
+
+    /**
+     * Lets the machine move, in the background or, if blocking, directly.
+     * Called on the EDT.
+     */
+    private void machineTurn() {
+        if (started == turns) {
+            machine.shutdown();
+            done.countDown();
+            return;
+        }
+        started++;
+        if (!blocking) {
+            machine.play(board, level, next -> board = next,
+                    moves -> SwingUtilities.invokeLater(this::humanTurn),
+                    this::fail);
+            return;
+        }
+        while (!board.gameOver() && board.next() == Player.COMPUTER) {
+            board = board.machineMove();
+        }
+        SwingUtilities.invokeLater(this::humanTurn);
+    }
+
+    /**
+     * Ends the probe after a failed machine turn. Called on the EDT.
+     *
+     * @param e The reason.
+     */
+    private void fail(RuntimeException e) {
+        failure = e;
+        machine.shutdown();
+        done.countDown();
+    }
+
+    /**
+     * Makes a random human move and starts the next machine turn. Called on
+     * the EDT.
+     */
+    private void humanTurn() {
+        if (board.gameOver()) {
+            newGame();
+            return;
+        }
+        int[] moves = ((ReversiBoard) board).legalMoves();
+        int move = moves[random.nextInt(moves.length)];
+        board = board.move(move / Board.SIZE, move % Board.SIZE);
+        if (board.gameOver()) {
+            newGame();
+        } else if (board.next() == Player.COMPUTER) {
+            machineTurn();
+        } else {
+            humanTurn();
+        }
+    }
+}
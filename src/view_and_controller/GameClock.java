@@ -0,0 +1,178 @@
+package view_and_controller;
+
+import model.Player;
+
+import java.util.Locale;
+
+/**
+ * The chess clock of a timed game: both players start with the same time,
+ * the clock of the player to move runs, and every completed move adds an
+ * increment to the clock of its player. Missed turns do not stop the clock
+ * of the player who moves again.
+ *
+ * <p>The clock is read by the machine's searching thread as well, so all
+ * methods are synchronized.</p>
+ */
+final class GameClock {
+
+    /**
+     * The time added after each move in milliseconds.
+     */
+    private final long incrementMillis;
+
+    /**
+     * The time left of the human in nanoseconds, without the running move.
+     */
+    private long humanNanos;
+
+    /**
+     * The time left of the machine in nanoseconds, without the running
+     * move.
+     */
+    private long machineNanos;
+
+    /**
+     * The player whose clock runs, {@code null} if it is stopped.
+     */
+    private Player running;
+
+    /**
+     * The value of {@link System#nanoTime()} when the running clock was
+     * started.
+     */
+    private long since;
+
+    /**
+     * The time allotted to the machine's current or last move in
+     * milliseconds, 0 if none.
+     */
+    private long allottedMillis;
+
+    /**
+     * Creates a stopped clock.
+     *
+     * @param totalMillis The time of each player for the whole game.
+     * @param incrementMillis The time added after each move.
+     */
+    GameClock(long totalMillis, long incrementMillis) {
+        this.incrementMillis = incrementMillis;
+        humanNanos = totalMillis * 1_000_000L;
+        machineNanos = humanNanos;
+    }
+
+    /**
+     * Gets the time added after each move.
+     *
+     * @return The increment in milliseconds.
+     */
+    long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Lets the clock of a player run, stopping the other one without
+     * increment, e.g., to start the game or after a move was taken back.
+     *
+     * @param player The player to move.
+     */
+    synchronized void start(Player player) {
+        charge();
+        running = player;
+    }
+
+    /**
+     * Ends a move: adds the increment to the clock of the player who moved
+     * and lets the clock of the next player run.
+     *
+     * @param mover The player who moved.
+     * @param next The player to move now, {@code null} if the game is
+     *        over.
+     */
+    synchronized void moved(Player mover, Player next) {
+        charge();
+        if (mover == Player.HUMAN) {
+            humanNanos += incrementMillis * 1_000_000L;
+        } else {
+            machineNanos += incrementMillis * 1_000_000L;
+        }
+        running = next;
+    }
+
+    /**
+     * Stops both clocks.
+     */
+    synchronized void stop() {
+        charge();
+        running = null;
+    }
+
+    /**
+     * Gets the time left of a player, including the running move.
+     *
+     * @param player The player.
+     * @return The time in milliseconds, negative if it ran out.
+     */
+    synchronized long getRemainingMillis(Player player) {
+        long left = player == Player.HUMAN ? humanNanos : machineNanos;
+        if (player == running) {
+            left -= System.nanoTime() - since;
+        }
+        return left / 1_000_000L;
+    }
+
+    /**
+     * Checks whether the time of the player to move ran out.
+     *
+     * @return The player, {@code null} if both have time left or the clock
+     *         is stopped.
+     */
+    synchronized Player expired() {
+        if (running != null && getRemainingMillis(running) <= 0) {
+            return running;
+        }
+        return null;
+    }
+
+    /**
+     * Records the time allotted to a machine move.
+     *
+     * @param millis The time in milliseconds.
+     */
+    synchronized void setAllottedMillis(long millis) {
+        allottedMillis = millis;
+    }
+
+    /**
+     * Gets the time allotted to the machine's current or last move.
+     *
+     * @return The time in milliseconds, 0 if none.
+     */
+    synchronized long getAllottedMillis() {
+        return allottedMillis;
+    }
+
+    /**
+     * Formats a time as minutes, seconds and tenths.
+     *
+     * @param millis The time in milliseconds, negative ones count as 0.
+     * @return The time as {@code m:ss.t}.
+     */
+    static String format(long millis) {
+        long tenths = Math.max(0, millis) / 100;
+        return String.format(Locale.ROOT, "%d:%02d.%d", tenths / 600,
+                tenths / 10 % 60, tenths % 10);
+    }
+
+    /**
+     * Subtracts the time of the running move from its player.
+     */
+    private void charge() {
+        long now = System.nanoTime();
+        if (running == Player.HUMAN) {
+            humanNanos -= now - since;
+        } else if (running == Player.COMPUTER) {
+            machineNanos -= now - since;
+        }
+        since = now;
+    }
+}
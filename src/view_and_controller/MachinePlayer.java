@@ -0,0 +1,254 @@
+package view_and_controller;
+
+import model.Board;
+import model.MoveScore;
+import model.Player;
+import model.ReversiBoard;
+import model.SearchListener;
+import model.TimeManager;
+
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Plays the machine's moves of a Swing game on a background thread. The
+ * searches work on a private copy of the board, and every move is handed to
+ * the Event Dispatch Thread as a board of its own, so the user interface
+ * never shares a board with a running search and never waits for one. If
+ * the human has to miss turns, the machine's consecutive moves are searched
+ * one after another and published as they are found. On the human's turn,
+ * the same thread searches hints, so they share the machine's caches and
+ * never compete with its searches for the processor.
+ *
+ * <p>All methods must be called on the Event Dispatch Thread, and all
+ * callbacks are run there.</p>
+ */
+final class MachinePlayer {
+
+    /**
+     * Runs the searches one at a time.
+     */
+    private final ExecutorService executor
+            = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "machine-player");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * The listener informed about the progress of the searches.
+     */
+    private final SearchListener listener;
+
+    /**
+     * The running turn of the machine, {@code null} if none.
+     */
+    private Future<?> running;
+
+    /**
+     * The running hint search, {@code null} if none.
+     */
+    private Future<?> hinting;
+
+    /**
+     * Is incremented whenever a turn starts or is cancelled, so results of
+     * older turns are recognized and dropped.
+     */
+    private int turn;
+
+    /**
+     * Creates a player without running turn.
+     *
+     * @param listener The listener informed about the progress of the
+     *        searches, on the searching thread.
+     */
+    MachinePlayer(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts the turn of the machine: it moves until the game is over or the
+     * human is to move. A running turn is cancelled first.
+     *
+     * @param board The current board, which is not changed.
+     * @param level The level of the searches.
+     * @param onMove Receives the board after each machine move.
+     * @param onFinished Receives the number of moves after the turn.
+     * @param onError Receives the exception if a search failed, which ends
+     *        the turn without {@code onFinished}.
+     */
+    void play(Board board, int level, Consumer<Board> onMove,
+              IntConsumer onFinished, Consumer<RuntimeException> onError) {
+        play(board, level, null, onMove, onFinished, onError);
+    }
+
+    /**
+     * Starts the turn of the machine in a game that may be timed. With a
+     * clock, the time of each move is allotted by a {@link TimeManager}
+     * from the machine's time left and recorded on the clock; the clock
+     * itself is neither started nor stopped.
+     *
+     * @param board The current board, which is not changed.
+     * @param level The level of the searches.
+     * @param clock The clock of the game, {@code null} to search with the
+     *        level only.
+     * @param onMove Receives the board after each machine move.
+     * @param onFinished Receives the number of moves after the turn.
+     * @param onError Receives the exception if a search failed, which ends
+     *        the turn without {@code onFinished}. The moves found before
+     *        were published.
+     */
+    void play(Board board, int level, GameClock clock,
+              Consumer<Board> onMove, IntConsumer onFinished,
+              Consumer<RuntimeException> onError) {
+        cancel();
+        int current = turn;
+        Board start = board.clone();
+        start.setLevel(level);
+        running = executor.submit(() -> {
+            Board position = start;
+            int moves = 0;
+            try {
+                while (!position.gameOver()
+                        && position.next() == Player.COMPUTER) {
+                    if (clock == null) {
+                        position = position.machineMove(listener);
+                    } else {
+                        position = timedMove(position, clock);
+                    }
+                    moves++;
+                    Board published = position.clone();
+                    publish(current, () -> onMove.accept(published));
+                }
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Without a reset the player would stay busy for good.
+                publish(current, () -> {
+                    running = null;
+                    onError.accept(e);
+                });
+                return;
+            }
+            int count = moves;
+            publish(current, () -> {
+                running = null;
+                onFinished.accept(count);
+            });
+        });
+    }
+
+    /**
+     * Searches a machine move within the time the time manager allots.
+     *
+     * @param position The board, the machine to move.
+     * @param clock The clock of the game.
+     * @return The board after the move.
+     */
+    private Board timedMove(Board position, GameClock clock) {
+        int size = position.getSize();
+        int empties = size * size - position.getNumberOfHumanTiles()
+                - position.getNumberOfMachineTiles();
+        TimeManager time = new TimeManager(
+                clock.getRemainingMillis(Player.COMPUTER),
+                clock.getIncrementMillis(), empties);
+        clock.setAllottedMillis(time.getTargetMillis());
+        return position.machineMove(time, listener);
+    }
+
+    /**
+     * Searches the best move of the human in the background. A running turn
+     * or hint is cancelled first, and starting a turn cancels the hint.
+     *
+     * @param board The current board, the human to move, which is not
+     *        changed.
+     * @param level The depth of the search.
+     * @param timeMillis The time limit of the search in milliseconds. The
+     *        moves of the deepest complete depth are reported, or those
+     *        analysed so far if not even depth 1 is complete.
+     * @param onHint Receives the moves with their scores from the
+     *        machine's point of view, the best one first; empty if no
+     *        move was analysed in time.
+     * @param onError Receives the exception if the search failed, instead
+     *        of {@code onHint}.
+     */
+    void hint(Board board, int level, long timeMillis,
+              Consumer<List<MoveScore>> onHint,
+              Consumer<RuntimeException> onError) {
+        cancel();
+        int current = turn;
+        ReversiBoard start = (ReversiBoard) board.clone();
+        hinting = executor.submit(() -> {
+            List<MoveScore> scores;
+            try {
+                scores = start.analyze(level, 0, timeMillis);
+            } catch (CancellationException e) {
+                return;
+            } catch (RuntimeException e) {
+                publish(current, () -> {
+                    hinting = null;
+                    onError.accept(e);
+                });
+                return;
+            }
+            publish(current, () -> {
+                hinting = null;
+                onHint.accept(scores);
+            });
+        });
+    }
+
+    /**
+     * Checks whether the machine is thinking.
+     *
+     * @return {@code true} if a turn is running.
+     */
+    boolean isBusy() {
+        return running != null;
+    }
+
+    /**
+     * Cancels the running turn and hint, if any. Their searches are
+     * interrupted and their remaining results are dropped.
+     */
+    void cancel() {
+        turn++;
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+        if (hinting != null) {
+            hinting.cancel(true);
+            hinting = null;
+        }
+    }
+
+    /**
+     * Cancels the running turn and stops the background thread.
+     */
+    void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a callback on the Event Dispatch Thread unless its turn was
+     * cancelled in the meantime.
+     *
+     * @param owner The turn the callback belongs to.
+     * @param callback The callback.
+     */
+    private void publish(int owner, Runnable callback) {
+        SwingUtilities.invokeLater(() -> {
+            if (owner == turn) {
+                callback.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,265 @@
+package view_and_controller;
+
+import model.Board;
+import model.Player;
+
+import java.util.Arrays;
+
+/**
+ * The moves of a game as a compact log of deltas, which lets the view take
+ * back and redo moves without keeping a copy of every board. Each move is
+ * stored as the slot of the placed tile, the player and the slots of the
+ * flipped tiles, one byte each, so a game takes a few hundred bytes. Taking
+ * back or redoing a move only touches the changed slots.
+ */
+final class MoveHistory {
+
+    /**
+     * The player byte of human moves.
+     */
+    private static final byte HUMAN = 0;
+
+    /**
+     * The player byte of machine moves.
+     */
+    private static final byte COMPUTER = 1;
+
+    /**
+     * The moves one after another: slot, player, number of flipped tiles and
+     * the slots of the flipped tiles.
+     */
+    private byte[] log = new byte[256];
+
+    /**
+     * The position of each move in {@link #log}.
+     */
+    private int[] starts = new int[64];
+
+    /**
+     * The number of recorded moves, including moves that were taken back
+     * and can be redone.
+     */
+    private int size;
+
+    /**
+     * The number of moves on the current board.
+     */
+    private int position;
+
+    /**
+     * Records a move. Moves that were taken back cannot be redone anymore.
+     * If the boards do not differ, e.g., because a player had to miss a
+     * turn, nothing is recorded.
+     *
+     * @param before The board before the move.
+     * @param after The board after the move.
+     */
+    void record(Board before, Board after) {
+        int placed = -1;
+        int width = before.getSize();
+        int[] flipped = new int[width * width];
+        int count = 0;
+        for (int row = 0; row < width; row++) {
+            for (int col = 0; col < width; col++) {
+                Player old = before.getSlot(row, col);
+                Player now = after.getSlot(row, col);
+                if (old == Player.NOBODY && now != Player.NOBODY) {
+                    placed = row * width + col;
+                } else if (old != now) {
+                    flipped[count++] = row * width + col;
+                }
+            }
+        }
+        if (placed < 0) {
+            return;
+        }
+        size = position;
+        int start = size == 0 ? 0 : end(size - 1);
+        if (start + 3 + count > log.length) {
+            log = Arrays.copyOf(log, Math.max(log.length * 2,
+                    start + 3 + count));
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        Player player = after.getSlot(placed / width, placed % width);
+        log[start] = (byte) placed;
+        log[start + 1] = player == Player.HUMAN ? HUMAN : COMPUTER;
+        log[start + 2] = (byte) count;
+        for (int i = 0; i < count; i++) {
+            log[start + 3 + i] = (byte) flipped[i];
+        }
+        starts[size++] = start;
+        position = size;
+    }
+
+    /**
+     * Checks whether a move can be taken back.
+     *
+     * @return {@code true} if the current board has moves.
+     */
+    boolean canUndo() {
+        return position > 0;
+    }
+
+    /**
+     * Checks whether a move can be redone.
+     *
+     * @return {@code true} if a move was taken back.
+     */
+    boolean canRedo() {
+        return position < size;
+    }
+
+    /**
+     * Gets the player of the last move on the current board.
+     *
+     * @return The player or {@link Player#NOBODY} if there is no move.
+     */
+    Player lastPlayer() {
+        if (position == 0) {
+            return Player.NOBODY;
+        }
+        return player(position - 1);
+    }
+
+    /**
+     * Gets the player of the next move that can be redone.
+     *
+     * @return The player or {@link Player#NOBODY} if there is no move.
+     */
+    Player nextPlayer() {
+        if (position == size) {
+            return Player.NOBODY;
+        }
+        return player(position);
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @param board The current board.
+     * @return The board before the last move.
+     * @throws IllegalStateException If there is no move.
+     */
+    Board undo(Board board) {
+        if (!canUndo()) {
+            throw new IllegalStateException("No move to take back");
+        }
+        position--;
+        int slot = log[starts[position]] & 0xFF;
+        return board.undoMove(slot / board.getSize(),
+                slot % board.getSize(), flipped(position));
+    }
+
+    /**
+     * Redoes the next move that was taken back.
+     *
+     * @param board The current board.
+     * @return The board after the move.
+     * @throws IllegalStateException If there is no move.
+     */
+    Board redo(Board board) {
+        if (!canRedo()) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int slot = log[starts[position]] & 0xFF;
+        Board newBoard = board.redoMove(slot / board.getSize(),
+                slot % board.getSize(), player(position), flipped(position));
+        position++;
+        return newBoard;
+    }
+
+    /**
+     * Checks whether a move of the human can be taken back.
+     *
+     * @return {@code true} if the current board has a human move.
+     */
+    boolean canUndoTurn() {
+        for (int i = position - 1; i >= 0; i--) {
+            if (player(i) == Player.HUMAN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes back the moves of the machine after the last human move and the
+     * human move itself, so the human is to move again.
+     *
+     * @param board The current board.
+     * @return The board before the last human move.
+     * @throws IllegalStateException If there is no human move.
+     */
+    Board undoTurn(Board board) {
+        if (!canUndoTurn()) {
+            throw new IllegalStateException("No move to take back");
+        }
+        while (lastPlayer() == Player.COMPUTER) {
+            board = undo(board);
+        }
+        return undo(board);
+    }
+
+    /**
+     * Redoes the next move and the following moves of the machine.
+     *
+     * @param board The current board.
+     * @return The board before the next human move.
+     * @throws IllegalStateException If there is no move.
+     */
+    Board redoTurn(Board board) {
+        board = redo(board);
+        while (nextPlayer() == Player.COMPUTER) {
+            board = redo(board);
+        }
+        return board;
+    }
+
+    /**
+     * Forgets all moves.
+     */
+    void clear() {
+        size = 0;
+        position = 0;
+    }
+
+    /**
+     * Gets the player of a move.
+     *
+     * @param move The number of the move.
+     * @return Human or computer.
+     */
+    private Player player(int move) {
+        if (log[starts[move] + 1] == HUMAN) {
+            return Player.HUMAN;
+        }
+        return Player.COMPUTER;
+    }
+
+    /**
+     * Gets the slots flipped by a move.
+     *
+     * @param move The number of the move.
+     * @return The encoded slots.
+     */
+    private int[] flipped(int move) {
+        int start = starts[move];
+        int[] slots = new int[log[start + 2] & 0xFF];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = log[start + 3 + i] & 0xFF;
+        }
+        return slots;
+    }
+
+    /**
+     * Gets the position behind a move in {@link #log}.
+     *
+     * @param move The number of the move.
+     * @return The position of the next move.
+     */
+    private int end(int move) {
+        return starts[move] + 3 + (log[starts[move] + 2] & 0xFF);
+    }
+}
@@ -0,0 +1,412 @@
+package view_and_controller;
+
+import model.Board;
+import model.IllegalMoveException;
+import model.MoveScore;
+import model.Player;
+import model.ReversiBoard;
+import model.SearchProgress;
+import model.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Speaks the text protocol of the NBoard GUI on a reader and a writer, so
+ * the engine can play against other Othello engines and GUIs. Supported
+ * commands are {@code nboard}, {@code set depth d}, {@code set game ggf},
+ * {@code move m}, {@code hint n}, {@code go} and {@code ping n}; unknown
+ * commands are ignored as the protocol demands. In addition to the
+ * protocol, {@code set time ms} limits the time of {@code go} and
+ * {@code hint}.
+ *
+ * <p>The protocol names the players black and white, black moving first.
+ * Internally black is the human and white the machine; whenever the engine
+ * searches for black, the colors are swapped so the player to move is
+ * always the machine. The protocol expects evaluations in discs, but the
+ * engine's scores add up the local scores of all positions along the best
+ * line, so they are converted to rough estimates of the final disc margin,
+ * positive if good for the player to move.</p>
+ */
+final class NBoardEngine {
+
+    /**
+     * The name the engine reports to the GUI.
+     */
+    private static final String NAME = "java-reversi";
+
+    /**
+     * The deepest search the GUI may request.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * The score of a position per disc it is expected to win by in the end.
+     * Fitted to self-play games at depths 1 to 4: the scores of the best
+     * moves divided by the depth correlate with the final margin by 0.85
+     * to 0.9 in the last 15 moves but only by 0.1 to 0.5 in the opening.
+     */
+    private static final double SCORE_PER_DISC = 2500;
+
+    /**
+     * Finds the board of a GGF game: size, slots and player to move.
+     */
+    private static final Pattern GGF_BOARD = Pattern.compile(
+            "BO\\[\\s*(\\d+)\\s+([-*O\\s]+?)\\s*([*O])\\s*\\]");
+
+    /**
+     * Finds the moves of a GGF game, i.e., the tags {@code B} and {@code W}
+     * but not tags ending with these letters like {@code PB}.
+     */
+    private static final Pattern GGF_MOVE
+            = Pattern.compile("(?<![A-Z])([BW])\\[([^\\]]*)\\]");
+
+    /**
+     * The source of the commands.
+     */
+    private final BufferedReader in;
+
+    /**
+     * The destination of the answers.
+     */
+    private final PrintWriter out;
+
+    /**
+     * The slots of the current position, {@code X} black, {@code O} white
+     * and {@code .} empty, row by row.
+     */
+    private char[] slots = new char[Board.SIZE * Board.SIZE];
+
+    /**
+     * {@code true} if black is to move.
+     */
+    private boolean blackToMove;
+
+    /**
+     * The depth of searches.
+     */
+    private int depth = 3;
+
+    /**
+     * The time limit of searches in milliseconds, 0 for no limit.
+     */
+    private long timeMillis;
+
+    /**
+     * Creates an engine at the initial position.
+     *
+     * @param in The source of the commands.
+     * @param out The destination of the answers.
+     */
+    NBoardEngine(BufferedReader in, PrintWriter out) {
+        this.in = in;
+        this.out = out;
+        setPosition(new ReversiBoard(), true);
+    }
+
+    /**
+     * Executes commands until the input ends or {@code quit} is read.
+     *
+     * @throws IOException If the input cannot be read.
+     */
+    void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equals("quit")) {
+                break;
+            }
+            try {
+                execute(line);
+            } catch (IllegalArgumentException | IllegalMoveException e) {
+                out.println("status Error: " + e.getMessage());
+            }
+            out.flush();
+        }
+        out.flush();
+    }
+
+    /**
+     * Executes one command.
+     *
+     * @param line The command with its arguments.
+     */
+    private void execute(String line) {
+        String[] tokens = line.split("\\s+", 3);
+        switch (tokens[0]) {
+        case "nboard":
+            out.println("set myname " + NAME);
+            break;
+        case "ping":
+            out.println("pong" + (tokens.length > 1 ? " " + tokens[1] : ""));
+            break;
+        case "set":
+            if (tokens.length == 3) {
+                set(tokens[1], tokens[2]);
+            }
+            break;
+        case "move":
+            if (tokens.length > 1) {
+                play(tokens[1]);
+            }
+            break;
+        case "hint":
+            hint(tokens.length > 1 ? Integer.parseInt(tokens[1]) : 1);
+            break;
+        case "go":
+            go();
+            break;
+        default:
+            // Unknown commands such as learn or analyze are ignored.
+        }
+    }
+
+    /**
+     * Executes a {@code set} command.
+     *
+     * @param name The name of the setting.
+     * @param value The value.
+     */
+    private void set(String name, String value) {
+        switch (name) {
+        case "depth":
+            int newDepth = Integer.parseInt(value.trim());
+            if (newDepth < 1 || newDepth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Depth must be between 1"
+                        + " and " + MAX_DEPTH);
+            }
+            depth = newDepth;
+            break;
+        case "time":
+            timeMillis = Long.parseLong(value.trim());
+            break;
+        case "game":
+            setGame(value);
+            break;
+        default:
+            // Settings such as contempt are ignored.
+        }
+    }
+
+    /**
+     * Sets the position of a GGF game: its start board followed by its
+     * moves.
+     *
+     * @param ggf The game in GGF.
+     */
+    private void setGame(String ggf) {
+        Matcher board = GGF_BOARD.matcher(ggf);
+        if (!board.find() || Integer.parseInt(board.group(1))
+                != Board.SIZE) {
+            throw new IllegalArgumentException("Unsupported board");
+        }
+        String cells = board.group(2).replaceAll("\\s", "");
+        if (cells.length() != slots.length) {
+            throw new IllegalArgumentException("Unsupported board");
+        }
+        TranspositionTable.newGame();
+        for (int i = 0; i < slots.length; i++) {
+            char c = cells.charAt(i);
+            slots[i] = c == '*' ? 'X' : c == 'O' ? 'O' : '.';
+        }
+        blackToMove = board.group(3).equals("*");
+        Matcher move = GGF_MOVE.matcher(ggf);
+        move.region(board.end(), ggf.length());
+        while (move.find()) {
+            if (move.group(1).equals("B") != blackToMove) {
+                throw new IllegalArgumentException("Move out of turn");
+            }
+            play(move.group(2));
+        }
+    }
+
+    /**
+     * Executes a move of the player to move. The GUI sends the moves of
+     * both sides and replays whole games, so they are not counted as
+     * played moves; the engine counts the moves it searches itself.
+     *
+     * @param move The move like {@code F5}, optionally followed by
+     *        {@code /evaluation/time}, or {@code PA} for a pass.
+     */
+    private void play(String move) {
+        String square = move.split("/", 2)[0].trim()
+                .toUpperCase(Locale.ROOT);
+        if (square.equals("PA") || square.equals("PASS")) {
+            blackToMove = !blackToMove;
+            return;
+        }
+        if (square.length() != 2) {
+            throw new IllegalArgumentException("Invalid move " + move);
+        }
+        int col = square.charAt(0) - 'A';
+        int row = square.charAt(1) - '1';
+        if (row < 0 || row >= Board.SIZE || col < 0 || col >= Board.SIZE) {
+            throw new IllegalArgumentException("Invalid move " + move);
+        }
+        ReversiBoard current = currentBoard();
+        ReversiBoard board = null;
+        if (current.next() == Player.COMPUTER) {
+            board = current.replay(row, col);
+        }
+        if (board == null) {
+            throw new IllegalMoveException("Illegal move " + move);
+        }
+        setPosition(board, !blackToMove);
+    }
+
+    /**
+     * Searches the best move and sends it as {@code === move/eval/time}.
+     */
+    private void go() {
+        ReversiBoard board = currentBoard();
+        if (board.next() != Player.COMPUTER) {
+            out.println("=== PA");
+            return;
+        }
+        SearchProgress[] last = new SearchProgress[1];
+        long start = System.nanoTime();
+        ReversiBoard result = board.machineMove(depth, timeMillis,
+                progress -> last[0] = progress);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int move = changedSlot(board, result);
+        StringBuilder bob = new StringBuilder("=== ").append(name(move));
+        if (last[0] != null) {
+            bob.append(String.format(Locale.ROOT, "/%.2f/%.3f",
+                    discs(last[0].getScore(), last[0].getDepth()),
+                    seconds));
+        }
+        out.println(bob);
+    }
+
+    /**
+     * Sends the best moves as {@code search move eval 0 depth} lines,
+     * followed by an empty status.
+     *
+     * @param count The number of moves.
+     */
+    private void hint(int count) {
+        ReversiBoard board = currentBoard();
+        if (board.next() == Player.COMPUTER) {
+            out.println("status Searching");
+            SearchProgress[] last = new SearchProgress[1];
+            List<MoveScore> scores = board.analyze(depth, count,
+                    timeMillis, progress -> last[0] = progress);
+
+            // Without time for depth 1, the scores are of depth 1 anyway.
+            int reached = last[0] == null ? 1 : last[0].getDepth();
+            for (MoveScore score: scores) {
+                out.println(String.format(Locale.ROOT,
+                        "search %s %.2f 0 %d", name(score.getRow()
+                                * Board.SIZE + score.getColumn()),
+                        discs(score.getScore(), reached), reached));
+            }
+        }
+        out.println("status");
+    }
+
+    /**
+     * Estimates the final disc margin of a search result.
+     *
+     * @param score The score of the search.
+     * @param searched The depth of the search.
+     * @return The margin of the player to move, between -64 and 64.
+     */
+    private static double discs(double score, int searched) {
+        double margin = score / (SCORE_PER_DISC * Math.max(1, searched));
+        return Math.max(-Board.SIZE * Board.SIZE,
+                Math.min(Board.SIZE * Board.SIZE, margin));
+    }
+
+    /**
+     * Creates the board of the current position, with the colors swapped if
+     * black is to move, so the machine is always the player to move.
+     *
+     * @return The board.
+     */
+    private ReversiBoard currentBoard() {
+        char[] oriented = slots.clone();
+        if (blackToMove) {
+            swapColors(oriented);
+        }
+        return ReversiBoard.parse(new String(oriented), Player.COMPUTER);
+    }
+
+    /**
+     * Stores a board as the current position.
+     *
+     * @param board The board whose colors are swapped if black moved, i.e.,
+     *        if {@code black} is {@code false}.
+     * @param black {@code true} if black is to move now.
+     */
+    private void setPosition(ReversiBoard board, boolean black) {
+        for (int i = 0; i < slots.length; i++) {
+            Player player = board.getSlot(i / Board.SIZE, i % Board.SIZE);
+            if (player == Player.HUMAN) {
+                slots[i] = 'X';
+            } else if (player == Player.COMPUTER) {
+                slots[i] = 'O';
+            } else {
+                slots[i] = '.';
+            }
+        }
+        if (!black) {
+            swapColors(slots);
+        }
+        blackToMove = black;
+    }
+
+    /**
+     * Swaps the colors of all tiles.
+     *
+     * @param cells The slots to be changed.
+     */
+    private static void swapColors(char[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == 'X') {
+                cells[i] = 'O';
+            } else if (cells[i] == 'O') {
+                cells[i] = 'X';
+            }
+        }
+    }
+
+    /**
+     * Finds the slot a move was made on.
+     *
+     * @param before The board before the move.
+     * @param after The board after the move.
+     * @return The move encoded as {@code row * Board.SIZE + column}, or -1
+     *         if no slot was filled.
+     */
+    private static int changedSlot(ReversiBoard before, ReversiBoard after) {
+        for (int i = 0; i < Board.SIZE * Board.SIZE; i++) {
+            int row = i / Board.SIZE;
+            int col = i % Board.SIZE;
+            if (before.getSlot(row, col) == Player.NOBODY
+                    && after.getSlot(row, col) != Player.NOBODY) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the name of a move in the protocol.
+     *
+     * @param move The move encoded as {@code row * Board.SIZE + column}, or
+     *        -1 for a pass.
+     * @return The name like {@code F5}, or {@code PA}.
+     */
+    private static String name(int move) {
+        if (move < 0) {
+            return "PA";
+        }
+        return "" + (char) ('A' + move % Board.SIZE)
+                + (char) ('1' + move / Board.SIZE);
+    }
+}
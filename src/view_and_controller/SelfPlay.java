@@ -0,0 +1,228 @@
+package view_and_controller;
+
+import model.Board;
+import model.Engine;
+import model.Player;
+import model.ReversiBoard;
+import model.TranspositionTable;
+
+import java.util.Locale;
+
+/**
+ * Lets two engines play against each other with the same time per move and
+ * prints the result as JSON. The engines take turns at moving first, so
+ * each plays half of the games with either color.
+ *
+ * <p>Options: {@code --games n} (default 10), {@code --time ms} per move
+ * (default 200), {@code --depth d}, the deepest iteration of the minimax
+ * engine (default 10), and {@code --first engine} and {@code --second
+ * engine}, each {@code minimax} or {@code mcts} (default {@code mcts}
+ * against {@code minimax}).</p>
+ */
+public final class SelfPlay {
+
+    /**
+     * The number of games.
+     */
+    private int games = 10;
+
+    /**
+     * The time per move in milliseconds.
+     */
+    private long timeMillis = 200;
+
+    /**
+     * The deepest iteration of timed searches.
+     */
+    private int depth = 10;
+
+    /**
+     * The engines playing against each other.
+     */
+    private final Engine[] engines = {Engine.MONTE_CARLO, Engine.MINIMAX};
+
+    /**
+     * The games won by each engine.
+     */
+    private final int[] wins = new int[2];
+
+    /**
+     * The tiles of each engine at the end of the games.
+     */
+    private final long[] tiles = new long[2];
+
+    /**
+     * The moves of each engine.
+     */
+    private final long[] moves = new long[2];
+
+    /**
+     * The time each engine spent on its moves in nanoseconds.
+     */
+    private final long[] nanos = new long[2];
+
+    // Use the command line.
+    private SelfPlay() {
+    }
+
+    /**
+     * Plays the games and prints the result.
+     *
+     * @param args The options.
+     */
+    public static void main(String[] args) {
+        SelfPlay match = new SelfPlay();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--games":
+                match.games = Integer.parseInt(args[i + 1]);
+                break;
+            case "--time":
+                match.timeMillis = Long.parseLong(args[i + 1]);
+                break;
+            case "--depth":
+                match.depth = Integer.parseInt(args[i + 1]);
+                break;
+            case "--first":
+                match.engines[0] = parseEngine(args[i + 1]);
+                break;
+            case "--second":
+                match.engines[1] = parseEngine(args[i + 1]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option "
+                        + args[i]);
+            }
+        }
+        match.run();
+    }
+
+    /**
+     * Plays all games and prints the result.
+     */
+    private void run() {
+        long start = System.nanoTime();
+        int draws = 0;
+        for (int game = 0; game < games; game++) {
+            // The human moves first, engine 0 in even and 1 in odd games.
+            int human = game % 2;
+            Player winner = play(human);
+            if (winner == Player.HUMAN) {
+                wins[human]++;
+            } else if (winner == Player.COMPUTER) {
+                wins[1 - human]++;
+            } else {
+                draws++;
+            }
+            System.err.println("game " + (game + 1) + ": " + engines[0]
+                    + " " + wins[0] + ", " + engines[1] + " " + wins[1]
+                    + ", draws " + draws);
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "{\"games\": %d, \"timeMillis\": %d, \"millis\": %d, "
+                        + "\"draws\": %d, \"engines\": [%s, %s]}", games,
+                timeMillis, (System.nanoTime() - start) / 1_000_000L, draws,
+                result(0), result(1)));
+    }
+
+    /**
+     * Plays one game in which the human moves first.
+     *
+     * @param human The index of the engine playing the human.
+     * @return The winner, {@link Player#NOBODY} for a tie.
+     */
+    private Player play(int human) {
+        TranspositionTable.newGame();
+        ReversiBoard board = new ReversiBoard();
+        while (!board.gameOver()) {
+            Player mover = board.next();
+            int side = mover == Player.HUMAN ? human : 1 - human;
+            ReversiBoard oriented = orient(board, mover);
+            oriented.setEngine(engines[side]);
+            long begin = System.nanoTime();
+            ReversiBoard result = oriented.machineMove(depth, timeMillis,
+                    null);
+            nanos[side] += System.nanoTime() - begin;
+            moves[side]++;
+            int move = changedSlot(oriented, result);
+            board = board.replay(move / Board.SIZE, move % Board.SIZE);
+        }
+        tiles[human] += board.getNumberOfHumanTiles();
+        tiles[1 - human] += board.getNumberOfMachineTiles();
+        return board.getWinner();
+    }
+
+    /**
+     * Formats the statistics of an engine as JSON.
+     *
+     * @param index The index of the engine.
+     * @return The JSON object.
+     */
+    private String result(int index) {
+        return String.format(Locale.ROOT, "{\"engine\": \"%s\", "
+                + "\"wins\": %d, \"tiles\": %d, \"avgMoveMillis\": %.1f}",
+                engines[index], wins[index], tiles[index],
+                moves[index] == 0 ? 0 : nanos[index] / 1e6 / moves[index]);
+    }
+
+    /**
+     * Creates a board on which the machine is to move, with the colors
+     * swapped if the human is to move.
+     *
+     * @param board The current board.
+     * @param mover The player to move.
+     * @return The board for the machine.
+     */
+    private static ReversiBoard orient(ReversiBoard board, Player mover) {
+        if (mover == Player.COMPUTER) {
+            return board.clone();
+        }
+        StringBuilder slots = new StringBuilder();
+        for (int i = 0; i < Board.SIZE; i++) {
+            for (int j = 0; j < Board.SIZE; j++) {
+                Player player = board.getSlot(i, j);
+                if (player == Player.HUMAN) {
+                    slots.append('O');
+                } else if (player == Player.COMPUTER) {
+                    slots.append('X');
+                } else {
+                    slots.append('.');
+                }
+            }
+        }
+        return ReversiBoard.parse(slots.toString(), Player.COMPUTER);
+    }
+
+    /**
+     * Finds the slot a move was made on.
+     *
+     * @param before The board before the move.
+     * @param after The board after the move.
+     * @return The slot encoded as {@code row * Board.SIZE + column}.
+     * @throws IllegalStateException If no slot was filled.
+     */
+    private static int changedSlot(ReversiBoard before, ReversiBoard after) {
+        for (int i = 0; i < Board.SIZE * Board.SIZE; i++) {
+            int row = i / Board.SIZE;
+            int col = i % Board.SIZE;
+            if (before.getSlot(row, col) == Player.NOBODY
+                    && after.getSlot(row, col) != Player.NOBODY) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The engine did not move");
+    }
+
+    /**
+     * Parses the name of an engine.
+     *
+     * @param name {@code minimax} or {@code mcts}.
+     * @return The engine.
+     */
+    private static Engine parseEngine(String name) {
+        if (name.equalsIgnoreCase("mcts")) {
+            return Engine.MONTE_CARLO;
+        }
+        return Engine.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,9 +1,33 @@
 package view_and_controller;
 
+import metrics.MetricsRegistry;
+import model.Engine;
+import model.IllegalMoveException;
+import model.MoveScore;
+import model.NeuralEvaluator;
+import model.ProbCut;
+import model.SearchAlgorithm;
 import model.ReversiBoard;
 import model.Player;
+import model.TranspositionTable;
 
-import java.util.Scanner;
+import storage.GameRecordWriter;
+import storage.GameRecorder;
+import storage.PositionDatabase;
+import storage.PositionStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 /**
  * A user interface who gets an input, executes the command and prints the
@@ -11,6 +35,65 @@ import java.util.Scanner;
  */
 public final class Shell {
 
+    /**
+     * The deepest analysis a user can request.
+     */
+    private static final int MAX_ANALYSIS_DEPTH = 6;
+
+    /**
+     * Separates the tokens of a command.
+     */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * The size of the input and output buffers of scripts in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * {@code true} if commands are read from a script: no prompts are
+     * printed, output is buffered and machine-readable, and errors are
+     * printed to standard output with their line number.
+     */
+    private static boolean scripted;
+
+    /**
+     * The destination of all regular output.
+     */
+    private static PrintWriter out = new PrintWriter(System.out, true);
+
+    /**
+     * The number of the command line being executed.
+     */
+    private static int lineNumber;
+
+    /**
+     * The number of errors so far.
+     */
+    private static int errors;
+
+    /**
+     * Whether the user asked to quit.
+     */
+    private static boolean quit;
+
+    /**
+     * Appends finished games to the record file, {@code null} if games are
+     * not recorded.
+     */
+    private static GameRecordWriter recordWriter;
+
+    /**
+     * Records the moves of the current game, {@code null} if games are not
+     * recorded.
+     */
+    private static GameRecorder recorder;
+
+    /**
+     * The database of recorded positions, {@code null} if none was opened.
+     */
+    private static PositionDatabase positions;
+
     // Allow only one instance of the Shell.
     private Shell() {
     }
@@ -18,87 +101,300 @@ public final class Shell {
     /**
      * Main loop for user interaction.
      *
-     * @param args The arguments a user entered.
+     * @param args The arguments a user entered. {@code --record file}
+     *        appends every played game to a game record file,
+     *        {@code --positions file} opens a position index the machine
+     *        consults before searching, {@code --network file} scores
+     *        positions with a neural network, {@code --probcut file}
+     *        makes the machine search selectively with a calibration
+     *        whose threshold {@code --selectivity t} changes (lower is
+     *        faster and weaker), {@code --search algorithm} searches
+     *        on bit boards with {@code alphabeta}, {@code pvs},
+     *        {@code aspiration} or {@code mtdf}, {@code --script file}
+     *        executes the commands of a file ({@code -} for standard
+     *        input) without prompts. In this mode the program exits
+     *        with status 1 if a command failed. {@code --nboard} speaks
+     *        the NBoard engine protocol on standard input and output
+     *        instead.
      */
     public static void main(final String[] args) {
-        Scanner sc = new Scanner(System.in);
+        String script = null;
 
-        // Loop iteration variable needed to quit the loop.
-        boolean quit = false;
         ReversiBoard board = new ReversiBoard();
+        boolean nboard = false;
+        ProbCut probCut = null;
+        double selectivity = Double.NaN;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--nboard")) {
+                nboard = true;
+            } else if (i + 1 == args.length) {
+                printError("Missing value of option " + args[i]);
+            } else if (args[i].equals("--script")) {
+                script = args[++i];
+            } else if (args[i].equals("--record")) {
+                String file = args[++i];
+                try {
+                    recordWriter = new GameRecordWriter(Paths.get(file));
+                } catch (IOException e) {
+                    printError("Cannot open " + file + ": " + e.getMessage());
+                }
+            } else if (args[i].equals("--positions")) {
+                String file = args[++i];
+                try {
+                    positions = new PositionDatabase(Paths.get(file));
+                    ReversiBoard.setBook(positions);
+                } catch (IOException e) {
+                    printError("Cannot open " + file + ": " + e.getMessage());
+                }
+            } else if (args[i].equals("--network")) {
+                String file = args[++i];
+                try {
+                    ReversiBoard.setEvaluator(
+                            NeuralEvaluator.load(Paths.get(file)));
+                } catch (IOException e) {
+                    printError("Cannot open " + file + ": " + e.getMessage());
+                }
+            } else if (args[i].equals("--probcut")) {
+                String file = args[++i];
+                try {
+                    probCut = ProbCut.load(Paths.get(file));
+                } catch (IOException e) {
+                    printError("Cannot open " + file + ": " + e.getMessage());
+                }
+            } else if (args[i].equals("--search")) {
+                SearchAlgorithm algorithm = parseAlgorithm(args[++i]);
+                if (algorithm == null) {
+                    printError("Unknown search algorithm " + args[i]);
+                } else {
+                    ReversiBoard.setSearchAlgorithm(algorithm);
+                }
+            } else if (args[i].equals("--selectivity")) {
+                try {
+                    selectivity = Double.parseDouble(args[++i]);
+                } catch (NumberFormatException e) {
+                    printError("Invalid selectivity " + args[i]);
+                }
+            } else {
+                printError("Unknown option " + args[i]);
+            }
+        }
+        if (probCut != null) {
+            if (!Double.isNaN(selectivity)) {
+                probCut.setThreshold(selectivity);
+            }
+            ReversiBoard.setProbCut(probCut);
+        }
+        if (nboard) {
+            runEngine();
+            return;
+        }
+        BufferedReader in;
+        try {
+            in = openInput(script);
+        } catch (IOException e) {
+            printError("Cannot open " + script + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        startRecording(board);
 
-        // Main loop to get user input and execute it.
-        while (!quit) {
-            System.out.print("othello> ");
-
-            // Get the next input.
-            String input = sc.nextLine();
+        try {
+            // Main loop to get user input and execute it.
+            while (!quit) {
+                if (!scripted) {
+                    out.print("othello> ");
+                    out.flush();
+                }
 
-            // Remove whitespace until the first char appears.
-            input = input.trim();
+                // Get the next input.
+                String input;
+                try {
+                    input = in.readLine();
+                } catch (IOException e) {
+                    printError("Cannot read the input: " + e.getMessage());
+                    break;
+                }
+                lineNumber++;
 
-            // Skip a loop iteration, if input is null.
-            if (input == null) {
-                continue;
-            }
-            String[] tokens = input.split("\\s+");
+                // Quit at the end of the input.
+                if (input == null) {
+                    break;
+                }
 
-            // Only proceed if there exists an user input.
-            if (tokens.length == 0 || tokens[0].isEmpty()) {
-                continue;
-            }
+                // Remove whitespace until the first char appears.
+                input = input.trim();
+                String[] tokens = WHITESPACE.split(input);
 
-            // First input must be a command.
-            String commandString = tokens[0].toUpperCase();
-            char command = commandString.charAt(0);
+                // Only proceed if there exists an user input.
+                if (tokens.length == 0 || tokens[0].isEmpty()) {
+                    continue;
+                }
 
-            // 3 entered commands?
-            if (tokens.length == 3) {
                 try {
-                    if (command == 'M') {
-                        // Make a MOVE.
-                        board = move(Integer.parseInt(tokens[1]),
-                                Integer.parseInt(tokens[2]), board);
-                    } else {
-                        printError("Invalid command");
-                    }
-                } catch (NumberFormatException e) {
-                    printError("You have to enter two integers");
+                    board = execute(tokens, board);
+                } catch (IllegalArgumentException | IllegalMoveException e) {
+                    // E.g., a slot outside the board.
+                    printError(e.getMessage());
                 }
-            } else if (tokens.length == 2) {
-                try {
-                    if (command == 'L') {
-                        // Set the LEVEL.
-                        board = setLevel(board, Integer.parseInt(tokens[1]));
-                    } else {
-                        printError("Invalid command");
-                    }
-                } catch (NumberFormatException e) {
-                    printError("You have to enter an integer");
+            }
+        } finally {
+            // A failing command must not lose the buffered output.
+            stopRecording();
+            closePositions();
+            out.flush();
+        }
+        if (scripted && errors > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executes one command line.
+     *
+     * @param tokens The words of the line, at least one.
+     * @param board The current board.
+     * @return The board after the command.
+     */
+    private static ReversiBoard execute(String[] tokens, ReversiBoard board) {
+        // First input must be a command.
+        String commandString = tokens[0].toUpperCase();
+        char command = commandString.charAt(0);
+
+        // 3 entered commands?
+        if (tokens.length == 3) {
+            try {
+                if (command == 'M') {
+                    // Make a MOVE.
+                    board = move(Integer.parseInt(tokens[1]),
+                            Integer.parseInt(tokens[2]), board);
+                } else if (command == 'A') {
+                    // ANALYZE the best moves.
+                    analyze(board, Integer.parseInt(tokens[1]),
+                            Integer.parseInt(tokens[2]));
+                } else {
+                    printError("Invalid command");
                 }
-            } else {
-                // Execute single commands.
-                switch (command) {
-                case 'N':       // NEW game will be created.
-                    board = createNewGame(board);
-                    break;
-                case 'P':       // PRINT board as a matrix.
-                    System.out.println(board);
-                    break;
-                case 'S':       // SWITCH initial player and start a new game.
-                    board = switchPlayer(board);
-                    break;
-                case 'H':       // Print the HELP dialog.
-                    printHelp();
-                    break;
-                case 'Q':       // QUIT loop and exit the program code.
-                    quit = true;
-                    break;
-                default:
+            } catch (NumberFormatException e) {
+                printError("You have to enter two integers");
+            }
+        } else if (tokens.length == 2) {
+            try {
+                if (command == 'L') {
+                    // Set the LEVEL.
+                    board = setLevel(board, Integer.parseInt(tokens[1]));
+                } else if (command == 'A') {
+                    // ANALYZE all moves.
+                    analyze(board, Integer.parseInt(tokens[1]), 0);
+                } else if (command == 'E') {
+                    // Choose the ENGINE of the machine.
+                    setEngine(board, tokens[1]);
+                } else if (command == 'N') {
+                    // NEW game on a board of another size.
+                    board = createNewGame(board,
+                            Integer.parseInt(tokens[1]));
+                } else {
                     printError("Invalid command");
                 }
+            } catch (NumberFormatException e) {
+                printError("You have to enter an integer");
             }
+        } else {
+            // Execute single commands.
+            switch (command) {
+            case 'N':       // NEW game will be created.
+                board = createNewGame(board);
+                break;
+            case 'P':       // PRINT board as a matrix.
+                printBoard(board);
+                break;
+            case 'S':       // SWITCH initial player and start a new game.
+                board = switchPlayer(board);
+                break;
+            case 'B':       // Look up the position in the BOOK.
+                printPosition(board);
+                break;
+            case 'D':       // DUMP the metrics.
+                out.print(MetricsRegistry.getDefault().expose());
+                break;
+            case 'H':       // Print the HELP dialog.
+                printHelp();
+                break;
+            case 'Q':       // QUIT loop and exit the program code.
+                quit = true;
+                break;
+            default:
+                printError("Invalid command");
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Lets other programs use the engine via the NBoard protocol until the
+     * input ends.
+     */
+    private static void runEngine() {
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        PrintWriter engineOut = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                BUFFER_SIZE));
+        try {
+            new NBoardEngine(in, engineOut).run();
+        } catch (IOException e) {
+            printError("Cannot read the input: " + e.getMessage());
         }
+        closePositions();
+    }
+
+    /**
+     * Opens the source of the commands and sets up the output accordingly.
+     *
+     * @param script The script file, {@code -} for standard input, or
+     *        {@code null} for interactive use.
+     * @return The reader of the commands.
+     * @throws IOException If the script cannot be opened.
+     */
+    private static BufferedReader openInput(String script)
+            throws IOException {
+        if (script == null) {
+            return new BufferedReader(new InputStreamReader(System.in));
+        }
+        scripted = true;
+        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                System.out, StandardCharsets.UTF_8), BUFFER_SIZE));
+        if (script.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in,
+                    StandardCharsets.UTF_8), BUFFER_SIZE);
+        }
+        return Files.newBufferedReader(Paths.get(script));
+    }
+
+    /**
+     * Called by the command 'PRINT' to print the board, in scripts as one
+     * line of the slots followed by the player to move.
+     *
+     * @param board The current board of a game session.
+     */
+    private static void printBoard(ReversiBoard board) {
+        if (!scripted) {
+            out.println(board);
+            return;
+        }
+        StringBuilder bob = new StringBuilder("BOARD ");
+        for (int i = 0; i < board.getSize(); i++) {
+            for (int j = 0; j < board.getSize(); j++) {
+                Player player = board.getSlot(i, j);
+                if (player == Player.HUMAN) {
+                    bob.append('X');
+                } else if (player == Player.COMPUTER) {
+                    bob.append('O');
+                } else {
+                    bob.append('.');
+                }
+            }
+        }
+        out.println(bob.append(' ').append(board.next()));
     }
 
     /**
@@ -114,12 +410,92 @@ public final class Shell {
         // Difficulty level between 1 and 5?
         if (level <= 5 && level >= 1) {
             board.setLevel(level);
+            if (recorder != null) {
+                recorder.setLevel(level);
+            }
         } else {
             printError("Enter a level between 1 and 5");
         }
         return board;
     }
 
+    /**
+     * Sets the strategy of the machine for the current and all following
+     * games.
+     *
+     * @param board The current board of a game session.
+     * @param name The name entered by the user, {@code minimax} or
+     *        {@code mcts}.
+     */
+    private static void setEngine(ReversiBoard board, String name) {
+        String engine = name.toUpperCase(Locale.ROOT);
+        if (engine.equals("MINIMAX")) {
+            board.setEngine(Engine.MINIMAX);
+        } else if (engine.equals("MCTS") || engine.equals("MONTE_CARLO")) {
+            board.setEngine(Engine.MONTE_CARLO);
+        } else {
+            printError("Enter minimax or mcts");
+        }
+    }
+
+    /**
+     * Converts the name of a search algorithm given on the command line.
+     *
+     * @param name The name, {@code alphabeta}, {@code pvs},
+     *        {@code aspiration} or {@code mtdf}.
+     * @return The algorithm or {@code null} if the name is unknown.
+     */
+    private static SearchAlgorithm parseAlgorithm(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+        case "alphabeta":
+            return SearchAlgorithm.ALPHA_BETA;
+        case "pvs":
+            return SearchAlgorithm.PRINCIPAL_VARIATION;
+        case "aspiration":
+            return SearchAlgorithm.ASPIRATION;
+        case "mtdf":
+            return SearchAlgorithm.MTDF;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Prints the legal moves of the player to move together with their
+     * scores, best moves first.
+     *
+     * @param board The current board of a game session.
+     * @param depth The search depth entered by the user.
+     * @param moves The number of moves to be printed, 0 for all moves.
+     */
+    private static void analyze(ReversiBoard board, int depth, int moves) {
+        if (depth > MAX_ANALYSIS_DEPTH || depth < 1) {
+            printError("Enter a depth between 1 and " + MAX_ANALYSIS_DEPTH);
+            return;
+        }
+        if (moves < 0) {
+            printError("Enter a non-negative number of moves");
+            return;
+        }
+        try {
+            List<MoveScore> scores = board.analyze(depth, moves, 0);
+            if (scripted) {
+                for (MoveScore score: scores) {
+                    out.println("SCORE " + (score.getRow() + 1) + " "
+                            + (score.getColumn() + 1) + " "
+                            + Math.round(score.getScore()));
+                }
+                return;
+            }
+            out.println(board.next() + " to move:");
+            for (MoveScore score: scores) {
+                out.println(score);
+            }
+        } catch (IllegalMoveException e) {
+            printError(e.getMessage());
+        }
+    }
+
     /**
      * Creates a new game and returns the newly created board with the same
      * settings as the current board.
@@ -128,20 +504,201 @@ public final class Shell {
      * @return The new created initial board.
      */
     private static ReversiBoard createNewGame(ReversiBoard board) {
+        TranspositionTable.newGame();
         board = new ReversiBoard(board, board.getFirstPlayer());
+        startRecording(board);
         if (board.getFirstPlayer() == Player.COMPUTER) {
             board = board.machineMove();
+            record(board);
         }
         return board;
     }
 
     /**
-     * Concatenates a given message and prints an error message.
+     * Creates a new game on a board of another size with the same settings
+     * as the current board.
+     *
+     * @param board The old game board.
+     * @param size The number of rows and columns of the new board.
+     * @return The new created initial board, or the old one if the size is
+     *         not supported.
+     */
+    private static ReversiBoard createNewGame(ReversiBoard board, int size) {
+        if (size < ReversiBoard.MIN_SIZE || size > ReversiBoard.MAX_SIZE
+                || size % 2 != 0) {
+            printError("Enter an even size between " + ReversiBoard.MIN_SIZE
+                    + " and " + ReversiBoard.MAX_SIZE);
+            return board;
+        }
+        return createNewGame(new ReversiBoard(board, board.getFirstPlayer(),
+                size));
+    }
+
+    /**
+     * Saves the game recorded so far, if it has any moves, and starts
+     * recording a new game. Records hold games of the standard size only,
+     * so games on other boards are not recorded.
+     *
+     * @param board The initial board of the new game.
+     */
+    private static void startRecording(ReversiBoard board) {
+        if (recordWriter == null) {
+            return;
+        }
+        saveRecording();
+        if (board.getSize() == ReversiBoard.SIZE) {
+            recorder = new GameRecorder(board, board.getLevel());
+        }
+    }
+
+    /**
+     * Records a move of the current game, if games are recorded.
+     *
+     * @param board The board after the move.
+     */
+    private static void record(ReversiBoard board) {
+        if (recorder != null) {
+            recorder.update(board);
+        }
+    }
+
+    /**
+     * Appends the current game to the record file, if it has any moves, and
+     * ends its recording.
+     */
+    private static void saveRecording() {
+        GameRecorder finished = recorder;
+        recorder = null;
+        if (finished == null || finished.getNumberOfMoves() == 0) {
+            return;
+        }
+        try {
+            recordWriter.write(finished.toRecord());
+            recordWriter.flush();
+        } catch (IOException e) {
+            printError("Cannot record the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the current game and closes the record file.
+     */
+    private static void stopRecording() {
+        if (recordWriter == null) {
+            return;
+        }
+        saveRecording();
+        try {
+            recordWriter.close();
+        } catch (IOException e) {
+            printError("Cannot close the record file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Called by the command 'BOOK' to print what the position database
+     * knows about the current position.
+     *
+     * @param board The current board of a game session.
+     */
+    private static void printPosition(ReversiBoard board) {
+        if (positions == null) {
+            printError("No position database, start with --positions file");
+            return;
+        }
+        PositionStats stats = positions.lookup(board);
+        if (scripted) {
+            printScriptedPosition(stats);
+            return;
+        }
+        if (stats == null) {
+            out.println("Position not found.");
+            return;
+        }
+        out.println("Reached in " + stats.getGames() + " games: "
+                + stats.getHumanWins() + " won by human, "
+                + stats.getComputerWins() + " won by machine, "
+                + stats.getDraws() + " ties.");
+        int move = stats.getBestMove();
+        if (move >= 0) {
+            out.println("Most played move: "
+                    + (move / ReversiBoard.SIZE + 1) + " "
+                    + (move % ReversiBoard.SIZE + 1) + " ("
+                    + stats.getBestMoveGames() + " games)");
+        }
+    }
+
+    /**
+     * Prints the statistics of a position in scripts as one line: the number
+     * of games, human wins, machine wins, ties and, if known, the most
+     * played move and its number of games.
+     *
+     * @param stats The statistics or {@code null} if the position is
+     *        unknown.
+     */
+    private static void printScriptedPosition(PositionStats stats) {
+        if (stats == null) {
+            out.println("BOOK NONE");
+            return;
+        }
+        StringBuilder bob = new StringBuilder("BOOK ");
+        bob.append(stats.getGames()).append(' ')
+                .append(stats.getHumanWins()).append(' ')
+                .append(stats.getComputerWins()).append(' ')
+                .append(stats.getDraws());
+        int move = stats.getBestMove();
+        if (move >= 0) {
+            bob.append(' ').append(move / ReversiBoard.SIZE + 1)
+                    .append(' ').append(move % ReversiBoard.SIZE + 1)
+                    .append(' ').append(stats.getBestMoveGames());
+        }
+        out.println(bob);
+    }
+
+    /**
+     * Closes the position database if one was opened.
+     */
+    private static void closePositions() {
+        if (positions == null) {
+            return;
+        }
+        ReversiBoard.setBook(null);
+        try {
+            positions.close();
+        } catch (IOException e) {
+            printError("Cannot close the position database: "
+                    + e.getMessage());
+        }
+        positions = null;
+    }
+
+    /**
+     * Concatenates a given message and prints an error message. In scripts
+     * it is printed to the regular output together with the line number.
      *
      * @param msg This message parts explains why an error occurred.
      */
     private static void printError(String msg) {
-        System.err.println("Error! " + msg);
+        errors++;
+        if (scripted) {
+            out.println("ERR " + lineNumber + " " + msg);
+        } else {
+            System.err.println("Error! " + msg);
+        }
+    }
+
+    /**
+     * Prints that a player has to miss a turn.
+     *
+     * @param player The player who cannot move.
+     * @param message The message for interactive use.
+     */
+    private static void printPass(Player player, String message) {
+        if (scripted) {
+            out.println("PASS " + player);
+        } else {
+            out.println(message);
+        }
     }
 
     /**
@@ -169,18 +726,20 @@ public final class Shell {
         if (board.next() == Player.HUMAN) {
             ReversiBoard newBoardHuman = board.move(row, column);
             if (newBoardHuman != null) {
+                record(newBoardHuman);
                 if (newBoardHuman.gameOver()) {
                     printResults(newBoardHuman);
                     return newBoardHuman;
                 }
                 if (newBoardHuman.next() == Player.COMPUTER) {
                     ReversiBoard newBoardComp = newBoardHuman.machineMove();
+                    record(newBoardComp);
                     if (newBoardComp.gameOver()) {
                         printResults(newBoardComp);
                     }
                     return newBoardComp;
                 } else {
-                    System.out.println("The bot has to miss a turn");
+                    printPass(Player.COMPUTER, "The bot has to miss a turn");
                     return newBoardHuman;
                 }
             } else {
@@ -189,8 +748,10 @@ public final class Shell {
                 return board;
             }
         } else {
-            System.out.println("Human has to miss a turn");
-            return board.machineMove();
+            printPass(Player.HUMAN, "Human has to miss a turn");
+            ReversiBoard newBoardComp = board.machineMove();
+            record(newBoardComp);
+            return newBoardComp;
         }
     }
 
@@ -201,13 +762,18 @@ public final class Shell {
      */
     private static void printResults(ReversiBoard board) {
         Player winner = board.getWinner();
+        if (scripted) {
+            out.println("OVER " + winner + " " + board.getNumberOfHumanTiles()
+                    + " " + board.getNumberOfMachineTiles());
+            return;
+        }
         if (winner != null) {
             if (winner == Player.HUMAN) {
-                System.out.println("You have won!");
+                out.println("You have won!");
             } else if (winner == Player.COMPUTER) {
-                System.out.println("Machine has won.");
+                out.println("Machine has won.");
             } else {
-                System.out.println("Tie game!");
+                out.println("Tie game!");
             }
         }
     }
@@ -232,15 +798,24 @@ public final class Shell {
      * Called by the command 'HELP' to print the help dialog.
      */
     private static void printHelp() {
-        System.out.println("'NEW' \t\t\t\t startet ein neues Spiel. \n"
+        out.println("'NEW [n]' \t\t\t startet ein neues Spiel, auf Wunsch "
+                + "auf einem Brett mit n x n Feldern (n gerade, 4 bis 16). \n"
                 + "'MOVE row column' \t Führt einen Zug aus. Row gibt die "
                 + "Zeile an, column die Spalte. Der Ursprung ist links oben.\n"
                 + "'LEVEL i' \t\t\t setzt den Schwierigkeitsgrad. 1 ist am"
                 + " einfachsten und 5 am schwierigsten. \n"
+                + "'ENGINE e' \t\t wählt die Strategie der Maschine: "
+                + "minimax oder mcts (Monte-Carlo-Baumsuche). \n"
                 + "'SWITCH' \t\t\t wechselt den Spieler, der anfängt und "
                 + "startet gleichzeitig ein neues Spiel. \n"
                 + "'PRINT' \t\t\t Gibt das aktuelle Brett als Zeilen x "
                 + "Spalten aus. \n"
+                + "'ANALYZE d [k]' \t bewertet alle (oder die k besten) "
+                + "Züge des Spielers am Zug mit Suchtiefe d. \n"
+                + "'BOOK' \t\t\t\t zeigt die Statistik der aktuellen "
+                + "Stellung in der Stellungsdatenbank. \n"
+                + "'DUMP' \t\t\t\t gibt die Metriken im "
+                + "Prometheus-Format aus. \n"
                 + "'HELP' \t\t\t\t ruft diese Hilfestellung auf. \n"
                 + "'QUIT' \t\t\t\t beendet das Programm.");
     }
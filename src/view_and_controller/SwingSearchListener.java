@@ -0,0 +1,55 @@
+package view_and_controller;
+
+import model.SearchListener;
+import model.SearchProgress;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Bridges progress reports of a machine search to the Event Dispatch Thread.
+ * Like {@code SwingWorker.publish}, reports arriving faster than the EDT can
+ * process them are coalesced, so only the most recent one is handed over and
+ * the searching thread never waits for the user interface.
+ */
+final class SwingSearchListener implements SearchListener {
+
+    /**
+     * The most recent report which was not processed by the EDT yet.
+     */
+    private final AtomicReference<SearchProgress> pending
+            = new AtomicReference<>();
+
+    /**
+     * The consumer which is called on the EDT.
+     */
+    private final Consumer<SearchProgress> consumer;
+
+    /**
+     * Creates a new bridge.
+     *
+     * @param consumer Is called on the EDT with the most recent report.
+     */
+    SwingSearchListener(Consumer<SearchProgress> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Stores the report and schedules its processing on the EDT, if there is
+     * no processing scheduled already.
+     *
+     * @param progress An immutable snapshot of the current search state.
+     */
+    @Override
+    public void onProgress(SearchProgress progress) {
+        if (pending.getAndSet(progress) == null) {
+            SwingUtilities.invokeLater(() -> {
+                SearchProgress latest = pending.getAndSet(null);
+                if (latest != null) {
+                    consumer.accept(latest);
+                }
+            });
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package view_and_controller;
 
 import model.Board;
+import model.Engine;
+import model.MoveScore;
 import model.Player;
 import model.ReversiBoard;
+import model.SearchListener;
+import model.SearchProgress;
+import model.TranspositionTable;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.ButtonModel;
 import javax.swing.JLabel;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.BoxLayout;
 import javax.swing.Box;
 import javax.swing.JOptionPane;
 import javax.swing.JComboBox;
 import javax.swing.BorderFactory;
+import javax.swing.Timer;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -27,8 +34,11 @@ import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class View extends JFrame {
 
@@ -40,43 +50,124 @@ public class View extends JFrame {
     private final Color MACHINE_TILE_COLOR = Color.RED;
     private final Color GAME_PANEL_BACKGROUND = Color.GREEN;
     private final Color BORDER_COLOR = Color.BLACK;
+    private final Color MOVE_MARK_COLOR = Color.YELLOW;
+    private final long FLIP_NANOS = 200_000_000L;
+    private final int FRAME_MILLIS = 15;
+    private final int CLOCK_MILLIS = 100;
+    private final long HINT_MILLIS = 300;
+    private final int[] CLOCK_MINUTES = {0, 1, 3, 5, 15};
+    private final int[] CLOCK_INCREMENT_SECONDS = {0, 0, 2, 3, 10};
+
+    /**
+     * The disc images of both players for the current slot size.
+     */
+    private final DiscSprites sprites
+            = new DiscSprites(HUMAN_TILE_COLOR, MACHINE_TILE_COLOR);
+
+    /**
+     * The slots whose disc is being flipped.
+     */
+    private final List<Slot> flipping = new ArrayList<>();
+
+    /**
+     * Repaints the flipping slots until their animation is over.
+     */
+    private final Timer flipTimer = new Timer(FRAME_MILLIS, e -> animate());
 
     /**
      * Contains the slots and represents the game board.
      */
-    private final JPanel gamePanel;
+    private JPanel gamePanel;
 
     /**
      * Contains every single slot to simply add to the {@code gamePanel}.
      */
-    private final Slot[][] gameSlots;
+    private Slot[][] gameSlots;
+
+    /**
+     * The numbers of the rows left of the {@code gamePanel}.
+     */
+    private JPanel verticalAxis;
+
+    /**
+     * The numbers of the columns above the {@code gamePanel}.
+     */
+    private JPanel horizontalAxis;
 
     /**
      * Stores the chosen difficulty of the current session. Initially on 3.
      */
     private int currentLevel = DEFAULT_LEVEL;
 
+    /**
+     * Stores the chosen strategy of the machine. Initially minimax.
+     */
+    private Engine currentEngine = Engine.MINIMAX;
+
+    /**
+     * The index of the chosen time control in {@code CLOCK_MINUTES}.
+     * Initially games without clock.
+     */
+    private int currentClock = 0;
+
+    /**
+     * The clock of the current game, {@code null} if it is not timed.
+     */
+    private GameClock clock;
+
+    /**
+     * The player who ran out of time, {@code null} if none did.
+     */
+    private Player flagged;
+
+    /**
+     * Whether the slots the human can move to are marked.
+     */
+    private boolean showMoves;
+
+    /**
+     * The board the last hint was searched for, {@code null} if none.
+     */
+    private Board hintBoard;
+
+    /**
+     * The slot of the move recommended for {@code hintBoard}, encoded as
+     * {@code row * size + column}.
+     */
+    private int hintMove = -1;
+
+    /**
+     * Shows the time left of both players while a clock runs.
+     */
+    private final Timer clockTimer = new Timer(CLOCK_MILLIS,
+            e -> updateClocks());
+
     /**
      * The game model which interacts with the interface.
      */
     private Board model;
 
     /**
-     * A separate thread to execute machine moves, so a human can still
+     * Plays the machine's moves in the background, so a human can still
      * interact with the UI.
      */
-    private Thread machineThread;
+    private final MachinePlayer machine;
 
     /**
-     * A stack which stores {@code Board} objects of previous moves.
+     * The moves of the current game, to take them back and redo them.
      */
-    private LinkedList<Board> history;
+    private final MoveHistory history = new MoveHistory();
 
     /**
      * The model of the undo button to access its features globally.
      */
     private ButtonModel undoButtonModel;
 
+    /**
+     * The model of the redo button to access its features globally.
+     */
+    private ButtonModel redoButtonModel;
+
     /**
      * Text field containing the number of human tiles.
      */
@@ -87,6 +178,23 @@ public class View extends JFrame {
      */
     private JLabel machineTiles;
 
+    /**
+     * Text field showing the progress of the running machine search.
+     */
+    private final JLabel searchStatus = new JLabel(" ");
+
+    /**
+     * Text field showing the clocks and the time allotted to the machine.
+     */
+    private final JLabel clockStatus = new JLabel(" ");
+
+    /**
+     * Hands over the progress of machine searches to the Event Dispatch
+     * Thread.
+     */
+    private final SearchListener searchListener
+            = new SwingSearchListener(this::showProgress);
+
     /**
      * Initializes a new {@code JFrame} main frame where all components are
      * stored.
@@ -95,7 +203,7 @@ public class View extends JFrame {
      */
     public View(Board model) {
         this.model = model;
-        gameSlots = new Slot[Board.SIZE][Board.SIZE];
+        machine = new MachinePlayer(searchListener);
         setTitle("Reversi");
         setMinimumSize(new Dimension(MIN_FRAME_WIDTH, MIN_FRAME_HEIGHT));
 
@@ -108,7 +216,7 @@ public class View extends JFrame {
         addAxis();
         add(gamePanel, BorderLayout.CENTER);
         add(getLowerPanel(), BorderLayout.SOUTH);
-        history = new LinkedList<>();
+        refreshBoard();
         pack();
     }
 
@@ -116,15 +224,16 @@ public class View extends JFrame {
      * Adds the vertical and horizontal numeric axis to the main frame.
      */
     private void addAxis() {
-        JPanel vertical = new JPanel(new GridLayout(Board.SIZE, 1));
+        int size = model.getSize();
+        JPanel vertical = new JPanel(new GridLayout(size, 1));
 
-        JPanel horizonal = new JPanel(new GridLayout(1, Board.SIZE));
+        JPanel horizonal = new JPanel(new GridLayout(1, size));
         JPanel horizontalContainer = new JPanel();
         horizontalContainer.setLayout(new BoxLayout(horizontalContainer,
                 BoxLayout.X_AXIS));
 
         // Add numbers to the JPanel.
-        for (int i = 0; i < Board.SIZE; ++i) {
+        for (int i = 0; i < size; ++i) {
             JLabel horizontalLabel = new JLabel(String.valueOf(i + 1));
             horizontalLabel.setHorizontalAlignment((int) CENTER_ALIGNMENT);
             horizonal.add(horizontalLabel);
@@ -138,6 +247,25 @@ public class View extends JFrame {
                 vertical.getWidth()));
         horizontalContainer.add(horizonal);
         add(horizontalContainer, BorderLayout.NORTH);
+        verticalAxis = vertical;
+        horizontalAxis = horizontalContainer;
+    }
+
+    /**
+     * Replaces the slots and the axes by ones of the size of the current
+     * model, after a game on a board of another size was started.
+     */
+    private void rebuildBoard() {
+        remove(gamePanel);
+        remove(verticalAxis);
+        remove(horizontalAxis);
+        flipping.clear();
+        flipTimer.stop();
+        gamePanel = getGamePanel();
+        addAxis();
+        add(gamePanel, BorderLayout.CENTER);
+        revalidate();
+        repaint();
     }
 
     /**
@@ -148,6 +276,225 @@ public class View extends JFrame {
         machineTiles.setText(model.getNumberOfMachineTiles() + " ");
     }
 
+    /**
+     * Shows the current model on the board. Only the slots that changed
+     * since the last call are repainted, and flipped discs are animated.
+     */
+    private void refreshBoard() {
+        Board board = model;
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                gameSlots[row][col].show(board.getSlot(row, col));
+            }
+        }
+        refreshMarks();
+    }
+
+    /**
+     * Marks the slots the human can move to, if enabled, and the move of
+     * the hint for the current board, if any.
+     */
+    private void refreshMarks() {
+        int size = model.getSize();
+        boolean[] legal = new boolean[size * size];
+        if (showMoves && flagged == null && !model.gameOver()
+                && model.next() == Player.HUMAN) {
+            for (int move: ((ReversiBoard) model).legalMoves()) {
+                legal[move] = true;
+            }
+        }
+        int hint = hintBoard == model ? hintMove : -1;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                gameSlots[row][col].mark(legal[row * size + col],
+                        row * size + col == hint);
+            }
+        }
+    }
+
+    /**
+     * Searches the best move of the human in the background and shows it
+     * within {@code HINT_MILLIS}, however high the level.
+     */
+    private void requestHint() {
+        if (model.gameOver() || model.next() != Player.HUMAN
+                || machine.isBusy() || flagged != null) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        Board board = model;
+        searchStatus.setText("Hint: thinking");
+        machine.hint(board, currentLevel, HINT_MILLIS,
+                scores -> showHint(board, scores),
+                e -> hintFailed(board, e));
+    }
+
+    /**
+     * Reports a failed hint search. Called on the Event Dispatch Thread.
+     *
+     * @param board The board the hint was searched for.
+     * @param e The reason.
+     */
+    private void hintFailed(Board board, RuntimeException e) {
+        if (board == model) {
+            searchStatus.setText("Hint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shows the best move of a hint search and its score from the human's
+     * point of view. Called on the Event Dispatch Thread.
+     *
+     * @param board The board the hint was searched for.
+     * @param scores The moves with their scores, the best one first.
+     */
+    private void showHint(Board board, List<MoveScore> scores) {
+        if (board != model) {
+            return;
+        }
+        if (scores.isEmpty()) {
+            searchStatus.setText("Hint: no move found in time");
+            return;
+        }
+        MoveScore best = scores.get(0);
+        hintBoard = board;
+        hintMove = best.getRow() * board.getSize() + best.getColumn();
+        searchStatus.setText("Hint: row " + (best.getRow() + 1)
+                + ", column " + (best.getColumn() + 1) + "  score "
+                + Math.round(-best.getScore()));
+        refreshMarks();
+    }
+
+    /**
+     * Repaints the flipping slots and stops the animation timer when all
+     * flips are over.
+     */
+    private void animate() {
+        long now = System.nanoTime();
+        flipping.removeIf(slot -> {
+            slot.repaint();
+            return now - slot.flipStart >= FLIP_NANOS;
+        });
+        if (flipping.isEmpty()) {
+            flipTimer.stop();
+        }
+    }
+
+    /**
+     * Enables the undo and redo buttons if there are moves to take back or
+     * to redo.
+     */
+    private void updateHistoryButtons() {
+        undoButtonModel.setEnabled(history.canUndoTurn());
+        redoButtonModel.setEnabled(history.canRedo());
+    }
+
+    /**
+     * Sets up the clock of the chosen time control for the current game
+     * and starts it for the player to move. Without time control, the game
+     * is not timed.
+     */
+    private void startClock() {
+        flagged = null;
+        if (CLOCK_MINUTES[currentClock] == 0) {
+            clock = null;
+            clockTimer.stop();
+            clockStatus.setText(" ");
+            return;
+        }
+        clock = new GameClock(CLOCK_MINUTES[currentClock] * 60_000L,
+                CLOCK_INCREMENT_SECONDS[currentClock] * 1000L);
+        resumeClock();
+    }
+
+    /**
+     * Lets the clock of the player to move run, e.g., after a move was
+     * taken back, unless a player ran out of time.
+     */
+    private void resumeClock() {
+        if (clock != null && flagged == null) {
+            if (model.gameOver()) {
+                clock.stop();
+            } else {
+                clock.start(model.next());
+                clockTimer.start();
+            }
+            updateClocks();
+        }
+    }
+
+    /**
+     * Ends the move of a player on the clock.
+     *
+     * @param mover The player who moved.
+     */
+    private void clockMoved(Player mover) {
+        if (clock != null && flagged == null) {
+            clock.moved(mover, model.gameOver() ? null : model.next());
+            if (model.gameOver()) {
+                clockTimer.stop();
+            }
+            updateClocks();
+        }
+    }
+
+    /**
+     * Shows the time left of both players and the time allotted to the
+     * machine, and ends the game if the player to move ran out of time.
+     */
+    private void updateClocks() {
+        if (clock == null) {
+            return;
+        }
+        Player expired = clock.expired();
+        if (expired != null) {
+            flagged = expired;
+            clock.stop();
+            machine.cancel();
+            refreshMarks();
+        }
+        StringBuilder text = new StringBuilder("You ")
+                .append(GameClock.format(
+                        clock.getRemainingMillis(Player.HUMAN)))
+                .append("   Machine ")
+                .append(GameClock.format(
+                        clock.getRemainingMillis(Player.COMPUTER)));
+        if (clock.getAllottedMillis() > 0) {
+            text.append(String.format(Locale.ROOT, "   (%.1f s per move)",
+                    clock.getAllottedMillis() / 1000.0));
+        }
+        clockStatus.setText(text.toString());
+        if (expired == Player.HUMAN) {
+            clockTimer.stop();
+            JOptionPane.showMessageDialog(null,
+                    "Your time is up. The computer has won!");
+        } else if (expired == Player.COMPUTER) {
+            clockTimer.stop();
+            JOptionPane.showMessageDialog(null,
+                    "The computer's time is up. You have won!");
+        }
+    }
+
+    /**
+     * Shows the principal variation, score and node count of a machine
+     * search. Must be called on the Event Dispatch Thread.
+     *
+     * @param progress The most recent progress of the search.
+     */
+    private void showProgress(SearchProgress progress) {
+        String state;
+        if (progress.isFinished()) {
+            state = "Best line";
+        } else {
+            state = "Thinking";
+        }
+        searchStatus.setText(state + " (depth " + progress.getDepth()
+                + "): " + progress.principalVariationToString() + "  score "
+                + Math.round(progress.getScore()) + ", "
+                + progress.getNodes() + " nodes, "
+                + progress.getElapsedMillis() + " ms");
+    }
+
     /**
      * Initializes the game panel with slots and adds behaviour for each of
      * them.
@@ -156,7 +503,9 @@ public class View extends JFrame {
      */
     private JPanel getGamePanel() {
         // Use a grid layout for an equal distribution of the slots.
-        JPanel gamePanel = new JPanel(new GridLayout(Board.SIZE, Board.SIZE));
+        int size = model.getSize();
+        gameSlots = new Slot[size][size];
+        JPanel gamePanel = new JPanel(new GridLayout(size, size));
         gamePanel.setBackground(GAME_PANEL_BACKGROUND);
 
         MouseListener mouseListener = new MouseAdapter() {
@@ -169,11 +518,13 @@ public class View extends JFrame {
             @Override
             public void mousePressed(MouseEvent e) {
                 super.mousePressed(e);
-                if (model.next() == Player.HUMAN && !model.gameOver()) {
+                if (flagged != null) {
+                    Toolkit.getDefaultToolkit().beep();
+                } else if (model.next() == Player.HUMAN
+                        && !model.gameOver()) {
                     humanMove(((Slot) e.getSource()).row,
                             ((Slot) e.getSource()).column);
-                } else if (machineThread != null && machineThread.isAlive()
-                        && !model.gameOver()) {
+                } else if (machine.isBusy() && !model.gameOver()) {
                     JOptionPane.showMessageDialog(null,
                             "The machine is currently calculating.");
                 } else if (model.next() == Player.COMPUTER
@@ -185,8 +536,8 @@ public class View extends JFrame {
         };
 
         // Create new slots and assign the upper {@code MouseListener} to them.
-        for (int row = 0; row < Board.SIZE; row++) {
-            for (int col = 0; col < Board.SIZE; col++) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
                 Slot slot = new Slot(row, col);
                 slot.addMouseListener(mouseListener);
 
@@ -241,6 +592,12 @@ public class View extends JFrame {
         container.add(humanTiles, BorderLayout.WEST);
         container.add(menuPanel);
         container.add(machineTiles, BorderLayout.EAST);
+        searchStatus.setHorizontalAlignment(JLabel.CENTER);
+        clockStatus.setHorizontalAlignment(JLabel.CENTER);
+        JPanel statusPanel = new JPanel(new GridLayout(2, 1));
+        statusPanel.add(clockStatus);
+        statusPanel.add(searchStatus);
+        container.add(statusPanel, BorderLayout.SOUTH);
         return container;
     }
 
@@ -251,21 +608,23 @@ public class View extends JFrame {
      * @param column Column index.
      */
     private void humanMove(int row, int column) {
-        if (!model.gameOver() && model.move(row, column) == null) {
+        Board newModel = null;
+        if (!model.gameOver()) {
+            newModel = model.move(row, column);
+        }
+        if (!model.gameOver() && newModel == null) {
             // Plays a sound in case of a incorrect move.
             Toolkit.getDefaultToolkit().beep();
             return;
         }
 
-        // Was a new move executed?
-        if (!model.equals(history.peekLast())) {
-            history.push(model);
-            undoButtonModel.setEnabled(true);
-        }
         if (!model.gameOver() && model.next() == Player.HUMAN) {
-            model = model.move(row, column);
+            history.record(model, newModel);
+            model = newModel;
+            clockMoved(Player.HUMAN);
+            updateHistoryButtons();
             updateScores();
-            gamePanel.repaint();
+            refreshBoard();
         } else {
             return;
         }
@@ -283,35 +642,57 @@ public class View extends JFrame {
      * Executes a machine move and repaints the GUI.
      */
     private void machineMove() {
-        // Start the machine move in a new thread.
-        machineThread = new Thread(() -> {
-            model = model.machineMove();
-            updateScores();
-            while (model.next() == Player.COMPUTER) {
-                JOptionPane.showMessageDialog(null,
-                        "You have to miss a turn.");
-                model = model.machineMove();
-                updateScores();
-                gameOverChecker();
-                gamePanel.repaint();
-            }
-            gameOverChecker();
-            gamePanel.repaint();
+        machine.play(model, currentLevel, clock, this::showMachineMove,
+                this::machineFinished, this::machineFailed);
+    }
 
-            /**
-             * Keeps the right level when the user changes it while the
-             * machine thread is busy.
-             */
-            model.setLevel(currentLevel);
-        });
-        machineThread.start();
+    /**
+     * Shows a move of the machine. Called on the Event Dispatch Thread.
+     *
+     * @param board The board after the move.
+     */
+    private void showMachineMove(Board board) {
+        history.record(model, board);
+        model = board;
+        clockMoved(Player.COMPUTER);
+
+        // Keeps the right level when the user changed it during the search.
+        model.setLevel(currentLevel);
+        ((ReversiBoard) model).setEngine(currentEngine);
+        updateScores();
+        refreshBoard();
     }
 
-    @SuppressWarnings("deprecation")
-    private void stopMachineThread() {
-        if (machineThread != null && machineThread.isAlive()) {
-            machineThread.stop();
+    /**
+     * Informs the user about missed turns and the end of the game after the
+     * machine's turn. Called on the Event Dispatch Thread.
+     *
+     * @param moves The number of moves the machine made.
+     */
+    private void machineFinished(int moves) {
+        updateHistoryButtons();
+        if (moves > 1) {
+            JOptionPane.showMessageDialog(null,
+                    "You had to miss a turn.");
         }
+        gameOverChecker();
+    }
+
+    /**
+     * Informs the user that the machine could not move. The machine's clock
+     * is stopped, and the user may take moves back or start a new game.
+     * Called on the Event Dispatch Thread.
+     *
+     * @param e The reason.
+     */
+    private void machineFailed(RuntimeException e) {
+        if (clock != null && flagged == null) {
+            clock.stop();
+            clockTimer.stop();
+        }
+        updateHistoryButtons();
+        JOptionPane.showMessageDialog(null, "The machine could not move: "
+                + e.getMessage());
     }
 
     /**
@@ -336,6 +717,101 @@ public class View extends JFrame {
                 model.setLevel(currentLevel);
             }
         });
+        JComboBox<Engine> engineBox = new JComboBox<>(Engine.values());
+        engineBox.setSelectedItem(currentEngine);
+        engineBox.addActionListener(new ActionListener() {
+            /**
+             * Sets the strategy of the machine to the one that was selected.
+             *
+             * @param actionEvent The {@code ActionEvent} after selecting a
+             *                   strategy.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                currentEngine = (Engine) engineBox.getSelectedItem();
+                ((ReversiBoard) model).setEngine(currentEngine);
+            }
+        });
+        JComboBox<Integer> sizeBox = getSizeBox();
+        sizeBox.addActionListener(new ActionListener() {
+            /**
+             * Starts a new game with the same settings on a board of the
+             * size that was selected.
+             *
+             * @param actionEvent The {@code ActionEvent} after selecting a
+             *                   size.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                int size = (Integer) sizeBox.getSelectedItem();
+                if (size == model.getSize()) {
+                    return;
+                }
+                machine.cancel();
+                TranspositionTable.newGame();
+                history.clear();
+                updateHistoryButtons();
+                searchStatus.setText(" ");
+                model = new ReversiBoard((ReversiBoard) model,
+                        model.getFirstPlayer(), size);
+                startClock();
+                rebuildBoard();
+                updateScores();
+                refreshBoard();
+                if (model.next() == Player.COMPUTER) {
+                    machineMove();
+                }
+            }
+        });
+        JComboBox<String> clockBox = getClockBox();
+        clockBox.addActionListener(new ActionListener() {
+            /**
+             * Restarts the clocks of the current game with the time control
+             * that was selected.
+             *
+             * @param actionEvent The {@code ActionEvent} after selecting a
+             *                   time control.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                currentClock = clockBox.getSelectedIndex();
+                startClock();
+                if (machine.isBusy()) {
+                    // Search again with the time of the new clock.
+                    machine.cancel();
+                    machineMove();
+                }
+            }
+        });
+        JCheckBox movesBox = new JCheckBox("Moves", showMoves);
+        movesBox.setMnemonic(KeyEvent.VK_M);
+        movesBox.addActionListener(new ActionListener() {
+            /**
+             * Shows or hides the marks of the human's legal moves.
+             *
+             * @param actionEvent The {@code ActionEvent} after clicking on the
+             *                   moves box.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                showMoves = movesBox.isSelected();
+                refreshMarks();
+            }
+        });
+        JButton hintButton = new JButton("Hint");
+        hintButton.setMnemonic(KeyEvent.VK_H);
+        hintButton.addActionListener(new ActionListener() {
+            /**
+             * Searches and marks the best move of the human.
+             *
+             * @param actionEvent The {@code ActionEvent} after clicking on the
+             *                   hint button.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                requestHint();
+            }
+        });
         JButton newButton = new JButton("New");
         newButton.setMnemonic(KeyEvent.VK_N);
         newButton.addActionListener(new ActionListener() {
@@ -347,12 +823,16 @@ public class View extends JFrame {
              */
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                stopMachineThread();
+                machine.cancel();
+                TranspositionTable.newGame();
                 history.clear();
+                updateHistoryButtons();
+                searchStatus.setText(" ");
                 model = new ReversiBoard((ReversiBoard) model,
                         model.getFirstPlayer());
+                startClock();
                 updateScores();
-                gamePanel.repaint();
+                refreshBoard();
                 if (model.next() == Player.COMPUTER) {
                     machineMove();
                 }
@@ -369,19 +849,24 @@ public class View extends JFrame {
              */
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                stopMachineThread();
+                machine.cancel();
+                TranspositionTable.newGame();
                 history.clear();
-                undoButtonModel.setEnabled(false);
+                updateHistoryButtons();
+                searchStatus.setText(" ");
                 if (model.getFirstPlayer() == Player.HUMAN) {
                     model = new ReversiBoard((ReversiBoard) model,
                             Player.COMPUTER);
-                    machineMove();
                 } else {
                     model = new ReversiBoard((ReversiBoard) model,
                             Player.HUMAN);
                 }
+                startClock();
+                if (model.next() == Player.COMPUTER) {
+                    machineMove();
+                }
                 updateScores();
-                gamePanel.repaint();
+                refreshBoard();
             }
         });
         JButton undoButton = new JButton("Undo");
@@ -401,13 +886,39 @@ public class View extends JFrame {
              */
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                if (history.size() > 0) {
-                    model = history.pop();
+                if (machine.isBusy()) {
+                    Toolkit.getDefaultToolkit().beep();
+                } else if (history.canUndoTurn()) {
+                    model = history.undoTurn(model);
+                    resumeClock();
+                    updateScores();
+                    updateHistoryButtons();
+                    refreshBoard();
+                }
+            }
+        });
+        JButton redoButton = new JButton("Redo");
+        redoButton.setMnemonic(KeyEvent.VK_R);
+        redoButton.setEnabled(false);
+        redoButtonModel = redoButton.getModel();
+        redoButton.addActionListener(new ActionListener() {
+            /**
+             * Redoes the last move taken back together with the answers of
+             * the machine and repaints the gui.
+             *
+             * @param actionEvent The {@code ActionEvent} after clicking on the
+             *                    redo button.
+             */
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                if (machine.isBusy()) {
+                    Toolkit.getDefaultToolkit().beep();
+                } else if (history.canRedo()) {
+                    model = history.redoTurn(model);
+                    resumeClock();
                     updateScores();
-                    if (history.size() == 0) {
-                        undoButtonModel.setEnabled(false);
-                    }
-                    gamePanel.repaint();
+                    updateHistoryButtons();
+                    refreshBoard();
                 }
             }
         });
@@ -423,14 +934,20 @@ public class View extends JFrame {
              */
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                stopMachineThread();
+                machine.shutdown();
                 dispose();
             }
         });
         menuPanel.add(levelBox);
+        menuPanel.add(engineBox);
+        menuPanel.add(sizeBox);
+        menuPanel.add(clockBox);
+        menuPanel.add(movesBox);
+        menuPanel.add(hintButton);
         menuPanel.add(newButton);
         menuPanel.add(switchButton);
         menuPanel.add(undoButton);
+        menuPanel.add(redoButton);
         menuPanel.add(quitButton);
         return menuPanel;
     }
@@ -459,6 +976,53 @@ public class View extends JFrame {
         return levelBox;
     }
 
+    /**
+     * Creates the drop down box for the size of the board, with every even
+     * number of rows and columns the model supports.
+     *
+     * @return The {@code JComboBox} of the size box.
+     */
+    private JComboBox<Integer> getSizeBox() {
+        List<Integer> sizes = new ArrayList<>();
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size += 2) {
+            sizes.add(size);
+        }
+        JComboBox<Integer> sizeBox
+                = new JComboBox<>(sizes.toArray(new Integer[0]));
+        sizeBox.setSelectedItem(model.getSize());
+        return sizeBox;
+    }
+
+    /**
+     * Creates the drop down box for the time control, each given as the
+     * minutes per player and the seconds added after each move.
+     *
+     * @return The {@code JComboBox} of the clock box.
+     */
+    private JComboBox<String> getClockBox() {
+        String[] names = new String[CLOCK_MINUTES.length];
+        for (int i = 0; i < names.length; i++) {
+            if (CLOCK_MINUTES[i] == 0) {
+                names[i] = "No clock";
+            } else {
+                names[i] = CLOCK_MINUTES[i] + "+"
+                        + CLOCK_INCREMENT_SECONDS[i];
+            }
+        }
+        JComboBox<String> clockBox = new JComboBox<>(names);
+        clockBox.setSelectedIndex(currentClock);
+        return clockBox;
+    }
+
+    /**
+     * Stops the clocks and disposes the GUI.
+     */
+    @Override
+    public void dispose() {
+        clockTimer.stop();
+        super.dispose();
+    }
+
     /**
      * This class represents a slot on the {@code gamePanel}. It is analogue to
      * a player tile of the game board model.
@@ -475,6 +1039,32 @@ public class View extends JFrame {
          */
         private final int column;
 
+        /**
+         * The owner of the disc shown on this slot.
+         */
+        private Player shown = Player.NOBODY;
+
+        /**
+         * The owner of the disc before the current flip.
+         */
+        private Player flippedFrom = Player.NOBODY;
+
+        /**
+         * The start of the current flip as given by
+         * {@link System#nanoTime()}.
+         */
+        private long flipStart;
+
+        /**
+         * Whether this slot is marked as a legal move of the human.
+         */
+        private boolean legal;
+
+        /**
+         * Whether this slot is marked as the move of a hint.
+         */
+        private boolean hinted;
+
         /**
          * Creates a new {@code Slot} object.
          *
@@ -490,40 +1080,103 @@ public class View extends JFrame {
             setBorder(BorderFactory.createLineBorder(BORDER_COLOR));
         }
 
+        /**
+         * Shows the disc of a player and repaints this slot if the disc
+         * changed. A disc changing its owner is flipped in an animation.
+         *
+         * @param player The owner of the disc, {@link Player#NOBODY} for an
+         *        empty slot.
+         */
+        private void show(Player player) {
+            if (player == shown) {
+                return;
+            }
+            if (shown != Player.NOBODY && player != Player.NOBODY) {
+                flippedFrom = shown;
+                flipStart = System.nanoTime();
+                if (!flipping.contains(this)) {
+                    flipping.add(this);
+                }
+                flipTimer.start();
+            }
+            shown = player;
+            repaint();
+        }
+
+        /**
+         * Marks this slot as a legal move or as the move of a hint and
+         * repaints it if the marks changed.
+         *
+         * @param legal Whether the human can move here.
+         * @param hinted Whether the hint recommends to move here.
+         */
+        private void mark(boolean legal, boolean hinted) {
+            if (legal != this.legal || hinted != this.hinted) {
+                this.legal = legal;
+                this.hinted = hinted;
+                repaint();
+            }
+        }
+
         /**
          * Paints a single slot on the {@code gamePanel} object to visualize
-         * its appearance.
+         * its appearance. The disc is drawn from a pre-rendered image, which
+         * is narrowed while the disc is flipped.
          *
          * @param gr The graphic object.
          */
         @Override
         protected void paintComponent(Graphics gr) {
             super.paintComponent(gr);
-            if (model.getSlot(row, column) != Player.NOBODY) {
-                // Get the coordinates of the center of the circle.
-                int cntrX = getWidth() / 2;
-                int cntrY = getHeight() / 2;
-                int radius;
-
-                // Get the radius dependent on the smaller size.
-                if (cntrX < cntrY) {
-                    // Leave a little bit space so the circles won't overlap.
-                    radius = getWidth() / 2 - 2;
+
+            // Leave a little bit space so the circles won't overlap.
+            int radius = Math.min(getWidth(), getHeight()) / 2 - 2;
+            if (shown == Player.NOBODY) {
+                paintMarks(gr, radius);
+                return;
+            }
+            if (radius <= 0) {
+                return;
+            }
+            Player player = shown;
+            int width = radius * 2;
+            long elapsed = System.nanoTime() - flipStart;
+            if (flipping.contains(this) && elapsed < FLIP_NANOS) {
+                // The old disc shrinks to a line, then the new one grows.
+                double progress = 2.0 * elapsed / FLIP_NANOS;
+                if (progress < 1) {
+                    player = flippedFrom;
+                    width = (int) (width * (1 - progress));
                 } else {
-                    radius = getHeight() / 2 - 2;
+                    width = (int) (width * (progress - 1));
                 }
-                if (model.getSlot(row, column) == Player.HUMAN) {
-                    gr.setColor(HUMAN_TILE_COLOR);
-                } else if (model.getSlot(row, column) == Player.COMPUTER) {
-                    gr.setColor(MACHINE_TILE_COLOR);
-                }
-
-                // Draw the circles.
-                gr.fillOval(cntrX - radius, cntrY - radius, radius * 2,
-                        radius * 2);
-                gr.drawOval(cntrX - radius, cntrY - radius, radius * 2,
-                        radius * 2);
+            }
+            BufferedImage disc = sprites.get(player, radius * 2);
+            gr.drawImage(disc, getWidth() / 2 - width / 2,
+                    getHeight() / 2 - radius, width + 1, disc.getHeight(),
+                    null);
+        }
 
+        /**
+         * Paints the marks of an empty slot: a small dot for a legal move
+         * and a ring in the human's color for the move of a hint.
+         *
+         * @param gr The graphic object.
+         * @param radius The radius of a disc on this slot.
+         */
+        private void paintMarks(Graphics gr, int radius) {
+            int x = getWidth() / 2;
+            int y = getHeight() / 2;
+            if (hinted && radius > 0) {
+                gr.setColor(HUMAN_TILE_COLOR);
+                gr.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
+                gr.drawOval(x - radius + 1, y - radius + 1, 2 * radius - 2,
+                        2 * radius - 2);
+            }
+            if (legal || hinted) {
+                int dot = Math.max(2, radius / 4);
+                gr.setColor(hinted ? HUMAN_TILE_COLOR : MOVE_MARK_COLOR);
+                gr.fillOval(x - dot, y - dot, 2 * dot, 2 * dot);
             }
         }
     }